@@ -0,0 +1,102 @@
+package com.baggagepathfinder.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.graph.NodePath;
+import com.baggagepathfinder.model.Bag;
+import com.baggagepathfinder.service.BagStream;
+import com.baggagepathfinder.service.RouteSink;
+import com.baggagepathfinder.service.Topology;
+import com.baggagepathfinder.utils.LatencyHistogram;
+
+/**
+ * Measures routing a burst of bags through BagStream in micro-batches of maxBatchBags,
+ * compared to routing the same baggage data with Topology#routeBags in chunks of
+ * OUTPUT_CHUNK_BAGS. Batch latency percentiles of the last stream are printed at the end of
+ * each iteration.
+ *
+ * @author abankey
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BagStreamBenchmark {
+
+	@Param({"2000"})
+	public int nodeCount;
+
+	@Param({"2"})
+	public double edgeDensity;
+
+	@Param({"100000"})
+	public int bagCount;
+
+	@Param({"256", "4096"})
+	public int maxBatchBags;
+
+	private String bagData;
+	private Topology topology;
+	private BagStream lastStream;
+
+	@Setup(Level.Trial)
+	public void setup() throws SystemException{
+		SyntheticDataGenerator data = new SyntheticDataGenerator(nodeCount, edgeDensity, 16, 200, bagCount, 42);
+		topology = Topology.build(data.getConveyorData(), data.getDepartureData());
+		bagData = data.getBagData();
+	}
+
+	@TearDown(Level.Iteration)
+	public void printLatency(){
+		if(lastStream != null){
+			LatencyHistogram batchLatency = lastStream.getBatchLatency();
+			System.out.println(" batch latency p50 " + batchLatency.getValueAtPercentile(50) / 1000
+					+ " us, p99 " + batchLatency.getValueAtPercentile(99) / 1000 + " us, "
+					+ batchLatency.getCount() + " batches");
+		}
+	}
+
+	@Benchmark
+	public long bagStream(Blackhole blackhole) throws IOException, InterruptedException{
+		BagStream stream = new BagStream(topology, sink(blackhole), BagStream.DEFAULT_QUEUE_CAPACITY, maxBatchBags,
+				BagStream.DEFAULT_MAX_BATCH_DELAY_MILLIS);
+		long routed = stream.run(new StringReader(bagData));
+		lastStream = stream;
+		return routed;
+	}
+
+	@Benchmark
+	public void topologyRouteBags(Blackhole blackhole) throws IOException, SystemException{
+		topology.routeBags(new StringReader(bagData), sink(blackhole));
+	}
+
+	private static RouteSink sink(final Blackhole blackhole){
+		return new RouteSink() {
+			@Override
+			public void accept(Bag bag, NodePath path) {
+				blackhole.consume(path);
+			}
+		};
+	}
+}
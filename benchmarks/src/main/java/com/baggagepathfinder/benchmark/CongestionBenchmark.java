@@ -0,0 +1,80 @@
+package com.baggagepathfinder.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.graph.NodePath;
+import com.baggagepathfinder.model.Bag;
+import com.baggagepathfinder.service.BaggagePathfinderService;
+import com.baggagepathfinder.service.RouteSink;
+
+/**
+ * Measures routing of one wave of bags with congestion aware rounds, compared to plain
+ * routeBags. Input is loaded once per trial, only routing is measured.
+ * 
+ * @author abankey
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CongestionBenchmark {
+
+	@Param({"1000"})
+	public int nodeCount;
+
+	@Param({"2"})
+	public double edgeDensity;
+
+	@Param({"100000"})
+	public int bagCount;
+
+	@Param({"1", "4", "16"})
+	public int rounds;
+
+	private BaggagePathfinderService service;
+
+	@Setup(Level.Trial)
+	public void setup() throws SystemException, IOException{
+		SyntheticDataGenerator data = new SyntheticDataGenerator(nodeCount, edgeDensity, Math.max(10, nodeCount / 20), bagCount, 42);
+		service = new BaggagePathfinderService();
+		service.findShortestPath(data.getInput());
+	}
+
+	@Benchmark
+	public void routeBags(final Blackhole blackhole) throws IOException, SystemException{
+		service.routeBags(sink(blackhole));
+	}
+
+	@Benchmark
+	public int[] routeBagsByCongestion(final Blackhole blackhole) throws IOException, SystemException{
+		return service.routeBagsByCongestion(sink(blackhole), rounds);
+	}
+
+	private static RouteSink sink(final Blackhole blackhole){
+		return new RouteSink() {
+			@Override
+			public void accept(Bag bag, NodePath path) {
+				blackhole.consume(path);
+			}
+		};
+	}
+}
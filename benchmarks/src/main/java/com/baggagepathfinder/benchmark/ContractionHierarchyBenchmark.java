@@ -0,0 +1,103 @@
+package com.baggagepathfinder.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.graph.BidirectionalPathfinder;
+import com.baggagepathfinder.graph.CompactGraph;
+import com.baggagepathfinder.graph.ContractionHierarchy;
+import com.baggagepathfinder.graph.ContractionHierarchyPathfinder;
+import com.baggagepathfinder.graph.NodePath;
+import com.baggagepathfinder.service.BaggagePathfinderService;
+
+/**
+ * Measures contraction hierarchy preprocessing time and query latency, compared to a
+ * bidirectional Dijkstra search on the same graph. Segments only connect nearby nodes
+ * (maxSegmentSpan), like the layout of a real conveyor system. Shortcut count and index
+ * size are printed once per trial.
+ *
+ * @author abankey
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContractionHierarchyBenchmark {
+
+	private static final int PAIRS = 1024;
+
+	@Param({"10000", "100000"})
+	public int nodeCount;
+
+	@Param({"2"})
+	public double edgeDensity;
+
+	@Param({"16"})
+	public int maxSegmentSpan;
+
+	private CompactGraph graph;
+	private ContractionHierarchyPathfinder hierarchyPathfinder;
+	private BidirectionalPathfinder bidirectionalPathfinder;
+	private int[] sources;
+	private int[] destinations;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() throws SystemException{
+		SyntheticDataGenerator data = new SyntheticDataGenerator(nodeCount, edgeDensity, maxSegmentSpan, 0, 0, 42);
+		BaggagePathfinderService service = new BaggagePathfinderService();
+		service.handleConveyorData(data.getConveyorData());
+		graph = service.getCompactGraph();
+		ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+		System.out.println("Contraction hierarchy: " + hierarchy.getPreprocessingMillis() + " ms preprocessing, "
+				+ hierarchy.getShortcutCount() + " shortcuts, " + hierarchy.getMemory() + " bytes index");
+		hierarchyPathfinder = new ContractionHierarchyPathfinder(hierarchy);
+		bidirectionalPathfinder = new BidirectionalPathfinder(graph);
+
+		Random random = new Random(7);
+		sources = new int[PAIRS];
+		destinations = new int[PAIRS];
+		for(int i = 0; i < PAIRS; i++){
+			sources[i] = random.nextInt(graph.getNodeCount());
+			destinations[i] = random.nextInt(graph.getNodeCount());
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 1)
+	@Measurement(iterations = 3)
+	public ContractionHierarchy preprocessing(){
+		return ContractionHierarchy.build(graph);
+	}
+
+	@Benchmark
+	public NodePath contractionHierarchyQuery(){
+		int pair = next++ & (PAIRS - 1);
+		return hierarchyPathfinder.getShortestPath(sources[pair], destinations[pair]);
+	}
+
+	@Benchmark
+	public NodePath bidirectionalQuery(){
+		int pair = next++ & (PAIRS - 1);
+		return bidirectionalPathfinder.getShortestPath(sources[pair], destinations[pair]);
+	}
+}
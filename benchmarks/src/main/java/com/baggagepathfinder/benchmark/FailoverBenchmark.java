@@ -0,0 +1,123 @@
+package com.baggagepathfinder.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.graph.Node;
+import com.baggagepathfinder.graph.NodePath;
+import com.baggagepathfinder.model.Bag;
+import com.baggagepathfinder.service.BaggagePathfinderService;
+import com.baggagepathfinder.service.InFlightRoutes;
+import com.baggagepathfinder.service.RouteSink;
+
+/**
+ * Measures rerouting of a wave of bags after a conveyor segment goes out of service, compared
+ * to routing the whole wave again. Each failure takes the first segment of the route of one
+ * of the first SEGMENTS bags down and back up, so most failures hit segments next to a
+ * check-in counter, where most routes start. Routes are set up fresh for each iteration, the
+ * average number of rerouted bags per failure is printed at the end of each iteration.
+ *
+ * @author abankey
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FailoverBenchmark {
+
+	private static final int SEGMENTS = 1024;
+
+	@Param({"2000"})
+	public int nodeCount;
+
+	@Param({"2"})
+	public double edgeDensity;
+
+	@Param({"200000"})
+	public int bagCount;
+
+	private BaggagePathfinderService service;
+	private InFlightRoutes inFlight;
+	private String[] sourceNames = new String[SEGMENTS];
+	private String[] destinationNames = new String[SEGMENTS];
+	private int next;
+	private long failures;
+	private long rerouted;
+
+	@Setup(Level.Trial)
+	public void setup() throws SystemException, IOException{
+		SyntheticDataGenerator data = new SyntheticDataGenerator(nodeCount, edgeDensity, 16, 200, bagCount, 42);
+		service = new BaggagePathfinderService();
+		service.loadData(new StringReader(data.getInput()));
+	}
+
+	@Setup(Level.Iteration)
+	public void routeWave() throws SystemException, IOException{
+		inFlight = service.routeInFlightBags(sink(null));
+		for(int i = 0, bag = 0; i < SEGMENTS; bag++){
+			List<Node> path = inFlight.getPath(bag).getPath();
+			if(path.size() > 1){
+				sourceNames[i] = path.get(0).getName();
+				destinationNames[i] = path.get(1).getName();
+				i++;
+			}
+		}
+		failures = 0;
+		rerouted = 0;
+	}
+
+	@TearDown(Level.Iteration)
+	public void printRerouted(){
+		if(failures > 0){
+			System.out.println(" " + rerouted / failures + " of " + inFlight.getBagCount() 
+					+ " bags rerouted per failure, " + inFlight.getRouteCount() + " routes");
+		}
+	}
+
+	@Benchmark
+	public int markSegmentDown(Blackhole blackhole) throws IOException, SystemException{
+		int segment = next++ & (SEGMENTS - 1);
+		int count = inFlight.markSegmentDown(sourceNames[segment], destinationNames[segment], sink(blackhole));
+		inFlight.markSegmentUp(sourceNames[segment], destinationNames[segment], sink(blackhole));
+		failures++;
+		rerouted += count;
+		return count;
+	}
+
+	@Benchmark
+	public void routeBags(Blackhole blackhole) throws IOException, SystemException{
+		service.routeBags(sink(blackhole));
+	}
+
+	private static RouteSink sink(final Blackhole blackhole){
+		return new RouteSink() {
+			@Override
+			public void accept(Bag bag, NodePath path) {
+				if(blackhole != null){
+					blackhole.consume(path);
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,64 @@
+package com.baggagepathfinder.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.service.BaggagePathfinderService;
+
+/**
+ * Measures findShortestPath end to end: parsing, graph build and routing of all bags.
+ * 
+ * @author abankey
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FindShortestPathBenchmark {
+
+	@Param({"1000", "10000"})
+	public int nodeCount;
+
+	@Param({"2"})
+	public double edgeDensity;
+
+	@Param({"10000", "100000"})
+	public int bagCount;
+
+	@Param({"false", "true"})
+	public boolean precomputeRoutes;
+
+	@Param({"1"})
+	public int parallelism;
+
+	private String input;
+
+	@Setup(Level.Trial)
+	public void setup(){
+		input = new SyntheticDataGenerator(nodeCount, edgeDensity, Math.max(10, nodeCount / 20), bagCount, 42).getInput();
+	}
+
+	@Benchmark
+	public String findShortestPath() throws SystemException{
+		BaggagePathfinderService service = new BaggagePathfinderService();
+		service.setPrecomputeRoutes(precomputeRoutes);
+		service.setParallelism(parallelism);
+		return service.findShortestPath(input);
+	}
+}
@@ -0,0 +1,76 @@
+package com.baggagepathfinder.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.graph.CompactGraph;
+import com.baggagepathfinder.service.BaggagePathfinderService;
+
+/**
+ * Measures building the compact graph from the node repository and loading the conveyor
+ * system into the node repository. Heap footprint of the loaded node repository is printed
+ * once per trial, measured as used heap after garbage collection.
+ * 
+ * @author abankey
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBuildBenchmark {
+
+	@Param({"1000", "10000", "100000"})
+	public int nodeCount;
+
+	@Param({"2", "4"})
+	public double edgeDensity;
+
+	private String conveyorData;
+	private BaggagePathfinderService service;
+
+	@Setup(Level.Trial)
+	public void setup() throws SystemException{
+		conveyorData = new SyntheticDataGenerator(nodeCount, edgeDensity, 0, 0, 42).getConveyorData();
+		long before = usedHeap();
+		service = new BaggagePathfinderService();
+		service.handleConveyorData(conveyorData);
+		long footprint = usedHeap() - before;
+		System.out.println("Node repository: " + footprint + " bytes, " + footprint / nodeCount + " bytes per node");
+	}
+
+	@Benchmark
+	public CompactGraph buildCompactGraph(){
+		return CompactGraph.build(service.getNodeMap());
+	}
+
+	@Benchmark
+	public BaggagePathfinderService loadConveyorData() throws SystemException{
+		BaggagePathfinderService loaded = new BaggagePathfinderService();
+		loaded.handleConveyorData(conveyorData);
+		return loaded;
+	}
+
+	private static long usedHeap(){
+		for(int i = 0; i < 3; i++){
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+}
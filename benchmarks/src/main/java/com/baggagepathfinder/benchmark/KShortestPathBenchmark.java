@@ -0,0 +1,89 @@
+package com.baggagepathfinder.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.graph.CompactGraph;
+import com.baggagepathfinder.graph.EarlyExitPathfinder;
+import com.baggagepathfinder.graph.KShortestPathfinder;
+import com.baggagepathfinder.graph.NodePath;
+import com.baggagepathfinder.service.BaggagePathfinderService;
+
+/**
+ * Measures k shortest paths queries against a single early exit Dijkstra search between the
+ * same random node pairs. Every query has a new destination, so the shortest path tree of the
+ * destination is never reused.
+ *
+ * @author abankey
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KShortestPathBenchmark {
+
+	private static final int PAIRS = 1024;
+
+	@Param({"10000", "100000"})
+	public int nodeCount;
+
+	@Param({"5"})
+	public int k;
+
+	@Param({"1", "0.6"})
+	public double maxOverlap;
+
+	private KShortestPathfinder kShortestPathfinder;
+	private EarlyExitPathfinder earlyExitPathfinder;
+	private int[] sources;
+	private int[] destinations;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() throws SystemException{
+		SyntheticDataGenerator data = new SyntheticDataGenerator(nodeCount, 2, 16, 0, 0, 42);
+		BaggagePathfinderService service = new BaggagePathfinderService();
+		service.handleConveyorData(data.getConveyorData());
+		CompactGraph graph = service.getCompactGraph();
+		kShortestPathfinder = new KShortestPathfinder(graph);
+		earlyExitPathfinder = new EarlyExitPathfinder(graph);
+
+		Random random = new Random(7);
+		sources = new int[PAIRS];
+		destinations = new int[PAIRS];
+		for(int i = 0; i < PAIRS; i++){
+			sources[i] = random.nextInt(graph.getNodeCount());
+			destinations[i] = random.nextInt(graph.getNodeCount());
+		}
+	}
+
+	@Benchmark
+	public List<NodePath> kShortestPaths(){
+		int pair = next++ & (PAIRS - 1);
+		return kShortestPathfinder.getShortestPaths(sources[pair], destinations[pair], k, maxOverlap);
+	}
+
+	@Benchmark
+	public NodePath singleSearch(){
+		int pair = next++ & (PAIRS - 1);
+		return earlyExitPathfinder.getShortestPath(sources[pair], destinations[pair]);
+	}
+}
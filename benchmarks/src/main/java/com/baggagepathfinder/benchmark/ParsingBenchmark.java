@@ -0,0 +1,96 @@
+package com.baggagepathfinder.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.service.BaggagePathfinderService;
+
+/**
+ * Measures parsing of the three input sections. Heap footprint of the loaded bag repository
+ * is printed once per trial, measured as used heap after garbage collection.
+ * 
+ * @author abankey
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParsingBenchmark {
+
+	@Param({"1000", "10000", "100000"})
+	public int nodeCount;
+
+	@Param({"2"})
+	public double edgeDensity;
+
+	@Param({"100000"})
+	public int bagCount;
+
+	private SyntheticDataGenerator data;
+	private BaggagePathfinderService loadedService;
+
+	@Setup(Level.Trial)
+	public void setup() throws SystemException{
+		data = new SyntheticDataGenerator(nodeCount, edgeDensity, Math.max(10, nodeCount / 20), bagCount, 42);
+		loadedService = new BaggagePathfinderService();
+		loadedService.handleConveyorData(data.getConveyorData());
+		loadedService.handleDepartureData(data.getDepartureData());
+
+		String bagData = data.getBagData();
+		long before = usedHeap();
+		loadedService.handleBaggagedata(bagData);
+		long footprint = usedHeap() - before;
+		System.out.println("Bag repository: " + footprint + " bytes, " + footprint / bagCount + " bytes per bag");
+	}
+
+	/**
+	 * Bags accumulate in bag repository, start every invocation with an empty one.
+	 */
+	@Setup(Level.Invocation)
+	public void clearBags(){
+		loadedService.clearBags();
+	}
+
+	@Benchmark
+	public BaggagePathfinderService handleConveyorData() throws SystemException{
+		BaggagePathfinderService service = new BaggagePathfinderService();
+		service.handleConveyorData(data.getConveyorData());
+		return service;
+	}
+
+	@Benchmark
+	public BaggagePathfinderService handleDepartureData() throws SystemException{
+		loadedService.handleDepartureData(data.getDepartureData());
+		return loadedService;
+	}
+
+	@Benchmark
+	public BaggagePathfinderService handleBaggagedata() throws SystemException{
+		loadedService.handleBaggagedata(data.getBagData());
+		return loadedService;
+	}
+
+	private static long usedHeap(){
+		for(int i = 0; i < 3; i++){
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+}
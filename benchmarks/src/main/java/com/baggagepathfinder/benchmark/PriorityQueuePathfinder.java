@@ -0,0 +1,52 @@
+package com.baggagepathfinder.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+import com.baggagepathfinder.graph.Node;
+import com.baggagepathfinder.graph.NodePath;
+
+/**
+ * The original ShortestPathfinder, which lowers the travel time of a queued node with
+ * PriorityQueue.remove and add. Kept as baseline for IndexedMinHeap based pathfinders.
+ * 
+ * @author abankey
+ */
+public class PriorityQueuePathfinder {
+
+	public NodePath getShortestPath(Node source, Node destination)
+	{
+		computeQuickestPath(source);
+
+		List<Node> path = new ArrayList<Node>();
+		for (Node node = destination; node != null; node = node.getPrevious())
+			path.add(node);
+		Collections.reverse(path);
+		return new NodePath(path, destination.getMinTravelTime());
+	}
+
+	private void computeQuickestPath(Node sourceNode){
+		sourceNode.setMinTravelTime(0d);
+		Queue<Node> nodeQueue = new PriorityQueue<Node>();
+		nodeQueue.add(sourceNode);
+
+		while(!nodeQueue.isEmpty()){
+			Node currentNode = nodeQueue.poll();
+
+			for(int edge = 0, count = currentNode.getEdgeCount(); edge < count; edge++){
+				Node adjacentNode = currentNode.getTarget(edge);
+				double totalTravelTime = currentNode.getMinTravelTime() + currentNode.getTravelTime(edge);
+
+				if(totalTravelTime < adjacentNode.getMinTravelTime()){
+					nodeQueue.remove(adjacentNode);
+					adjacentNode.setMinTravelTime(totalTravelTime);
+					adjacentNode.setPrevious(currentNode);
+					nodeQueue.add(adjacentNode);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.baggagepathfinder.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.graph.AltPathfinder;
+import com.baggagepathfinder.graph.BidirectionalPathfinder;
+import com.baggagepathfinder.graph.CompactGraph;
+import com.baggagepathfinder.graph.CompactShortestPathfinder;
+import com.baggagepathfinder.graph.EarlyExitPathfinder;
+import com.baggagepathfinder.graph.Landmarks;
+import com.baggagepathfinder.graph.NodePath;
+import com.baggagepathfinder.graph.ShortestPathfinder;
+import com.baggagepathfinder.service.BaggagePathfinderService;
+
+/**
+ * Measures single point to point queries of the pathfinders. Every invocation routes 
+ * the next pair of a fixed random list of source and destination nodes.
+ * 
+ * @author abankey
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingBenchmark {
+
+	private static final int PAIRS = 1024;
+
+	@Param({"1000", "10000", "100000"})
+	public int nodeCount;
+
+	@Param({"2"})
+	public double edgeDensity;
+
+	private BaggagePathfinderService service;
+	private CompactGraph graph;
+	private CompactShortestPathfinder compactPathfinder;
+	private EarlyExitPathfinder earlyExitPathfinder;
+	private BidirectionalPathfinder bidirectionalPathfinder;
+	private AltPathfinder altPathfinder;
+	private ShortestPathfinder pathfinder;
+	private PriorityQueuePathfinder priorityQueuePathfinder;
+	private int[] sources;
+	private int[] destinations;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() throws SystemException{
+		SyntheticDataGenerator data = new SyntheticDataGenerator(nodeCount, edgeDensity, 0, 0, 42);
+		service = new BaggagePathfinderService();
+		service.handleConveyorData(data.getConveyorData());
+		graph = service.getCompactGraph();
+		compactPathfinder = new CompactShortestPathfinder(graph);
+		earlyExitPathfinder = new EarlyExitPathfinder(graph);
+		bidirectionalPathfinder = new BidirectionalPathfinder(graph);
+		altPathfinder = new AltPathfinder(Landmarks.build(graph, BaggagePathfinderService.DEFAULT_LANDMARK_COUNT));
+		pathfinder = new ShortestPathfinder();
+		priorityQueuePathfinder = new PriorityQueuePathfinder();
+
+		Random random = new Random(7);
+		sources = new int[PAIRS];
+		destinations = new int[PAIRS];
+		for(int i = 0; i < PAIRS; i++){
+			sources[i] = random.nextInt(graph.getNodeCount());
+			destinations[i] = random.nextInt(graph.getNodeCount());
+		}
+	}
+
+	@Benchmark
+	public NodePath shortestPathfinder(){
+		int pair = next++ & (PAIRS - 1);
+		pathfinder.resetAllNodes(service.getNodeMap());
+		return pathfinder.getShortestPath(graph.getNode(sources[pair]), graph.getNode(destinations[pair]));
+	}
+
+	@Benchmark
+	public NodePath priorityQueuePathfinder(){
+		int pair = next++ & (PAIRS - 1);
+		pathfinder.resetAllNodes(service.getNodeMap());
+		return priorityQueuePathfinder.getShortestPath(graph.getNode(sources[pair]), graph.getNode(destinations[pair]));
+	}
+
+	@Benchmark
+	public NodePath compactShortestPathfinder(){
+		int pair = next++ & (PAIRS - 1);
+		return compactPathfinder.getShortestPath(sources[pair], destinations[pair]);
+	}
+
+	@Benchmark
+	public NodePath earlyExitPathfinder(){
+		int pair = next++ & (PAIRS - 1);
+		return earlyExitPathfinder.getShortestPath(sources[pair], destinations[pair]);
+	}
+
+	@Benchmark
+	public NodePath bidirectionalPathfinder(){
+		int pair = next++ & (PAIRS - 1);
+		return bidirectionalPathfinder.getShortestPath(sources[pair], destinations[pair]);
+	}
+
+	@Benchmark
+	public NodePath altPathfinder(){
+		int pair = next++ & (PAIRS - 1);
+		return altPathfinder.getShortestPath(sources[pair], destinations[pair]);
+	}
+}
@@ -0,0 +1,158 @@
+package com.baggagepathfinder.benchmark;
+
+import java.util.Random;
+
+import com.baggagepathfinder.service.BaggagePathfinderService;
+
+/**
+ * The class SyntheticDataGenerator creates input data of configurable size: a connected
+ * random conveyor system, a departure schedule and a batch of bags. Output is fully
+ * determined by the parameters and seed, so every benchmark run sees the same data.
+ * 
+ * Node names follow NodeFactory rules: Checkin_&lt;i&gt;_Ticketing nodes are check-in
+ * counters, BaggageClaim is the baggage claim and G&lt;i&gt; nodes are terminals.
+ * 
+ * @author abankey
+ *
+ */
+public class SyntheticDataGenerator {
+
+	private static final String NL = BaggagePathfinderService.NEW_LINE;
+	private static final String[] DESTINATIONS = {"JFK", "LAX", "MIA", "MHT", "SFO", "ORD"};
+
+	private final int nodeCount;
+	private final int checkinCount;
+	private final String conveyorData;
+	private final String departureData;
+	private final String bagData;
+
+	/**
+	 * Generates input data.
+	 * 
+	 * @param nodeCount Number of nodes, at least 3.
+	 * 
+	 * @param edgeDensity Average number of conveyor segments per node, at least 1.
+	 * 
+	 * @param departureCount Number of departures
+	 * 
+	 * @param bagCount Number of bags
+	 * 
+	 * @param seed Random seed
+	 */
+	public SyntheticDataGenerator(int nodeCount, double edgeDensity, int departureCount, int bagCount, long seed) {
+		this(nodeCount, edgeDensity, nodeCount, departureCount, bagCount, seed);
+	}
+
+	/**
+	 * Generates input data whose random segments only connect nodes with index distance up to
+	 * maxSegmentSpan. A small span gives a local, near planar layout like a real conveyor system,
+	 * the full node count gives a random graph.
+	 * 
+	 * @param nodeCount Number of nodes, at least 3.
+	 * 
+	 * @param edgeDensity Average number of conveyor segments per node, at least 1.
+	 * 
+	 * @param maxSegmentSpan Maximum index distance of the nodes of a random segment, at least 1.
+	 * 
+	 * @param departureCount Number of departures
+	 * 
+	 * @param bagCount Number of bags
+	 * 
+	 * @param seed Random seed
+	 */
+	public SyntheticDataGenerator(int nodeCount, double edgeDensity, int maxSegmentSpan, int departureCount, 
+			int bagCount, long seed) {
+		this.nodeCount = nodeCount;
+		this.checkinCount = Math.max(1, nodeCount / 100);
+		Random random = new Random(seed);
+
+		//Random spanning tree keeps the graph connected, remaining segments are random.
+		StringBuilder conveyor = new StringBuilder();
+		long segmentCount = Math.max(nodeCount - 1, (long)(nodeCount * edgeDensity));
+		for(long i = 0; i < segmentCount; i++){
+			int source;
+			int destination;
+			if(i < nodeCount - 1){
+				destination = (int)i + 1;
+				source = Math.max(0, destination - 1 - random.nextInt(Math.min(destination, 16)));
+			}
+			else{
+				source = random.nextInt(nodeCount);
+				destination = maxSegmentSpan >= nodeCount ? random.nextInt(nodeCount) 
+						: Math.min(nodeCount - 1, source + 1 + random.nextInt(maxSegmentSpan));
+				if(source == destination){
+					continue;
+				}
+			}
+			conveyor.append(name(source)).append(' ').append(name(destination)).append(' ')
+				.append(1 + random.nextInt(20)).append(NL);
+		}
+		this.conveyorData = conveyor.toString();
+
+		StringBuilder departures = new StringBuilder();
+		for(int i = 0; i < departureCount; i++){
+			int minutes = random.nextInt(24 * 60);
+			departures.append("F").append(i).append(' ').append(name(terminal(random))).append(' ')
+				.append(DESTINATIONS[random.nextInt(DESTINATIONS.length)]).append(' ')
+				.append(minutes / 600).append(minutes / 60 % 10).append(':')
+				.append(minutes % 60 / 10).append(minutes % 10).append(NL);
+		}
+		this.departureData = departures.toString();
+
+		StringBuilder bags = new StringBuilder();
+		for(int i = 0; i < bagCount; i++){
+			int source = random.nextInt(10) < 8 ? random.nextInt(checkinCount) : random.nextInt(nodeCount);
+			bags.append(i).append(' ').append(name(source)).append(' ');
+			if(departureCount == 0 || random.nextInt(10) == 0){
+				bags.append(BaggagePathfinderService.ARRIVAL);
+			}
+			else{
+				bags.append("F").append(random.nextInt(departureCount));
+			}
+			bags.append(NL);
+		}
+		this.bagData = bags.toString();
+	}
+
+	/**
+	 * @return name of node with given index
+	 */
+	public String name(int node){
+		if(node < checkinCount){
+			return "Checkin_" + node + "_Ticketing";
+		}
+		if(node == checkinCount){
+			return BaggagePathfinderService.BAGGAGE_CLAIM;
+		}
+		return "G" + node;
+	}
+
+	private int terminal(Random random){
+		return checkinCount + 1 + random.nextInt(nodeCount - checkinCount - 1);
+	}
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public String getConveyorData() {
+		return conveyorData;
+	}
+
+	public String getDepartureData() {
+		return departureData;
+	}
+
+	public String getBagData() {
+		return bagData;
+	}
+
+	/**
+	 * @return complete input data with all three sections.
+	 */
+	public String getInput(){
+		return BaggagePathfinderService.HEADER_CONVEYOR + NL + conveyorData
+				+ BaggagePathfinderService.HEADER_DEPARTURE + NL + departureData
+				+ BaggagePathfinderService.HEADER_BAG + NL + bagData;
+	}
+}
@@ -0,0 +1,74 @@
+package com.baggagepathfinder.graph;
+
+/**
+ * The class AltPathfinder implements A* search with landmark lower bounds (ALT). Nodes are
+ * queued by travel time from source plus lower bound of travel time to destination, so the
+ * search settles nodes towards the destination first and stops once the destination is settled.
+ *
+ * Travel time of each node is still summed from source, so travel times are the same as
+ * the ones of Dijkstra's algorithm.
+ *
+ * @author abankey
+ */
+public class AltPathfinder implements Pathfinder {
+
+	private final CompactGraph graph;
+	private final Landmarks landmarks;
+	private final SearchState state;
+	private final double[] destinationTravelTimes;
+	private final SearchCounters counters = new SearchCounters();
+
+	/**
+	 * @param landmarks Landmarks of the graph, may be shared with other pathfinders.
+	 */
+	public AltPathfinder(Landmarks landmarks) {
+		this.graph = landmarks.getGraph();
+		this.landmarks = landmarks;
+		this.state = new SearchState(graph.getNodeCount(), counters);
+		this.destinationTravelTimes = new double[landmarks.getLandmarkCount()];
+	}
+
+	@Override
+	public NodePath getShortestPath(int sourceId, int destinationId){
+		landmarks.getTravelTimes(destinationId, destinationTravelTimes);
+		state.start(sourceId);
+		counters.searches++;
+
+		while(!state.queue.isEmpty()){
+			int currentId = state.poll();
+			if(currentId == destinationId)
+			//Travel time of destination is final.
+			{
+				break;
+			}
+
+			counters.relaxedEdges += graph.lastEdge(currentId) - graph.firstEdge(currentId);
+			for(int edge = graph.firstEdge(currentId), last = graph.lastEdge(currentId); edge < last; edge++){
+				int adjacentId = graph.getTarget(edge);
+				double totalTravelTime = state.travelTime[currentId] + graph.getWeight(edge);
+				if(totalTravelTime < state.travelTime[adjacentId]){
+					state.update(adjacentId, totalTravelTime, currentId,
+							totalTravelTime + landmarks.getLowerBound(adjacentId, destinationTravelTimes));
+				}
+			}
+		}
+		return state.getPath(graph, destinationId);
+	}
+
+	/**
+	 * @return number of nodes reached by last search.
+	 */
+	public int getReachedCount() {
+		return state.getReachedCount();
+	}
+
+	@Override
+	public CompactGraph getGraph() {
+		return graph;
+	}
+
+	@Override
+	public SearchCounters getCounters() {
+		return counters;
+	}
+}
@@ -0,0 +1,99 @@
+package com.baggagepathfinder.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The class BidirectionalPathfinder runs Dijkstra's algorithm from source and destination
+ * node at the same time, always advancing the direction with the smaller queue key. Search
+ * stops once the sum of both queue keys reaches the quickest path seen so far.
+ *
+ * The backward search follows outgoing edges, which relies on the conveyor graph being
+ * symmetric, see BaggagePathfinderService#addNode. Travel time is summed from source to
+ * destination along the found path, the same order in which Dijkstra's algorithm adds it up.
+ *
+ * @author abankey
+ */
+public class BidirectionalPathfinder implements Pathfinder {
+
+	private final CompactGraph graph;
+	private final SearchState forward;
+	private final SearchState backward;
+	private double bestTravelTime;
+	private int meetingId;
+	private final SearchCounters counters = new SearchCounters();
+
+	public BidirectionalPathfinder(CompactGraph graph) {
+		this.graph = graph;
+		this.forward = new SearchState(graph.getNodeCount(), counters);
+		this.backward = new SearchState(graph.getNodeCount(), counters);
+	}
+
+	@Override
+	public NodePath getShortestPath(int sourceId, int destinationId){
+		forward.start(sourceId);
+		backward.start(destinationId);
+		counters.searches++;
+		bestTravelTime = sourceId == destinationId ? 0d : Double.POSITIVE_INFINITY;
+		meetingId = sourceId == destinationId ? sourceId : -1;
+
+		while(!forward.queue.isEmpty() && !backward.queue.isEmpty()
+				&& forward.queue.peekKey() + backward.queue.peekKey() < bestTravelTime){
+			if(forward.queue.peekKey() <= backward.queue.peekKey()){
+				expand(forward, backward);
+			}else{
+				expand(backward, forward);
+			}
+		}
+
+		if(meetingId == -1)
+		//Destination is not reachable from source.
+		{
+			List<Node> path = new ArrayList<Node>();
+			path.add(graph.getNode(destinationId));
+			return new NodePath(path, Double.POSITIVE_INFINITY);
+		}
+
+		//Source to meeting node from forward search, meeting node to destination from backward search.
+		List<Node> path = new ArrayList<Node>();
+		for (int id = meetingId; id != -1; id = forward.previous[id])
+			path.add(graph.getNode(id));
+		Collections.reverse(path);
+		double travelTime = forward.travelTime[meetingId];
+		for (int id = meetingId; backward.previous[id] != -1; id = backward.previous[id]){
+			travelTime += graph.getWeight(id, backward.previous[id]);
+			path.add(graph.getNode(backward.previous[id]));
+		}
+		return new NodePath(path, travelTime);
+	}
+
+	/**
+	 * Settles the next node of one direction and checks whether its edges connect both searches.
+	 */
+	private void expand(SearchState search, SearchState other){
+		int currentId = search.poll();
+		counters.relaxedEdges += graph.lastEdge(currentId) - graph.firstEdge(currentId);
+		for(int edge = graph.firstEdge(currentId), last = graph.lastEdge(currentId); edge < last; edge++){
+			int adjacentId = graph.getTarget(edge);
+			double totalTravelTime = search.travelTime[currentId] + graph.getWeight(edge);
+			search.update(adjacentId, totalTravelTime, currentId, totalTravelTime);
+
+			double pathTravelTime = search.travelTime[adjacentId] + other.travelTime[adjacentId];
+			if(pathTravelTime < bestTravelTime){
+				bestTravelTime = pathTravelTime;
+				meetingId = adjacentId;
+			}
+		}
+	}
+
+	@Override
+	public CompactGraph getGraph() {
+		return graph;
+	}
+
+	@Override
+	public SearchCounters getCounters() {
+		return counters;
+	}
+}
@@ -0,0 +1,210 @@
+package com.baggagepathfinder.graph;
+
+import java.util.Map;
+
+/**
+ * The class CompactGraph is a frozen, array backed (compressed sparse row) view of the
+ * conveyor system graph. Every node gets a dense int id and the outgoing edges of node
+ * <code>i</code> are stored at positions <code>offsets[i]</code> to <code>offsets[i + 1] - 1</code>
+ * of the parallel <code>targets</code>, <code>weights</code> and <code>capacities</code> arrays.
+ *
+ * A CompactGraph never changes once built and never mutates the Node objects it was built
+ * from, so it can be shared freely between searches. Node ids are resolved by its own
+ * NodeTable.
+ *
+ * @author abankey
+ */
+public final class CompactGraph {
+
+	private final Node[] nodes;
+	private final NodeTable ids;
+	private final int[] offsets;
+	private final int[] targets;
+	private final double[] weights;
+	private final double[] capacities;
+
+	private CompactGraph(Node[] nodes, NodeTable ids, int[] offsets, int[] targets, double[] weights,
+			double[] capacities) {
+		this.nodes = nodes;
+		this.ids = ids;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.capacities = capacities;
+	}
+
+	/**
+	 * Builds compact graph from node repository. Node ids follow the iteration order of
+	 * the node repository.
+	 *
+	 * @param nodeMap Node repository
+	 *
+	 * @return CompactGraph
+	 */
+	public static CompactGraph build(Map<String, Node> nodeMap){
+		int nodeCount = nodeMap.size();
+		Node[] nodes = new Node[nodeCount];
+		NodeTable ids = new NodeTable();
+
+		int edgeCount = 0;
+		int id = 0;
+		for(Node node : nodeMap.values()){
+			nodes[id] = node;
+			ids.add(node);
+			edgeCount += node.getEdgeCount();
+			id++;
+		}
+
+		int[] offsets = new int[nodeCount + 1];
+		int[] targets = new int[edgeCount];
+		double[] weights = new double[edgeCount];
+		double[] capacities = new double[edgeCount];
+
+		int edge = 0;
+		for(int i = 0; i < nodeCount; i++){
+			offsets[i] = edge;
+			for(int e = 0, count = nodes[i].getEdgeCount(); e < count; e++){
+				int targetId = ids.getId(nodes[i].getTarget(e).getName());
+				if(targetId == -1)
+				//Edge points outside the node repository. It can never be part of a route.
+				{
+					continue;
+				}
+				targets[edge] = targetId;
+				weights[edge] = nodes[i].getTravelTime(e);
+				capacities[edge] = nodes[i].getCapacity(e);
+				edge++;
+			}
+		}
+		offsets[nodeCount] = edge;
+
+		return new CompactGraph(nodes, ids, offsets, targets, weights, capacities);
+	}
+
+	/**
+	 * Creates compact graph from arrays in compressed sparse row layout, for example read back
+	 * from a snapshot. Arrays are used as they are, not copied.
+	 *
+	 * @param nodes Node of each id
+	 *
+	 * @param offsets Index of first outgoing edge of each node, followed by total edge count.
+	 *
+	 * @param targets Target node id of each edge
+	 *
+	 * @param weights Travel time of each edge
+	 *
+	 * @param capacities Capacity of each edge in bags per minute
+	 *
+	 * @return CompactGraph
+	 */
+	public static CompactGraph of(Node[] nodes, int[] offsets, int[] targets, double[] weights, double[] capacities){
+		NodeTable ids = new NodeTable();
+		for(Node node : nodes){
+			ids.add(node);
+		}
+		return new CompactGraph(nodes, ids, offsets, targets, weights, capacities);
+	}
+
+	/**
+	 * Creates compact graph with same nodes and edges but other edge weights, for example
+	 * travel times under congestion. All other arrays are shared.
+	 *
+	 * @param weights Weight of each edge
+	 *
+	 * @return CompactGraph
+	 */
+	public CompactGraph withWeights(double[] weights){
+		return new CompactGraph(nodes, ids, offsets, targets, weights, capacities);
+	}
+
+	public int getNodeCount() {
+		return nodes.length;
+	}
+
+	public int getEdgeCount() {
+		return offsets[nodes.length];
+	}
+
+	/**
+	 * Fetches the id of node with given name.
+	 *
+	 * @param name Node name
+	 *
+	 * @return node id or -1 if graph doesn't contain the node.
+	 */
+	public int getId(String name){
+		return ids.getId(name);
+	}
+
+	public Node getNode(int id) {
+		return nodes[id];
+	}
+
+	/**
+	 * @return index of first outgoing edge of the node.
+	 */
+	public int firstEdge(int id) {
+		return offsets[id];
+	}
+
+	/**
+	 * @return index after the last outgoing edge of the node.
+	 */
+	public int lastEdge(int id) {
+		return offsets[id + 1];
+	}
+
+	public int getTarget(int edge) {
+		return targets[edge];
+	}
+
+	public double getWeight(int edge) {
+		return weights[edge];
+	}
+
+	/**
+	 * @return capacity of the edge in bags per minute, Edge.UNLIMITED_CAPACITY if unlimited.
+	 */
+	public double getCapacity(int edge) {
+		return capacities[edge];
+	}
+
+	/**
+	 * Fetches the quickest edge between two nodes.
+	 *
+	 * @param from Source node id
+	 *
+	 * @param to Target node id
+	 *
+	 * @return edge index or -1 if nodes are not adjacent.
+	 */
+	public int findEdge(int from, int to){
+		int quickest = -1;
+		for(int edge = offsets[from], last = offsets[from + 1]; edge < last; edge++){
+			if(targets[edge] == to && (quickest == -1 || weights[edge] < weights[quickest])){
+				quickest = edge;
+			}
+		}
+		return quickest;
+	}
+
+	/**
+	 * Fetches the travel time of the quickest edge between two nodes.
+	 *
+	 * @param from Source node id
+	 *
+	 * @param to Target node id
+	 *
+	 * @return travel time or Double.POSITIVE_INFINITY if nodes are not adjacent.
+	 */
+	public double getWeight(int from, int to){
+		double weight = Double.POSITIVE_INFINITY;
+		for(int edge = offsets[from], last = offsets[from + 1]; edge < last; edge++){
+			if(targets[edge] == to && weights[edge] < weight){
+				weight = weights[edge];
+			}
+		}
+		return weight;
+	}
+
+}
@@ -0,0 +1,131 @@
+package com.baggagepathfinder.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The class CompactShortestPathfinder implements Dijkstra's shortest path algorithm over
+ * a CompactGraph. Unlike ShortestPathfinder, search state is kept in primitive arrays owned
+ * by the pathfinder, so Node objects are never modified. A pathfinder instance can be reused
+ * for any number of searches on the same graph but must not be shared between threads.
+ *
+ * @author abankey
+ */
+public class CompactShortestPathfinder implements Pathfinder {
+
+	private final CompactGraph graph;
+	private final double[] minTravelTime;
+	private final int[] previous;
+	private final IndexedMinHeap nodeQueue;
+	private int source = -1;
+	private final SearchCounters counters = new SearchCounters();
+
+	public CompactShortestPathfinder(CompactGraph graph) {
+		this.graph = graph;
+		this.minTravelTime = new double[graph.getNodeCount()];
+		this.previous = new int[graph.getNodeCount()];
+		this.nodeQueue = new IndexedMinHeap(graph.getNodeCount());
+	}
+
+	/**
+	 * Fetches the shortest path between two nodes.
+	 *
+	 * @param sourceId Source node id
+	 *
+	 * @param destinationId Destination node id
+	 *
+	 * @return NodePath which contains path and travel time information.
+	 */
+	@Override
+	public NodePath getShortestPath(int sourceId, int destinationId){
+		computeQuickestPath(sourceId);
+		return getPath(destinationId);
+	}
+
+	/**
+	 * Builds the path to destination node from the result of last computeQuickestPath call.
+	 *
+	 * @param destinationId Destination node id
+	 *
+	 * @return NodePath which contains path and travel time information.
+	 */
+	public NodePath getPath(int destinationId){
+		List<Node> path = new ArrayList<Node>();
+		for (int id = destinationId; id != -1; id = previous[id])
+			path.add(graph.getNode(id));
+		Collections.reverse(path);
+		return new NodePath(path, minTravelTime[destinationId]);
+	}
+
+	/**
+	 * Computes the shortest path to every node in graph from source node.
+	 *
+	 * @param sourceId Source node id
+	 */
+	public void computeQuickestPath(int sourceId){
+		Arrays.fill(minTravelTime, Double.POSITIVE_INFINITY);
+		Arrays.fill(previous, -1);
+
+		source = sourceId;
+		minTravelTime[sourceId] = 0d;
+		nodeQueue.clear();
+		nodeQueue.insertOrDecrease(sourceId, 0d);
+		counters.searches++;
+		counters.queueOperations++;
+
+		while(!nodeQueue.isEmpty()){
+			int currentId = nodeQueue.poll();
+			counters.settledNodes++;
+			counters.queueOperations++;
+			counters.relaxedEdges += graph.lastEdge(currentId) - graph.firstEdge(currentId);
+
+			for(int edge = graph.firstEdge(currentId), last = graph.lastEdge(currentId); edge < last; edge++){
+				int adjacentId = graph.getTarget(edge);
+				double totalTravelTime = minTravelTime[currentId] + graph.getWeight(edge);
+
+				if(totalTravelTime < minTravelTime[adjacentId]){
+					minTravelTime[adjacentId] = totalTravelTime;
+					previous[adjacentId] = currentId;
+					nodeQueue.insertOrDecrease(adjacentId, totalTravelTime);
+					counters.queueOperations++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copies the result of last computeQuickestPath call.
+	 *
+	 * @return ShortestPathTree
+	 */
+	public ShortestPathTree getShortestPathTree(){
+		return new ShortestPathTree(source, minTravelTime.clone(), previous.clone());
+	}
+
+	/**
+	 * @return travel time from source of last search to the node.
+	 */
+	public double getTravelTime(int nodeId) {
+		return minTravelTime[nodeId];
+	}
+
+	/**
+	 * @return previous node id on the quickest path of last search, -1 for source or unreachable nodes.
+	 */
+	public int getPrevious(int nodeId) {
+		return previous[nodeId];
+	}
+
+	@Override
+	public CompactGraph getGraph() {
+		return graph;
+	}
+
+	@Override
+	public SearchCounters getCounters() {
+		return counters;
+	}
+
+}
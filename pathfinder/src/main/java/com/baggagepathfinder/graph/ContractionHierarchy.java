@@ -0,0 +1,128 @@
+package com.baggagepathfinder.graph;
+
+/**
+ * The class ContractionHierarchy is the preprocessed search index of a CompactGraph for
+ * ContractionHierarchyPathfinder. Every node has a rank and keeps only its segments and
+ * shortcuts to higher ranked nodes, stored in compressed sparse row layout like CompactGraph.
+ * A shortcut remembers the contracted node it bypasses, so a route over shortcuts can be
+ * unpacked into the real node sequence.
+ *
+ * Preprocessing is expensive compared to a single search, see ContractionHierarchyBuilder,
+ * so a hierarchy should be built once per conveyor system and shared between pathfinders.
+ * A ContractionHierarchy never changes once built.
+ *
+ * @author abankey
+ */
+public final class ContractionHierarchy {
+
+	private final CompactGraph graph;
+	private final int[] ranks;
+	private final int[] offsets;
+	private final int[] targets;
+	private final double[] weights;
+	private final int[] middles;
+	private final int shortcutCount;
+	private final long preprocessingNanos;
+
+	ContractionHierarchy(CompactGraph graph, int[] ranks, int[] offsets, int[] targets, double[] weights,
+			int[] middles, int shortcutCount, long preprocessingNanos) {
+		this.graph = graph;
+		this.ranks = ranks;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.middles = middles;
+		this.shortcutCount = shortcutCount;
+		this.preprocessingNanos = preprocessingNanos;
+	}
+
+	/**
+	 * Contracts all nodes of the graph.
+	 *
+	 * @param graph Compact graph
+	 *
+	 * @return ContractionHierarchy
+	 */
+	public static ContractionHierarchy build(CompactGraph graph){
+		return new ContractionHierarchyBuilder(graph).build();
+	}
+
+	public int getRank(int id) {
+		return ranks[id];
+	}
+
+	/**
+	 * @return index of first upward edge of the node.
+	 */
+	int firstEdge(int id) {
+		return offsets[id];
+	}
+
+	/**
+	 * @return index after the last upward edge of the node.
+	 */
+	int lastEdge(int id) {
+		return offsets[id + 1];
+	}
+
+	int getTarget(int edge) {
+		return targets[edge];
+	}
+
+	double getWeight(int edge) {
+		return weights[edge];
+	}
+
+	/**
+	 * @return node bypassed by the shortcut, -1 if the edge is a conveyor segment.
+	 */
+	int getMiddle(int edge) {
+		return middles[edge];
+	}
+
+	/**
+	 * Fetches the edge between two adjacent nodes of the hierarchy. It is stored at the lower
+	 * ranked node.
+	 *
+	 * @return edge index or -1 if the nodes are not adjacent.
+	 */
+	int findEdge(int nodeA, int nodeB){
+		int low = ranks[nodeA] < ranks[nodeB] ? nodeA : nodeB;
+		int high = low == nodeA ? nodeB : nodeA;
+		for(int edge = offsets[low], last = offsets[low + 1]; edge < last; edge++){
+			if(targets[edge] == high){
+				return edge;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return number of upward segments and shortcuts.
+	 */
+	public int getEdgeCount() {
+		return targets.length;
+	}
+
+	public int getShortcutCount() {
+		return shortcutCount;
+	}
+
+	/**
+	 * @return preprocessing time in milliseconds.
+	 */
+	public long getPreprocessingMillis() {
+		return preprocessingNanos / 1000000;
+	}
+
+	/**
+	 * @return memory used by the index in bytes.
+	 */
+	public long getMemory() {
+		return (long)ranks.length * 4 + (long)offsets.length * 4 + (long)targets.length * (4 + 8 + 4);
+	}
+
+	public CompactGraph getGraph() {
+		return graph;
+	}
+}
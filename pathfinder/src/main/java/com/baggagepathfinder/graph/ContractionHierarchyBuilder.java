@@ -0,0 +1,254 @@
+package com.baggagepathfinder.graph;
+
+import java.util.Arrays;
+
+/**
+ * The class ContractionHierarchyBuilder contracts the nodes of a CompactGraph one by one.
+ * Contracting a node removes it from the remaining graph and adds a shortcut between two of
+ * its neighbors whenever the path over the node is the only quickest path between them. The
+ * order of contraction is the rank of a node in the hierarchy.
+ *
+ * Nodes are contracted in order of priority, which is the number of shortcuts the contraction
+ * adds minus the number of removed segments plus the number of already contracted neighbors.
+ * Priorities are updated lazily: a node whose priority grew since it was queued is queued again.
+ *
+ * Witness searches are limited to WITNESS_SETTLE_LIMIT settled nodes, or SIMULATION_SETTLE_LIMIT
+ * while computing priorities. A witness the limit hides only costs an unnecessary shortcut, never
+ * a wrong route.
+ *
+ * The conveyor graph is symmetric, see BaggagePathfinderService#addNode, so the remaining graph
+ * is kept undirected.
+ *
+ * @author abankey
+ */
+final class ContractionHierarchyBuilder {
+
+	private static final int WITNESS_SETTLE_LIMIT = 500;
+	private static final int SIMULATION_SETTLE_LIMIT = 50;
+
+	private final long startNanos = System.nanoTime();
+	private final CompactGraph graph;
+	private final int nodeCount;
+
+	/**
+	 * Segments and shortcuts between nodes of the remaining graph, middle is the contracted node
+	 * of a shortcut or -1 for a segment.
+	 */
+	private final int[][] targets;
+	private final double[][] weights;
+	private final int[][] middles;
+	private final int[] degrees;
+
+	/**
+	 * Segments and shortcuts from each contracted node to its higher ranked neighbors.
+	 */
+	private final int[][] upTargets;
+	private final double[][] upWeights;
+	private final int[][] upMiddles;
+
+	private final int[] ranks;
+	private final int[] contractedNeighbors;
+	private final SearchState witness;
+	private int upEdgeCount;
+	private int shortcutCount;
+
+	ContractionHierarchyBuilder(CompactGraph graph) {
+		this.graph = graph;
+		this.nodeCount = graph.getNodeCount();
+		this.targets = new int[nodeCount][];
+		this.weights = new double[nodeCount][];
+		this.middles = new int[nodeCount][];
+		this.degrees = new int[nodeCount];
+		this.upTargets = new int[nodeCount][];
+		this.upWeights = new double[nodeCount][];
+		this.upMiddles = new int[nodeCount][];
+		this.ranks = new int[nodeCount];
+		this.contractedNeighbors = new int[nodeCount];
+		this.witness = new SearchState(nodeCount, new SearchCounters());
+		Arrays.fill(ranks, -1);
+
+		for(int node = 0; node < nodeCount; node++){
+			int edgeCount = graph.lastEdge(node) - graph.firstEdge(node);
+			targets[node] = new int[Math.max(edgeCount, 2)];
+			weights[node] = new double[targets[node].length];
+			middles[node] = new int[targets[node].length];
+		}
+		for(int node = 0; node < nodeCount; node++){
+			for(int edge = graph.firstEdge(node), last = graph.lastEdge(node); edge < last; edge++){
+				if(graph.getTarget(edge) != node){
+					addOrLower(node, graph.getTarget(edge), graph.getWeight(edge), -1);
+					addOrLower(graph.getTarget(edge), node, graph.getWeight(edge), -1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Contracts all nodes.
+	 *
+	 * @return ContractionHierarchy
+	 */
+	ContractionHierarchy build(){
+		IndexedMinHeap queue = new IndexedMinHeap(nodeCount);
+		for(int node = 0; node < nodeCount; node++){
+			queue.insertOrDecrease(node, priority(node));
+		}
+
+		int rank = 0;
+		while(!queue.isEmpty()){
+			int node = queue.poll();
+			double priority = priority(node);
+			if(!queue.isEmpty() && priority > queue.peekKey())
+			//Priority grew since the node was queued, another node may be cheaper now.
+			{
+				queue.insertOrDecrease(node, priority);
+				continue;
+			}
+			contract(node, false);
+			ranks[node] = rank++;
+		}
+
+		//Upward graph in compressed sparse row layout.
+		int[] offsets = new int[nodeCount + 1];
+		int[] edgeTargets = new int[upEdgeCount];
+		double[] edgeWeights = new double[upEdgeCount];
+		int[] edgeMiddles = new int[upEdgeCount];
+		int edge = 0;
+		for(int node = 0; node < nodeCount; node++){
+			offsets[node] = edge;
+			int count = upTargets[node].length;
+			System.arraycopy(upTargets[node], 0, edgeTargets, edge, count);
+			System.arraycopy(upWeights[node], 0, edgeWeights, edge, count);
+			System.arraycopy(upMiddles[node], 0, edgeMiddles, edge, count);
+			edge += count;
+		}
+		offsets[nodeCount] = edge;
+
+		return new ContractionHierarchy(graph, ranks, offsets, edgeTargets, edgeWeights, edgeMiddles,
+				shortcutCount, System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Computes contraction priority of a node by simulating its contraction.
+	 */
+	private double priority(int node){
+		return contract(node, true) - degrees[node] + contractedNeighbors[node];
+	}
+
+	/**
+	 * Contracts a node or only counts the shortcuts its contraction needs.
+	 *
+	 * @param node Node id
+	 *
+	 * @param simulate true to count shortcuts without changing the remaining graph.
+	 *
+	 * @return number of shortcuts
+	 */
+	private int contract(int node, boolean simulate){
+		int degree = degrees[node];
+		int[] neighbors = Arrays.copyOf(targets[node], degree);
+		double[] neighborWeights = Arrays.copyOf(weights[node], degree);
+		double maxWeight = 0d;
+		for(int i = 0; i < degree; i++){
+			maxWeight = Math.max(maxWeight, neighborWeights[i]);
+		}
+
+		int shortcuts = 0;
+		for(int i = 0; i < degree - 1; i++){
+			findWitnesses(neighbors[i], node, neighborWeights[i] + maxWeight, 
+					simulate ? SIMULATION_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+			for(int j = i + 1; j < degree; j++){
+				double viaNode = neighborWeights[i] + neighborWeights[j];
+				if(witness.travelTime[neighbors[j]] <= viaNode)
+				//Path without the node is as quick, no shortcut required.
+				{
+					continue;
+				}
+				shortcuts++;
+				if(!simulate){
+					addOrLower(neighbors[i], neighbors[j], viaNode, node);
+					addOrLower(neighbors[j], neighbors[i], viaNode, node);
+				}
+			}
+		}
+		if(simulate){
+			return shortcuts;
+		}
+
+		//Remaining neighbors are ranked higher, remove the node from the remaining graph.
+		upTargets[node] = neighbors;
+		upWeights[node] = neighborWeights;
+		upMiddles[node] = Arrays.copyOf(middles[node], degree);
+		upEdgeCount += degree;
+		shortcutCount += shortcuts;
+		for(int neighbor : neighbors){
+			remove(neighbor, node);
+			contractedNeighbors[neighbor]++;
+		}
+		degrees[node] = 0;
+		return shortcuts;
+	}
+
+	/**
+	 * Dijkstra search from source in the remaining graph without the ignored node, stops at
+	 * maxTravelTime or after settleLimit settled nodes.
+	 */
+	private void findWitnesses(int source, int ignoredNode, double maxTravelTime, int settleLimit){
+		witness.start(source);
+		int settled = 0;
+		while(!witness.queue.isEmpty() && settled++ < settleLimit){
+			if(witness.queue.peekKey() > maxTravelTime){
+				break;
+			}
+			int currentId = witness.poll();
+			for(int i = 0, degree = degrees[currentId]; i < degree; i++){
+				int adjacentId = targets[currentId][i];
+				if(adjacentId != ignoredNode){
+					double totalTravelTime = witness.travelTime[currentId] + weights[currentId][i];
+					witness.update(adjacentId, totalTravelTime, currentId, totalTravelTime);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds an edge to the remaining graph or lowers the weight of the existing edge.
+	 */
+	private void addOrLower(int from, int to, double weight, int middle){
+		int degree = degrees[from];
+		for(int i = 0; i < degree; i++){
+			if(targets[from][i] == to){
+				if(weight < weights[from][i]){
+					weights[from][i] = weight;
+					middles[from][i] = middle;
+				}
+				return;
+			}
+		}
+		if(degree == targets[from].length){
+			targets[from] = Arrays.copyOf(targets[from], degree * 2);
+			weights[from] = Arrays.copyOf(weights[from], degree * 2);
+			middles[from] = Arrays.copyOf(middles[from], degree * 2);
+		}
+		targets[from][degree] = to;
+		weights[from][degree] = weight;
+		middles[from][degree] = middle;
+		degrees[from]++;
+	}
+
+	/**
+	 * Removes the edge to a contracted node from the remaining graph.
+	 */
+	private void remove(int from, int to){
+		int last = degrees[from] - 1;
+		for(int i = 0; i <= last; i++){
+			if(targets[from][i] == to){
+				targets[from][i] = targets[from][last];
+				weights[from][i] = weights[from][last];
+				middles[from][i] = middles[from][last];
+				degrees[from]--;
+				return;
+			}
+		}
+	}
+}
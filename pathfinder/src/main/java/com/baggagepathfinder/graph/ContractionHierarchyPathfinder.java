@@ -0,0 +1,173 @@
+package com.baggagepathfinder.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The class ContractionHierarchyPathfinder answers shortest path queries over a
+ * ContractionHierarchy. Two Dijkstra searches run from source and destination node, both
+ * only follow edges to higher ranked nodes, so each explores a small part of the graph.
+ * A direction stops once its queue key reaches the quickest path seen so far.
+ *
+ * A settled node reached quicker over one of its higher ranked neighbors is stalled: its edges
+ * are not relaxed, because no shortest path of the hierarchy search passes it. As the graph is
+ * symmetric, the edges to higher ranked neighbors are the upward edges of the node itself.
+ *
+ * The route found over shortcuts is unpacked into the real node sequence and its travel
+ * time is summed from source to destination along that sequence, the same order in which
+ * Dijkstra's algorithm adds it up.
+ *
+ * @author abankey
+ */
+public class ContractionHierarchyPathfinder implements Pathfinder {
+
+	private final ContractionHierarchy hierarchy;
+	private final CompactGraph graph;
+	private final SearchState forward;
+	private final SearchState backward;
+	private double bestTravelTime;
+	private int meetingId;
+	private int[] stack = new int[32];
+	private final SearchCounters counters = new SearchCounters();
+
+	/**
+	 * @param hierarchy Contraction hierarchy of the graph, may be shared with other pathfinders.
+	 */
+	public ContractionHierarchyPathfinder(ContractionHierarchy hierarchy) {
+		this.hierarchy = hierarchy;
+		this.graph = hierarchy.getGraph();
+		this.forward = new SearchState(graph.getNodeCount(), counters);
+		this.backward = new SearchState(graph.getNodeCount(), counters);
+	}
+
+	@Override
+	public NodePath getShortestPath(int sourceId, int destinationId){
+		forward.start(sourceId);
+		backward.start(destinationId);
+		counters.searches++;
+		bestTravelTime = Double.POSITIVE_INFINITY;
+		meetingId = -1;
+
+		while(true){
+			boolean forwardOpen = !forward.queue.isEmpty() && forward.queue.peekKey() < bestTravelTime;
+			boolean backwardOpen = !backward.queue.isEmpty() && backward.queue.peekKey() < bestTravelTime;
+			if(!forwardOpen && !backwardOpen){
+				break;
+			}
+			if(forwardOpen && (!backwardOpen || forward.queue.peekKey() <= backward.queue.peekKey())){
+				expand(forward, backward);
+			}else{
+				expand(backward, forward);
+			}
+		}
+
+		List<Node> path = new ArrayList<Node>();
+		if(meetingId == -1)
+		//Destination is not reachable from source.
+		{
+			path.add(graph.getNode(destinationId));
+			return new NodePath(path, Double.POSITIVE_INFINITY);
+		}
+
+		//Hierarchy route is source to meeting node from forward search, then meeting node to
+		//destination from backward search.
+		int[] route = new int[16];
+		int length = 0;
+		for (int id = meetingId; id != -1; id = forward.previous[id]){
+			route = append(route, length++, id);
+		}
+		for(int i = 0, j = length - 1; i < j; i++, j--){
+			int id = route[i];
+			route[i] = route[j];
+			route[j] = id;
+		}
+		for (int id = backward.previous[meetingId]; id != -1; id = backward.previous[id]){
+			route = append(route, length++, id);
+		}
+
+		path.add(graph.getNode(sourceId));
+		double travelTime = 0d;
+		for(int i = 1; i < length; i++){
+			travelTime = unpack(route[i - 1], route[i], path, travelTime);
+		}
+		return new NodePath(path, travelTime);
+	}
+
+	/**
+	 * Settles the next node of one direction and relaxes its edges to higher ranked nodes.
+	 */
+	private void expand(SearchState search, SearchState other){
+		int currentId = search.poll();
+		double pathTravelTime = search.travelTime[currentId] + other.travelTime[currentId];
+		if(pathTravelTime < bestTravelTime){
+			bestTravelTime = pathTravelTime;
+			meetingId = currentId;
+		}
+
+		int first = hierarchy.firstEdge(currentId);
+		int last = hierarchy.lastEdge(currentId);
+		for(int edge = first; edge < last; edge++){
+			if(search.travelTime[hierarchy.getTarget(edge)] + hierarchy.getWeight(edge) < search.travelTime[currentId])
+			//Stall on demand.
+			{
+				return;
+			}
+		}
+		counters.relaxedEdges += last - first;
+		for(int edge = first; edge < last; edge++){
+			double totalTravelTime = search.travelTime[currentId] + hierarchy.getWeight(edge);
+			search.update(hierarchy.getTarget(edge), totalTravelTime, currentId, totalTravelTime);
+		}
+	}
+
+	/**
+	 * Replaces the hierarchy edge between two nodes by the conveyor segments it bypasses and
+	 * appends all nodes after <code>from</code> to the path.
+	 *
+	 * @return travel time of the path so far
+	 */
+	private double unpack(int from, int to, List<Node> path, double travelTime){
+		int size = 0;
+		stack = append(stack, size++, to);
+		stack = append(stack, size++, from);
+		while(size > 0){
+			int a = stack[--size];
+			int b = stack[--size];
+			int middle = hierarchy.getMiddle(hierarchy.findEdge(a, b));
+			if(middle == -1){
+				travelTime += graph.getWeight(a, b);
+				path.add(graph.getNode(b));
+				continue;
+			}
+			//Unpack a to middle first, then middle to b.
+			stack = append(stack, size++, b);
+			stack = append(stack, size++, middle);
+			stack = append(stack, size++, middle);
+			stack = append(stack, size++, a);
+		}
+		return travelTime;
+	}
+
+	private static int[] append(int[] array, int index, int value){
+		if(index == array.length){
+			array = Arrays.copyOf(array, index * 2);
+		}
+		array[index] = value;
+		return array;
+	}
+
+	public ContractionHierarchy getHierarchy() {
+		return hierarchy;
+	}
+
+	@Override
+	public CompactGraph getGraph() {
+		return graph;
+	}
+
+	@Override
+	public SearchCounters getCounters() {
+		return counters;
+	}
+}
@@ -0,0 +1,60 @@
+package com.baggagepathfinder.graph;
+
+/**
+ * The class EarlyExitPathfinder implements Dijkstra's shortest path algorithm which stops
+ * as soon as the destination node is settled, instead of computing the shortest path to
+ * every node of the graph.
+ *
+ * @author abankey
+ */
+public class EarlyExitPathfinder implements Pathfinder {
+
+	private final CompactGraph graph;
+	private final SearchState state;
+	private final SearchCounters counters = new SearchCounters();
+
+	public EarlyExitPathfinder(CompactGraph graph) {
+		this.graph = graph;
+		this.state = new SearchState(graph.getNodeCount(), counters);
+	}
+
+	@Override
+	public NodePath getShortestPath(int sourceId, int destinationId){
+		state.start(sourceId);
+		counters.searches++;
+
+		while(!state.queue.isEmpty()){
+			int currentId = state.poll();
+			if(currentId == destinationId)
+			//Travel time of destination is final.
+			{
+				break;
+			}
+
+			counters.relaxedEdges += graph.lastEdge(currentId) - graph.firstEdge(currentId);
+			for(int edge = graph.firstEdge(currentId), last = graph.lastEdge(currentId); edge < last; edge++){
+				int adjacentId = graph.getTarget(edge);
+				double totalTravelTime = state.travelTime[currentId] + graph.getWeight(edge);
+				state.update(adjacentId, totalTravelTime, currentId, totalTravelTime);
+			}
+		}
+		return state.getPath(graph, destinationId);
+	}
+
+	/**
+	 * @return number of nodes reached by last search.
+	 */
+	public int getReachedCount() {
+		return state.getReachedCount();
+	}
+
+	@Override
+	public CompactGraph getGraph() {
+		return graph;
+	}
+
+	@Override
+	public SearchCounters getCounters() {
+		return counters;
+	}
+}
@@ -2,20 +2,29 @@ package com.baggagepathfinder.graph;
 
 /**
  * The Edge class represents a Connector which has a associated travel 
- * time and can connect two end points. 
+ * time and can connect two end points. Capacity is the throughput limit of
+ * the connector in bags per minute, UNLIMITED_CAPACITY if it has none.
  * 
  * @author abankey
  *
  */
 public class Edge {
 	
+	public static final double UNLIMITED_CAPACITY = Double.POSITIVE_INFINITY;
+
 	private final Node targetNode;
 	private final double travelTime;
+	private final double capacity;
 	
 	public Edge(Node targetNode, double travelTime) {
+		this(targetNode, travelTime, UNLIMITED_CAPACITY);
+	}
+
+	public Edge(Node targetNode, double travelTime, double capacity) {
 		super();
 		this.targetNode = targetNode;
 		this.travelTime = travelTime;
+		this.capacity = capacity;
 	}
 
 	public Node getTargetNode() {
@@ -26,6 +35,10 @@ public class Edge {
 		return travelTime;
 	}
 
+	public double getCapacity() {
+		return capacity;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -35,6 +48,8 @@ public class Edge {
 		long temp;
 		temp = Double.doubleToLongBits(travelTime);
 		result = prime * result + (int) (temp ^ (temp >>> 32));
+		temp = Double.doubleToLongBits(capacity);
+		result = prime * result + (int) (temp ^ (temp >>> 32));
 		return result;
 	}
 
@@ -55,6 +70,9 @@ public class Edge {
 		if (Double.doubleToLongBits(travelTime) != Double
 				.doubleToLongBits(other.travelTime))
 			return false;
+		if (Double.doubleToLongBits(capacity) != Double
+				.doubleToLongBits(other.capacity))
+			return false;
 		return true;
 	}
 
@@ -0,0 +1,163 @@
+package com.baggagepathfinder.graph;
+
+import java.util.Arrays;
+
+/**
+ * The class IndexedMinHeap is a binary min heap of int ids ordered by a double key. It keeps
+ * the heap position of every id, so contains and decreaseKey run in O(1) and O(log n)
+ * instead of the linear scan of PriorityQueue.remove.
+ *
+ * Ids must be in range 0 to capacity - 1. Capacity grows on demand.
+ *
+ * @author abankey
+ */
+public class IndexedMinHeap {
+
+	private int[] heap;
+	private int[] position;
+	private double[] keys;
+	private int size;
+
+	public IndexedMinHeap(int capacity) {
+		capacity = Math.max(capacity, 1);
+		this.heap = new int[capacity];
+		this.position = new int[capacity];
+		this.keys = new double[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean contains(int id) {
+		return id < position.length && position[id] != -1;
+	}
+
+	/**
+	 * @return key of the id. Only valid while the id is in heap.
+	 */
+	public double getKey(int id) {
+		return keys[id];
+	}
+
+	/**
+	 * @return key of the minimum id. Heap must not be empty.
+	 */
+	public double peekKey() {
+		return keys[heap[0]];
+	}
+
+	/**
+	 * Adds the id with given key or lowers its key if id is already in heap
+	 * with a larger key.
+	 *
+	 * @param id Id
+	 *
+	 * @param key Key
+	 */
+	public void insertOrDecrease(int id, double key){
+		if(contains(id)){
+			if(key < keys[id]){
+				keys[id] = key;
+				siftUp(position[id]);
+			}
+		}
+		else{
+			ensureCapacity(id + 1);
+			keys[id] = key;
+			heap[size] = id;
+			position[id] = size;
+			siftUp(size++);
+		}
+	}
+
+	/**
+	 * Removes and returns the id with minimum key. Heap must not be empty.
+	 *
+	 * @return id with minimum key
+	 */
+	public int poll(){
+		int min = heap[0];
+		position[min] = -1;
+		size--;
+		if(size > 0){
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return min;
+	}
+
+	/**
+	 * Removes all ids. Only the positions of ids still in heap are reset, so clear
+	 * costs O(size) and not O(capacity).
+	 */
+	public void clear(){
+		for(int i = 0; i < size; i++){
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Makes sure ids below capacity can be added without growing the heap again.
+	 *
+	 * @param capacity Required capacity
+	 */
+	public void ensureCapacity(int capacity){
+		if(capacity <= position.length){
+			return;
+		}
+		int newCapacity = Math.max(capacity, position.length * 2);
+		int oldCapacity = position.length;
+		heap = Arrays.copyOf(heap, newCapacity);
+		keys = Arrays.copyOf(keys, newCapacity);
+		position = Arrays.copyOf(position, newCapacity);
+		Arrays.fill(position, oldCapacity, newCapacity, -1);
+	}
+
+	private void siftUp(int index){
+		int id = heap[index];
+		double key = keys[id];
+		while(index > 0){
+			int parentIndex = (index - 1) >>> 1;
+			int parent = heap[parentIndex];
+			if(keys[parent] <= key){
+				break;
+			}
+			heap[index] = parent;
+			position[parent] = index;
+			index = parentIndex;
+		}
+		heap[index] = id;
+		position[id] = index;
+	}
+
+	private void siftDown(int index){
+		int id = heap[index];
+		double key = keys[id];
+		int half = size >>> 1;
+		while(index < half){
+			int childIndex = 2 * index + 1;
+			int child = heap[childIndex];
+			int rightIndex = childIndex + 1;
+			if(rightIndex < size && keys[heap[rightIndex]] < keys[child]){
+				childIndex = rightIndex;
+				child = heap[childIndex];
+			}
+			if(key <= keys[child]){
+				break;
+			}
+			heap[index] = child;
+			position[child] = index;
+			index = childIndex;
+		}
+		heap[index] = id;
+		position[id] = index;
+	}
+}
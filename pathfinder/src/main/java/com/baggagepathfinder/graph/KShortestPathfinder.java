@@ -0,0 +1,458 @@
+package com.baggagepathfinder.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * The class KShortestPathfinder finds the k quickest loopless paths between two nodes with
+ * Yen's algorithm, skipping paths which share too much travel time with a path already found.
+ *
+ * Every path found is the root of new candidates: for each node of the path (spur node), the
+ * nodes before it are masked and so is the next edge of every path found with the same root,
+ * then the quickest path from the spur node to the destination completes the candidate.
+ * The quickest candidate is the next path. Like Lawler's variant, a path only spurs from its
+ * deviation node on, earlier spur nodes were already spurred by the path it deviates from.
+ *
+ * Spur paths are cheap. One Dijkstra search from the destination gives the travel time of
+ * every node to the destination, which relies on the conveyor graph being symmetric, see
+ * BaggagePathfinderService#addNode. These travel times are exact A* potentials of the
+ * unmasked graph, so the A* search from the spur node can stop at the first settled node whose
+ * quickest path to the destination avoids the mask, and continue along the shortest path
+ * tree. A tree path only needs checking until its travel time to the destination drops below
+ * that of every masked node. The tree is kept for the next query to the same destination.
+ *
+ * Spur searches are lazy. A spur node is queued with the best first step of its A* search,
+ * which is exact if the tree path of that step avoids the mask and a lower bound otherwise.
+ * Only a lower bound reaching the head of the queue is searched, with the mask it was queued
+ * with, so most spur nodes of a long path never cost a search.
+ *
+ * A pathfinder instance can be reused for any number of queries on the same graph but must
+ * not be shared between threads.
+ *
+ * @author abankey
+ */
+public class KShortestPathfinder {
+
+	/**
+	 * Number of candidates examined per requested path before giving up on diversity.
+	 */
+	public static final int CANDIDATES_PER_PATH = 16;
+
+	private final CompactGraph graph;
+	private final CompactShortestPathfinder tree;
+	private final SearchState state;
+	private final SearchCounters counters = new SearchCounters();
+
+	/**
+	 * Position of each node on the path being spurred, valid if routeStamps matches routeStamp.
+	 */
+	private final int[] positions;
+	private final int[] routeStamps;
+	private final int[] maskedTargets;
+	private int routeStamp;
+	private int spurStamp;
+	private int treeDestination = -1;
+	private long sequence;
+
+	public KShortestPathfinder(CompactGraph graph) {
+		this.graph = graph;
+		this.tree = new CompactShortestPathfinder(graph);
+		this.state = new SearchState(graph.getNodeCount(), counters);
+		this.positions = new int[graph.getNodeCount()];
+		this.routeStamps = new int[graph.getNodeCount()];
+		this.maskedTargets = new int[graph.getNodeCount()];
+	}
+
+	/**
+	 * Fetches the quickest loopless paths between two nodes, each sharing at most maxOverlap of
+	 * its travel time with any quicker path returned.
+	 *
+	 * @param sourceId Source node id
+	 *
+	 * @param destinationId Destination node id
+	 *
+	 * @param k Maximum number of paths
+	 *
+	 * @param maxOverlap Maximum fraction of travel time a path may share with a quicker path,
+	 * 1 for plain k shortest paths.
+	 *
+	 * @return at most k paths in order of travel time, empty if destination is not reachable.
+	 */
+	public List<NodePath> getShortestPaths(int sourceId, int destinationId, int k, double maxOverlap){
+		List<NodePath> paths = new ArrayList<NodePath>();
+		if(treeDestination != destinationId){
+			tree.computeQuickestPath(destinationId);
+			treeDestination = destinationId;
+		}
+		if(k <= 0 || tree.getTravelTime(sourceId) == Double.POSITIVE_INFINITY){
+			return paths;
+		}
+
+		List<Route> accepted = new ArrayList<Route>();
+		List<Route> examined = new ArrayList<Route>();
+		Set<Route> known = new HashSet<Route>();
+		PriorityQueue<Candidate> candidates = new PriorityQueue<Candidate>();
+		candidates.add(new Candidate(null, 0, new int[0], new double[0], sourceId, tree.getTravelTime(sourceId), 0));
+
+		for(int round = 0; round < k * CANDIDATES_PER_PATH && !candidates.isEmpty(); round++){
+			Candidate candidate = candidates.poll();
+			if(candidate.middle == null)
+			//Lower bound on top, search the spur path now.
+			{
+				candidate = search(candidate, examined);
+				if(candidate != null){
+					candidates.add(candidate);
+				}
+				round--;
+				continue;
+			}
+			Route route = candidate.toRoute();
+			if(!known.add(route))
+			//Same path found from another spur node.
+			{
+				continue;
+			}
+			examined.add(route);
+			if(overlap(route, accepted) <= maxOverlap){
+				accepted.add(route);
+				paths.add(toNodePath(route));
+				if(accepted.size() == k){
+					break;
+				}
+			}
+			addCandidates(route, examined, candidates);
+		}
+		return paths;
+	}
+
+	/**
+	 * Adds a candidate for each spur node of a route, from its deviation node on.
+	 */
+	private void addCandidates(Route route, List<Route> examined, PriorityQueue<Candidate> candidates){
+		int[] nodes = route.nodes;
+		markRoute(route);
+
+		//Examined routes sharing the root up to spur node, narrowed as the root grows.
+		List<Route> sharing = new ArrayList<Route>(examined);
+		double minRootTravelTime = Double.POSITIVE_INFINITY;
+		for(int i = 0; i < nodes.length - 1; i++){
+			int spur = nodes[i];
+			int count = 0;
+			for(Route other : sharing){
+				if(other.nodes.length > i + 1 && other.nodes[i] == spur){
+					sharing.set(count++, other);
+				}
+			}
+			sharing.subList(count, sharing.size()).clear();
+			minRootTravelTime = Math.min(minRootTravelTime, tree.getTravelTime(spur));
+			if(i < route.deviation){
+				continue;
+			}
+
+			spurStamp++;
+			for(Route other : sharing){
+				maskedTargets[other.nodes[i + 1]] = spurStamp;
+			}
+			Candidate candidate = firstStep(route, i, minRootTravelTime, examined.size());
+			if(candidate != null){
+				candidates.add(candidate);
+			}
+		}
+	}
+
+	/**
+	 * Finds the best first step from spur node at position i of the route, avoiding the root
+	 * nodes and masked targets.
+	 *
+	 * @return exact candidate if the tree path of the step avoids the mask, lower bound 
+	 * otherwise, null if there is no step.
+	 */
+	private Candidate firstStep(Route route, int i, double minTravelTime, int examinedCount){
+		int spur = route.nodes[i];
+		int best = -1;
+		double bestWeight = 0d;
+		double bestKey = Double.POSITIVE_INFINITY;
+		for(int edge = graph.firstEdge(spur), last = graph.lastEdge(spur); edge < last; edge++){
+			int adjacentId = graph.getTarget(edge);
+			double key = graph.getWeight(edge) + tree.getTravelTime(adjacentId);
+			if(key < bestKey && !isRootNode(adjacentId, i) && maskedTargets[adjacentId] != spurStamp){
+				best = adjacentId;
+				bestWeight = graph.getWeight(edge);
+				bestKey = key;
+			}
+		}
+		if(best == -1){
+			return null;
+		}
+		double rootTravelTime = route.travelTimes[i];
+		if(isTreePathOpen(best, i, minTravelTime)){
+			return new Candidate(route, i, new int[]{best}, new double[]{rootTravelTime + bestWeight}, best, 
+					rootTravelTime + bestKey, examinedCount);
+		}
+		return new Candidate(route, i, null, null, -1, rootTravelTime + bestKey, examinedCount);
+	}
+
+	/**
+	 * Searches the spur path of a lower bound candidate with the mask it was queued with: root
+	 * nodes of its route and the next nodes of the routes examined by then sharing the root.
+	 *
+	 * @return exact candidate or null if destination is not reachable.
+	 */
+	private Candidate search(Candidate bound, List<Route> examined){
+		Route route = bound.parent;
+		int i = bound.deviation;
+		markRoute(route);
+		double minTravelTime = Double.POSITIVE_INFINITY;
+		for(int j = 0; j <= i; j++){
+			minTravelTime = Math.min(minTravelTime, tree.getTravelTime(route.nodes[j]));
+		}
+		spurStamp++;
+		for(Route other : examined.subList(0, bound.examinedCount)){
+			if(other.nodes.length > i + 1 && sharesRoot(other.nodes, route.nodes, i)){
+				maskedTargets[other.nodes[i + 1]] = spurStamp;
+			}
+		}
+		return spur(route, i, minTravelTime);
+	}
+
+	/**
+	 * Finds the quickest path from spur node at position i of the route to destination,
+	 * avoiding the root nodes and masked targets.
+	 *
+	 * @return candidate or null if destination is not reachable.
+	 */
+	private Candidate spur(Route route, int i, double minTravelTime){
+		int spur = route.nodes[i];
+		state.start(spur);
+		counters.searches++;
+		while(!state.queue.isEmpty()){
+			int currentId = state.poll();
+			if(currentId != spur && isTreePathOpen(currentId, i, minTravelTime))
+			//Tree path of the node is the quickest way on.
+			{
+				return toCandidate(route, i, currentId);
+			}
+
+			counters.relaxedEdges += graph.lastEdge(currentId) - graph.firstEdge(currentId);
+			for(int edge = graph.firstEdge(currentId), last = graph.lastEdge(currentId); edge < last; edge++){
+				int adjacentId = graph.getTarget(edge);
+				if(isRootNode(adjacentId, i) || (currentId == spur && maskedTargets[adjacentId] == spurStamp)
+						|| tree.getTravelTime(adjacentId) == Double.POSITIVE_INFINITY)
+				//Masked or no way on to destination.
+				{
+					continue;
+				}
+				double totalTravelTime = state.travelTime[currentId] + graph.getWeight(edge);
+				state.update(adjacentId, totalTravelTime, currentId, totalTravelTime + tree.getTravelTime(adjacentId));
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return true if the tree path from a node to destination avoids the root nodes and the
+	 * spur node at position i. Nodes quicker to the destination than all of them can't lead
+	 * back to them.
+	 */
+	private boolean isTreePathOpen(int id, int i, double minTravelTime){
+		for(; id != -1 && tree.getTravelTime(id) >= minTravelTime; id = tree.getPrevious(id)){
+			if(isRootNode(id, i)){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Marks the position of each node of a route.
+	 */
+	private void markRoute(Route route){
+		routeStamp++;
+		for(int i = 0; i < route.nodes.length; i++){
+			positions[route.nodes[i]] = i;
+			routeStamps[route.nodes[i]] = routeStamp;
+		}
+	}
+
+	/**
+	 * @return true if both node arrays start with the same first count + 1 nodes.
+	 */
+	private static boolean sharesRoot(int[] a, int[] b, int count){
+		for(int i = 0; i <= count; i++){
+			if(a[i] != b[i]){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if the node is at position i or before on the path being spurred.
+	 */
+	private boolean isRootNode(int id, int i){
+		return routeStamps[id] == routeStamp && positions[id] <= i;
+	}
+
+	/**
+	 * Creates the candidate of an A* search which reached a node with open tree path.
+	 */
+	private Candidate toCandidate(Route route, int i, int tailId){
+		int length = 0;
+		for(int id = tailId; id != route.nodes[i]; id = state.previous[id]){
+			length++;
+		}
+		int[] middle = new int[length];
+		double[] middleTravelTimes = new double[length];
+		double rootTravelTime = route.travelTimes[i];
+		for(int id = tailId; id != route.nodes[i]; id = state.previous[id]){
+			middle[--length] = id;
+			middleTravelTimes[length] = rootTravelTime + state.travelTime[id];
+		}
+		return new Candidate(route, i, middle, middleTravelTimes, tailId, 
+				rootTravelTime + state.travelTime[tailId] + tree.getTravelTime(tailId), 0);
+	}
+
+	/**
+	 * @return largest fraction of the travel time of a route shared with one of the other routes.
+	 */
+	private static double overlap(Route route, List<Route> others){
+		double total = route.getTravelTime();
+		double overlap = 0d;
+		for(Route other : others){
+			double shared = 0d;
+			for(int i = 0; i < route.nodes.length - 1; i++){
+				if(other.hasStep(route.nodes[i], route.nodes[i + 1])){
+					shared += route.travelTimes[i + 1] - route.travelTimes[i];
+				}
+			}
+			overlap = Math.max(overlap, total > 0 ? shared / total : 1d);
+		}
+		return overlap;
+	}
+
+	private NodePath toNodePath(Route route){
+		List<Node> path = new ArrayList<Node>(route.nodes.length);
+		for(int id : route.nodes){
+			path.add(graph.getNode(id));
+		}
+		return new NodePath(path, route.getTravelTime());
+	}
+
+	/**
+	 * @return work counters of the spur searches of this pathfinder.
+	 */
+	public SearchCounters getCounters() {
+		return counters;
+	}
+
+	public CompactGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Candidate path: root of its parent route up to the deviation node, the nodes of the spur
+	 * search and the tree path from the tail node. Only built into a Route once polled, so
+	 * candidates which are never polled cost no copy of the root. A lower bound candidate has
+	 * no middle nodes yet and keeps the number of routes examined when it was queued.
+	 */
+	private final class Candidate implements Comparable<Candidate> {
+		private final Route parent;
+		private final int deviation;
+		private final int[] middle;
+		private final double[] middleTravelTimes;
+		private final int tailId;
+		private final double travelTime;
+		private final int examinedCount;
+		private final long order = sequence++;
+
+		private Candidate(Route parent, int deviation, int[] middle, double[] middleTravelTimes, int tailId,
+				double travelTime, int examinedCount) {
+			this.parent = parent;
+			this.deviation = deviation;
+			this.middle = middle;
+			this.middleTravelTimes = middleTravelTimes;
+			this.tailId = tailId;
+			this.travelTime = travelTime;
+			this.examinedCount = examinedCount;
+		}
+
+		private Route toRoute(){
+			int rootLength = parent != null ? deviation + 1 : 0;
+			int length = rootLength + middle.length + (parent != null ? 0 : 1);
+			for(int id = tree.getPrevious(tailId); id != -1; id = tree.getPrevious(id)){
+				length++;
+			}
+			int[] nodes = new int[length];
+			double[] travelTimes = new double[length];
+			if(parent != null){
+				System.arraycopy(parent.nodes, 0, nodes, 0, rootLength);
+				System.arraycopy(parent.travelTimes, 0, travelTimes, 0, rootLength);
+			}
+			else{
+				nodes[0] = tailId;
+				rootLength = 1;
+			}
+			System.arraycopy(middle, 0, nodes, rootLength, middle.length);
+			System.arraycopy(middleTravelTimes, 0, travelTimes, rootLength, middle.length);
+			int i = rootLength + middle.length;
+			for(int id = tree.getPrevious(tailId); id != -1; id = tree.getPrevious(id)){
+				nodes[i] = id;
+				travelTimes[i++] = travelTime - tree.getTravelTime(id);
+			}
+			return new Route(nodes, travelTimes, parent != null ? deviation : 0);
+		}
+
+		@Override
+		public int compareTo(Candidate other) {
+			int result = Double.compare(travelTime, other.travelTime);
+			return result != 0 ? result : Long.compare(order, other.order);
+		}
+	}
+
+	/**
+	 * Loopless path as node ids and travel time from the source to each node.
+	 */
+	private static final class Route {
+		private final int[] nodes;
+		private final double[] travelTimes;
+		private final int deviation;
+		private Set<Long> steps;
+
+		private Route(int[] nodes, double[] travelTimes, int deviation) {
+			this.nodes = nodes;
+			this.travelTimes = travelTimes;
+			this.deviation = deviation;
+		}
+
+		private double getTravelTime() {
+			return travelTimes[travelTimes.length - 1];
+		}
+
+		/**
+		 * @return true if the route goes directly from one node to the other.
+		 */
+		private boolean hasStep(int from, int to){
+			if(steps == null){
+				steps = new HashSet<Long>();
+				for(int i = 0; i < nodes.length - 1; i++){
+					steps.add(((long)nodes[i] << 32) | nodes[i + 1]);
+				}
+			}
+			return steps.contains(((long)from << 32) | to);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Route && Arrays.equals(nodes, ((Route)other).nodes);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(nodes);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.baggagepathfinder.graph;
+
+import java.util.Arrays;
+
+/**
+ * The class Landmarks holds the travel time from a few landmark nodes to every node of a
+ * CompactGraph. By the triangle inequality <code>|d(l, t) - d(l, v)|</code> is a lower bound of
+ * the travel time from node v to node t for every landmark l, which AltPathfinder uses to
+ * direct its search towards the destination.
+ *
+ * Landmarks are picked by farthest selection: each new landmark is the node with the largest
+ * travel time to its nearest landmark picked so far. Travel times are computed with one
+ * Dijkstra search from each landmark, which relies on the conveyor graph being symmetric,
+ * see BaggagePathfinderService#addNode.
+ *
+ * A Landmarks instance never changes once built, so it can be shared between pathfinders.
+ *
+ * @author abankey
+ */
+public final class Landmarks {
+
+	private final CompactGraph graph;
+	private final int[] landmarkIds;
+
+	/**
+	 * Travel time from landmark l to node v at position <code>v * landmarkCount + l</code>.
+	 */
+	private final double[] travelTimes;
+
+	private Landmarks(CompactGraph graph, int[] landmarkIds, double[] travelTimes) {
+		this.graph = graph;
+		this.landmarkIds = landmarkIds;
+		this.travelTimes = travelTimes;
+	}
+
+	/**
+	 * Picks landmarks and computes their travel times to every node.
+	 *
+	 * @param graph Compact graph
+	 *
+	 * @param count Number of landmarks, at most node count landmarks are picked.
+	 *
+	 * @return Landmarks
+	 */
+	public static Landmarks build(CompactGraph graph, int count){
+		int nodeCount = graph.getNodeCount();
+		count = Math.min(count, nodeCount);
+		int[] landmarkIds = new int[count];
+		double[] travelTimes = new double[nodeCount * count];
+		double[] nearest = new double[nodeCount];
+		Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+
+		CompactShortestPathfinder pathFinder = new CompactShortestPathfinder(graph);
+		int landmark = 0;
+		for(int l = 0; l < count; l++){
+			landmarkIds[l] = landmark;
+			pathFinder.computeQuickestPath(landmark);
+
+			//Next landmark is the reachable node farthest from all landmarks, or a node
+			//of another component if there is one without a landmark.
+			int next = -1;
+			double nextTravelTime = -1d;
+			for(int node = 0; node < nodeCount; node++){
+				double travelTime = pathFinder.getTravelTime(node);
+				travelTimes[node * count + l] = travelTime;
+				nearest[node] = Math.min(nearest[node], travelTime);
+				if(nearest[node] > nextTravelTime){
+					next = node;
+					nextTravelTime = nearest[node];
+				}
+			}
+			landmark = next;
+		}
+		return new Landmarks(graph, landmarkIds, travelTimes);
+	}
+
+	/**
+	 * Fills target array with the travel times from each landmark to destination node.
+	 *
+	 * @param destinationId Destination node id
+	 *
+	 * @param target Array of size landmark count
+	 */
+	void getTravelTimes(int destinationId, double[] target){
+		System.arraycopy(travelTimes, destinationId * landmarkIds.length, target, 0, landmarkIds.length);
+	}
+
+	/**
+	 * Computes the lower bound of the travel time from a node to destination.
+	 *
+	 * @param nodeId Node id
+	 *
+	 * @param destinationTravelTimes Travel times from each landmark to destination, see getTravelTimes.
+	 *
+	 * @return lower bound, 0 if no landmark gives a bound.
+	 */
+	double getLowerBound(int nodeId, double[] destinationTravelTimes){
+		double bound = 0d;
+		int offset = nodeId * landmarkIds.length;
+		for(int l = 0; l < landmarkIds.length; l++){
+			double nodeTravelTime = travelTimes[offset + l];
+			double destinationTravelTime = destinationTravelTimes[l];
+			if(nodeTravelTime == Double.POSITIVE_INFINITY || destinationTravelTime == Double.POSITIVE_INFINITY){
+				continue;
+			}
+			bound = Math.max(bound, Math.abs(destinationTravelTime - nodeTravelTime));
+		}
+		return bound;
+	}
+
+	public int getLandmarkCount() {
+		return landmarkIds.length;
+	}
+
+	public int getLandmarkId(int index) {
+		return landmarkIds[index];
+	}
+
+	/**
+	 * @return memory used by landmark travel times in bytes.
+	 */
+	public long getMemory() {
+		return (long)travelTimes.length * 8 + (long)landmarkIds.length * 4;
+	}
+
+	public CompactGraph getGraph() {
+		return graph;
+	}
+}
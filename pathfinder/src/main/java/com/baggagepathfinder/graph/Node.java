@@ -0,0 +1,230 @@
+package com.baggagepathfinder.graph;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Parent class for all the classes who can be part conveyor system graph.
+ *
+ * Outgoing edges are kept in parallel arrays of target node, travel time and capacity, in
+ * order of addition. Capacities are only stored once an edge of limited capacity is added.
+ * getEdges is a Set view which creates an Edge object per edge it hands out, searches use
+ * the indexed accessors instead.
+ *
+ * @author abankey
+ */
+public abstract class Node implements Comparable<Node>{
+
+	private static final Node[] NO_TARGETS = new Node[0];
+	private static final double[] NO_TRAVEL_TIMES = new double[0];
+
+	private double minTravelTime = Double.POSITIVE_INFINITY;
+	private Node[] targets = NO_TARGETS;
+	private double[] travelTimes = NO_TRAVEL_TIMES;
+	private double[] capacities;
+	private int edgeCount;
+	private Node previous;
+	private int searchId = -1;
+	private final String name;
+
+	public Node(String name){
+		this.name = name;
+		this.previous = null;
+	}
+
+	/**
+	 * Compares this object with specified Node object for order.
+	 */
+	public int compareTo(Node node){
+		return Double.compare(this.getMinTravelTime(), node.getMinTravelTime());
+	}
+
+	public Node getPrevious() {
+		return previous;
+	}
+
+	public void setPrevious(Node previous) {
+		this.previous = previous;
+	}
+
+	/**
+	 * @return heap id of the node in the last ShortestPathfinder search which reached it.
+	 */
+	int getSearchId() {
+		return searchId;
+	}
+
+	void setSearchId(int searchId) {
+		this.searchId = searchId;
+	}
+
+	public double getMinTravelTime() {
+		return minTravelTime;
+	}
+
+	public void setMinTravelTime(double minTravelTime) {
+		this.minTravelTime = minTravelTime;
+	}
+
+	/**
+	 * @return Set view of outgoing edges, removal through its iterator removes the edge.
+	 */
+	public Set<Edge>  getEdges() {
+		return new EdgeSet();
+	}
+
+	public void setEdges(Set<Edge>  edges) {
+		this.targets = NO_TARGETS;
+		this.travelTimes = NO_TRAVEL_TIMES;
+		this.capacities = null;
+		this.edgeCount = 0;
+		for(Edge edge : edges){
+			addEdge(edge);
+		}
+	}
+
+	public void addEdge(Edge edge){
+		addEdge(edge.getTargetNode(), edge.getTravelTime(), edge.getCapacity());
+	}
+
+	/**
+	 * Adds an outgoing edge, unless an equal edge exists.
+	 *
+	 * @param targetNode Target node
+	 *
+	 * @param travelTime Travel time
+	 *
+	 * @param capacity Throughput limit in bags per minute, Edge.UNLIMITED_CAPACITY if unlimited.
+	 */
+	public void addEdge(Node targetNode, double travelTime, double capacity){
+		for(int i = 0; i < edgeCount; i++){
+			if(targets[i] == targetNode && Double.compare(travelTimes[i], travelTime) == 0
+					&& Double.compare(getCapacity(i), capacity) == 0){
+				return;
+			}
+		}
+		if(edgeCount == targets.length){
+			int length = Math.max(2, edgeCount * 2);
+			targets = Arrays.copyOf(targets, length);
+			travelTimes = Arrays.copyOf(travelTimes, length);
+			if(capacities != null){
+				capacities = Arrays.copyOf(capacities, length);
+			}
+		}
+		if(capacities == null && capacity != Edge.UNLIMITED_CAPACITY){
+			capacities = new double[targets.length];
+			Arrays.fill(capacities, Edge.UNLIMITED_CAPACITY);
+		}
+		targets[edgeCount] = targetNode;
+		travelTimes[edgeCount] = travelTime;
+		if(capacities != null){
+			capacities[edgeCount] = capacity;
+		}
+		edgeCount++;
+	}
+
+	/**
+	 * Removes an outgoing edge, later edges move up by one.
+	 *
+	 * @param index Edge index, 0 to getEdgeCount() - 1.
+	 */
+	public void removeEdge(int index){
+		int moved = edgeCount - index - 1;
+		System.arraycopy(targets, index + 1, targets, index, moved);
+		System.arraycopy(travelTimes, index + 1, travelTimes, index, moved);
+		if(capacities != null){
+			System.arraycopy(capacities, index + 1, capacities, index, moved);
+		}
+		targets[--edgeCount] = null;
+	}
+
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * @return target node of the outgoing edge at index.
+	 */
+	public Node getTarget(int index) {
+		return targets[index];
+	}
+
+	/**
+	 * @return travel time of the outgoing edge at index.
+	 */
+	public double getTravelTime(int index) {
+		return travelTimes[index];
+	}
+
+	/**
+	 * @return capacity of the outgoing edge at index, Edge.UNLIMITED_CAPACITY if unlimited.
+	 */
+	public double getCapacity(int index) {
+		return capacities != null ? capacities[index] : Edge.UNLIMITED_CAPACITY;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Resets minTravelTime and previous attributes.
+	 */
+	public void reset(){
+		minTravelTime = Double.POSITIVE_INFINITY;
+		previous = null;
+	}
+
+	/**
+	 * Set view of the edge arrays.
+	 */
+	private class EdgeSet extends AbstractSet<Edge> {
+
+		@Override
+		public int size() {
+			return edgeCount;
+		}
+
+		@Override
+		public boolean add(Edge edge) {
+			int count = edgeCount;
+			addEdge(edge);
+			return edgeCount != count;
+		}
+
+		@Override
+		public Iterator<Edge> iterator() {
+			return new Iterator<Edge>() {
+				private int next;
+				private int last = -1;
+
+				@Override
+				public boolean hasNext() {
+					return next < edgeCount;
+				}
+
+				@Override
+				public Edge next() {
+					if(next >= edgeCount){
+						throw new NoSuchElementException();
+					}
+					last = next++;
+					return new Edge(targets[last], travelTimes[last], getCapacity(last));
+				}
+
+				@Override
+				public void remove() {
+					if(last == -1){
+						throw new IllegalStateException();
+					}
+					removeEdge(last);
+					next = last;
+					last = -1;
+				}
+			};
+		}
+	}
+}
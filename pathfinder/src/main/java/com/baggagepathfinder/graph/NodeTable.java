@@ -0,0 +1,205 @@
+package com.baggagepathfinder.graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The class NodeTable interns node names into dense int ids, in order of addition. It is an
+ * open addressing hash table of int slots over a Node array, so a node costs one array entry,
+ * two slots and its cached name hash instead of a map entry and a boxed id.
+ *
+ * Names can be looked up directly in a range of a CharSequence, for example a word of an
+ * input line, without creating the name String. Hashes follow String#hashCode.
+ *
+ * Nodes are never removed. A NodeTable must not be changed while other threads read it.
+ *
+ * @author abankey
+ */
+public final class NodeTable {
+
+	private int[] slots = new int[64];
+	private int[] hashes = new int[32];
+	private Node[] nodes = new Node[32];
+	private int size;
+
+	/**
+	 * Fetches the id of node with given name.
+	 *
+	 * @param name Node name
+	 *
+	 * @return node id or -1 if table doesn't contain the node.
+	 */
+	public int getId(String name){
+		return find(name.hashCode(), name, 0, name.length());
+	}
+
+	/**
+	 * Fetches the id of node whose name is the range start to end - 1 of text.
+	 *
+	 * @return node id or -1 if table doesn't contain the node.
+	 */
+	public int getId(CharSequence text, int start, int end){
+		int hash = 0;
+		for(int i = start; i < end; i++){
+			hash = 31 * hash + text.charAt(i);
+		}
+		return find(hash, text, start, end);
+	}
+
+	/**
+	 * @return node with given name, null if table doesn't contain the node.
+	 */
+	public Node get(String name){
+		int id = getId(name);
+		return id == -1 ? null : nodes[id];
+	}
+
+	public Node get(int id){
+		return nodes[id];
+	}
+
+	/**
+	 * Adds a node unless a node of the same name exists.
+	 *
+	 * @return id of the node of that name.
+	 */
+	public int add(Node node){
+		String name = node.getName();
+		int hash = name.hashCode();
+		int id = find(hash, name, 0, name.length());
+		if(id != -1){
+			return id;
+		}
+
+		if(size == nodes.length){
+			hashes = Arrays.copyOf(hashes, size * 2);
+			nodes = Arrays.copyOf(nodes, size * 2);
+		}
+		id = size++;
+		hashes[id] = hash;
+		nodes[id] = node;
+		insert(id);
+		if(size * 2 > slots.length){
+			rehash();
+		}
+		return id;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return read only Map view of the table by name, iterated in id order.
+	 */
+	public Map<String, Node> asMap(){
+		return new MapView();
+	}
+
+	/**
+	 * @return memory of the table in bytes, without the nodes.
+	 */
+	public long getMemory() {
+		return 4L * slots.length + 4L * hashes.length + 4L * nodes.length;
+	}
+
+	private int find(int hash, CharSequence text, int start, int end){
+		int mask = slots.length - 1;
+		for(int slot = mix(hash) & mask; slots[slot] != 0; slot = (slot + 1) & mask){
+			int id = slots[slot] - 1;
+			if(hashes[id] == hash && matches(nodes[id].getName(), text, start, end)){
+				return id;
+			}
+		}
+		return -1;
+	}
+
+	private void insert(int id){
+		int mask = slots.length - 1;
+		int slot = mix(hashes[id]) & mask;
+		while(slots[slot] != 0){
+			slot = (slot + 1) & mask;
+		}
+		slots[slot] = id + 1;
+	}
+
+	private void rehash(){
+		slots = new int[slots.length * 2];
+		for(int id = 0; id < size; id++){
+			insert(id);
+		}
+	}
+
+	private static int mix(int hash){
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean matches(String name, CharSequence text, int start, int end){
+		if(name.length() != end - start){
+			return false;
+		}
+		for(int i = 0; i < name.length(); i++){
+			if(name.charAt(i) != text.charAt(start + i)){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Read only Map view, lookups go to the hash table.
+	 */
+	private class MapView extends AbstractMap<String, Node> {
+
+		@Override
+		public Node get(Object key) {
+			return key instanceof String ? NodeTable.this.get((String)key) : null;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public Set<Map.Entry<String, Node>> entrySet() {
+			return new AbstractSet<Map.Entry<String, Node>>() {
+				@Override
+				public int size() {
+					return size;
+				}
+
+				@Override
+				public Iterator<Map.Entry<String, Node>> iterator() {
+					return new Iterator<Map.Entry<String, Node>>() {
+						private int next;
+
+						@Override
+						public boolean hasNext() {
+							return next < size;
+						}
+
+						@Override
+						public Map.Entry<String, Node> next() {
+							if(next >= size){
+								throw new NoSuchElementException();
+							}
+							Node node = nodes[next++];
+							return new AbstractMap.SimpleImmutableEntry<String, Node>(node.getName(), node);
+						}
+					};
+				}
+			};
+		}
+	}
+}
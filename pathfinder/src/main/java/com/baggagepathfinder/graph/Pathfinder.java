@@ -0,0 +1,31 @@
+package com.baggagepathfinder.graph;
+
+/**
+ * The interface Pathfinder is a point to point shortest path search over a CompactGraph.
+ * All implementations find the same travel times, they only differ in the part of the
+ * graph they have to explore. A pathfinder instance can be reused for any number of
+ * searches on the same graph but must not be shared between threads.
+ *
+ * @author abankey
+ */
+public interface Pathfinder {
+
+	/**
+	 * Fetches the shortest path between two nodes.
+	 *
+	 * @param sourceId Source node id
+	 *
+	 * @param destinationId Destination node id
+	 *
+	 * @return NodePath which contains path and travel time information. If destination is
+	 * not reachable, path only contains destination node and travel time is Double.POSITIVE_INFINITY.
+	 */
+	NodePath getShortestPath(int sourceId, int destinationId);
+
+	CompactGraph getGraph();
+
+	/**
+	 * @return work counters of all searches of this pathfinder.
+	 */
+	SearchCounters getCounters();
+}
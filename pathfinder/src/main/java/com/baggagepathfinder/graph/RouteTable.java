@@ -0,0 +1,215 @@
+package com.baggagepathfinder.graph;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.baggagepathfinder.exception.SystemException;
+
+/**
+ * The class RouteTable holds precomputed travel time and next hop from every node of a
+ * CompactGraph to a fixed set of destination nodes. Row <code>r</code> of the table belongs
+ * to destination <code>r</code> and is stored at positions <code>r * nodeCount</code> to
+ * <code>(r + 1) * nodeCount - 1</code> of the travel time and next hop arrays.
+ *
+ * Rows are computed with one Dijkstra search from each destination. This relies on the
+ * conveyor graph being symmetric, see BaggagePathfinderService#addNode.
+ *
+ * A lookup walks the next hops, so it costs O(path length) and needs no search at all.
+ *
+ * @author abankey
+ */
+public final class RouteTable {
+
+	private static final long BYTES_PER_ENTRY = 8 + 4;
+
+	private final CompactGraph graph;
+	private final int[] rows;
+	private final double[] travelTimes;
+	private final int[] nextHops;
+
+	private RouteTable(CompactGraph graph, int[] rows, double[] travelTimes, int[] nextHops) {
+		this.graph = graph;
+		this.rows = rows;
+		this.travelTimes = travelTimes;
+		this.nextHops = nextHops;
+	}
+
+	/**
+	 * Estimates the memory required by a route table.
+	 *
+	 * @param nodeCount Number of nodes in graph
+	 *
+	 * @param destinationCount Number of destination nodes
+	 *
+	 * @return memory in bytes
+	 */
+	public static long estimateMemory(int nodeCount, int destinationCount){
+		return (long)nodeCount * destinationCount * BYTES_PER_ENTRY + (long)nodeCount * 4;
+	}
+
+	/**
+	 * Builds route table from every node to given destination nodes.
+	 *
+	 * @param graph Compact graph
+	 *
+	 * @param destinationIds Destination node ids
+	 *
+	 * @param maxBytes Maximum memory the table may use
+	 *
+	 * @return RouteTable
+	 *
+	 * @throws SystemException if table would need more than maxBytes memory.
+	 */
+	public static RouteTable build(CompactGraph graph, int[] destinationIds, long maxBytes) throws SystemException{
+		int nodeCount = graph.getNodeCount();
+		int[] rows = new int[nodeCount];
+		Arrays.fill(rows, -1);
+		int destinationCount = 0;
+		for(int destination : destinationIds){
+			if(rows[destination] == -1){
+				rows[destination] = destinationCount++;
+			}
+		}
+
+		long requiredBytes = estimateMemory(nodeCount, destinationCount);
+		if(requiredBytes > maxBytes || (long)nodeCount * destinationCount > Integer.MAX_VALUE){
+			throw new SystemException("Route table requires " + requiredBytes + " bytes, limit is " + maxBytes + " bytes.");
+		}
+
+		double[] travelTimes = new double[nodeCount * destinationCount];
+		int[] nextHops = new int[nodeCount * destinationCount];
+		CompactShortestPathfinder pathFinder = new CompactShortestPathfinder(graph);
+		for(int destination = 0; destination < nodeCount; destination++){
+			if(rows[destination] == -1){
+				continue;
+			}
+
+			//Predecessor towards destination is the next hop from the node to destination.
+			pathFinder.computeQuickestPath(destination);
+			int offset = rows[destination] * nodeCount;
+			for(int node = 0; node < nodeCount; node++){
+				travelTimes[offset + node] = pathFinder.getTravelTime(node);
+				nextHops[offset + node] = pathFinder.getPrevious(node);
+			}
+		}
+		return new RouteTable(graph, rows, travelTimes, nextHops);
+	}
+
+	/**
+	 * Writes the table, see read.
+	 *
+	 * @param output Output
+	 *
+	 * @throws IOException if output fails.
+	 */
+	public void write(DataOutput output) throws IOException{
+		output.writeInt(rows.length);
+		output.writeInt(nextHops.length);
+		for(int row : rows){
+			output.writeInt(row);
+		}
+		for(double travelTime : travelTimes){
+			output.writeLong(Double.doubleToRawLongBits(travelTime));
+		}
+		for(int nextHop : nextHops){
+			output.writeInt(nextHop);
+		}
+	}
+
+	/**
+	 * Reads a table written by write. Buffer position is moved past the table.
+	 *
+	 * @param graph Compact graph the table was built for
+	 *
+	 * @param buffer Buffer, big endian
+	 *
+	 * @return RouteTable
+	 *
+	 * @throws SystemException if the table doesn't match the graph.
+	 */
+	public static RouteTable read(CompactGraph graph, ByteBuffer buffer) throws SystemException{
+		int nodeCount = buffer.getInt();
+		int entryCount = buffer.getInt();
+		if(nodeCount != graph.getNodeCount() || entryCount < 0 || entryCount % Math.max(nodeCount, 1) != 0){
+			throw new SystemException("Route table doesn't match the conveyor system.");
+		}
+		int[] rows = new int[nodeCount];
+		double[] travelTimes = new double[entryCount];
+		int[] nextHops = new int[entryCount];
+		buffer.asIntBuffer().get(rows);
+		buffer.position(buffer.position() + nodeCount * 4);
+		buffer.asDoubleBuffer().get(travelTimes);
+		buffer.position(buffer.position() + entryCount * 8);
+		buffer.asIntBuffer().get(nextHops);
+		buffer.position(buffer.position() + entryCount * 4);
+		return new RouteTable(graph, rows, travelTimes, nextHops);
+	}
+
+	/**
+	 * @return true if table has a row for the destination node.
+	 */
+	public boolean hasDestination(int destinationId) {
+		return rows[destinationId] != -1;
+	}
+
+	/**
+	 * Fetches the travel time from source node to destination node.
+	 *
+	 * @return travel time or Double.POSITIVE_INFINITY if destination is not reachable.
+	 */
+	public double getTravelTime(int sourceId, int destinationId) {
+		return travelTimes[rows[destinationId] * graph.getNodeCount() + sourceId];
+	}
+
+	/**
+	 * Fetches the shortest path between source node and a destination node of the table by
+	 * following next hops. Travel time is summed from source to destination, the same order
+	 * in which Dijkstra's algorithm adds it up.
+	 *
+	 * @param sourceId Source node id
+	 *
+	 * @param destinationId Destination node id, must be a destination of this table.
+	 *
+	 * @return NodePath which contains path and travel time information.
+	 */
+	public NodePath getShortestPath(int sourceId, int destinationId){
+		int offset = rows[destinationId] * graph.getNodeCount();
+		List<Node> path = new ArrayList<Node>();
+		if(travelTimes[offset + sourceId] == Double.POSITIVE_INFINITY)
+		//Destination is not reachable from source.
+		{
+			path.add(graph.getNode(destinationId));
+			return new NodePath(path, Double.POSITIVE_INFINITY);
+		}
+
+		double travelTime = 0d;
+		int node = sourceId;
+		path.add(graph.getNode(node));
+		while(node != destinationId){
+			int next = nextHops[offset + node];
+			travelTime += graph.getWeight(node, next);
+			path.add(graph.getNode(next));
+			node = next;
+		}
+		return new NodePath(path, travelTime);
+	}
+
+	public int getDestinationCount() {
+		return travelTimes.length / Math.max(graph.getNodeCount(), 1);
+	}
+
+	/**
+	 * @return memory used by the table in bytes.
+	 */
+	public long getMemory() {
+		return estimateMemory(graph.getNodeCount(), getDestinationCount());
+	}
+
+	public CompactGraph getGraph() {
+		return graph;
+	}
+}
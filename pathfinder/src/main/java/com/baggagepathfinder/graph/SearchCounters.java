@@ -0,0 +1,45 @@
+package com.baggagepathfinder.graph;
+
+/**
+ * The class SearchCounters counts the work of the searches of one pathfinder: searches run,
+ * nodes settled, edges relaxed and queue operations (inserts, decreases and polls). Counters
+ * are plain fields incremented at most once per settled node or queue operation, so they
+ * cost next to nothing next to the queue operation itself.
+ *
+ * A SearchCounters instance belongs to one pathfinder and must not be shared between threads.
+ *
+ * @author abankey
+ */
+public final class SearchCounters {
+
+	long searches;
+	long settledNodes;
+	long relaxedEdges;
+	long queueOperations;
+
+	public long getSearches() {
+		return searches;
+	}
+
+	public long getSettledNodes() {
+		return settledNodes;
+	}
+
+	public long getRelaxedEdges() {
+		return relaxedEdges;
+	}
+
+	public long getQueueOperations() {
+		return queueOperations;
+	}
+
+	/**
+	 * Sets all counters to zero.
+	 */
+	public void reset(){
+		searches = 0;
+		settledNodes = 0;
+		relaxedEdges = 0;
+		queueOperations = 0;
+	}
+}
@@ -0,0 +1,95 @@
+package com.baggagepathfinder.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The class SearchState holds travel times, previous nodes and node queue of one search
+ * direction. It remembers the nodes a search has reached, so reset costs O(reached nodes)
+ * instead of O(node count) and an early exit search stays cheap on large graphs. Settled
+ * nodes and queue operations are counted in the SearchCounters of the pathfinder.
+ *
+ * @author abankey
+ */
+final class SearchState {
+
+	final double[] travelTime;
+	final int[] previous;
+	final IndexedMinHeap queue;
+	private final int[] reached;
+	private int reachedCount;
+	private final SearchCounters counters;
+
+	SearchState(int nodeCount, SearchCounters counters) {
+		this.counters = counters;
+		this.travelTime = new double[nodeCount];
+		this.previous = new int[nodeCount];
+		this.queue = new IndexedMinHeap(nodeCount);
+		this.reached = new int[nodeCount];
+		Arrays.fill(travelTime, Double.POSITIVE_INFINITY);
+		Arrays.fill(previous, -1);
+	}
+
+	/**
+	 * Resets the state and queues the source node.
+	 */
+	void start(int sourceId){
+		for(int i = 0; i < reachedCount; i++){
+			travelTime[reached[i]] = Double.POSITIVE_INFINITY;
+			previous[reached[i]] = -1;
+		}
+		reachedCount = 0;
+		queue.clear();
+		update(sourceId, 0d, -1, 0d);
+	}
+
+	/**
+	 * Settles the queued node with the lowest key.
+	 *
+	 * @return node id
+	 */
+	int poll(){
+		counters.settledNodes++;
+		counters.queueOperations++;
+		return queue.poll();
+	}
+
+	/**
+	 * Lowers the travel time of a node and queues it with given key.
+	 *
+	 * @return true if travel time was lowered.
+	 */
+	boolean update(int id, double time, int previousId, double key){
+		if(time >= travelTime[id]){
+			return false;
+		}
+		if(travelTime[id] == Double.POSITIVE_INFINITY){
+			reached[reachedCount++] = id;
+		}
+		travelTime[id] = time;
+		previous[id] = previousId;
+		queue.insertOrDecrease(id, key);
+		counters.queueOperations++;
+		return true;
+	}
+
+	/**
+	 * @return number of nodes reached by last search.
+	 */
+	int getReachedCount() {
+		return reachedCount;
+	}
+
+	/**
+	 * Builds the path to a node by following previous nodes.
+	 */
+	NodePath getPath(CompactGraph graph, int destinationId){
+		List<Node> path = new ArrayList<Node>();
+		for (int id = destinationId; id != -1; id = previous[id])
+			path.add(graph.getNode(id));
+		Collections.reverse(path);
+		return new NodePath(path, travelTime[destinationId]);
+	}
+}
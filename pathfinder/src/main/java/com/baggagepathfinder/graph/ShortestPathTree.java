@@ -0,0 +1,108 @@
+package com.baggagepathfinder.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The class ShortestPathTree holds the result of a single source search: the travel time 
+ * from source to every node and the previous node on each quickest path. Node ids refer to
+ * a CompactGraph. Node ids never change when nodes are added to the node repository, so a 
+ * tree stays usable with later graphs as long as it is not affected by a topology change, 
+ * see isAffectedByRemoval and isAffectedByAddition. Nodes added after the search are 
+ * unreachable in the tree.
+ *
+ * This is an immutable class.
+ *
+ * @author abankey
+ */
+public final class ShortestPathTree {
+
+	private final int source;
+	private final double[] travelTimes;
+	private final int[] previous;
+
+	ShortestPathTree(int source, double[] travelTimes, int[] previous) {
+		this.source = source;
+		this.travelTimes = travelTimes;
+		this.previous = previous;
+	}
+
+	public int getSource() {
+		return source;
+	}
+
+	/**
+	 * @return travel time from source to node, Double.POSITIVE_INFINITY if node is not reachable.
+	 */
+	public double getTravelTime(int nodeId) {
+		return nodeId >= 0 && nodeId < travelTimes.length ? travelTimes[nodeId] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Builds the path from source to destination node.
+	 *
+	 * @param graph Graph used to resolve node ids.
+	 *
+	 * @param destinationId Destination node id
+	 *
+	 * @return NodePath which contains path and travel time information.
+	 */
+	public NodePath getPath(CompactGraph graph, int destinationId){
+		List<Node> path = new ArrayList<Node>();
+		if(destinationId >= previous.length){
+			path.add(graph.getNode(destinationId));
+			return new NodePath(path, Double.POSITIVE_INFINITY);
+		}
+		for (int id = destinationId; id != -1; id = previous[id])
+			path.add(graph.getNode(id));
+		Collections.reverse(path);
+		return new NodePath(path, travelTimes[destinationId]);
+	}
+
+	/**
+	 * Checks whether removing the segment between two nodes, or making it slower, can change 
+	 * this tree. That is only the case if the segment is part of the tree.
+	 *
+	 * @param nodeA Node id of one end
+	 *
+	 * @param nodeB Node id of other end
+	 *
+	 * @param travelTime Travel time of the segment before the change
+	 *
+	 * @return true if tree must be recomputed.
+	 */
+	public boolean isAffectedByRemoval(int nodeA, int nodeB, double travelTime){
+		return usesSegment(nodeA, nodeB, travelTime) || usesSegment(nodeB, nodeA, travelTime);
+	}
+
+	/**
+	 * Checks whether adding a segment between two nodes, or making it quicker, can change 
+	 * this tree. That is only the case if the segment gives a quicker path to one of its ends.
+	 *
+	 * @param nodeA Node id of one end
+	 *
+	 * @param nodeB Node id of other end
+	 *
+	 * @param travelTime Travel time of the segment after the change
+	 *
+	 * @return true if tree must be recomputed.
+	 */
+	public boolean isAffectedByAddition(int nodeA, int nodeB, double travelTime){
+		double travelTimeA = getTravelTime(nodeA);
+		double travelTimeB = getTravelTime(nodeB);
+		return travelTimeA + travelTime < travelTimeB || travelTimeB + travelTime < travelTimeA;
+	}
+
+	private boolean usesSegment(int from, int to, double travelTime){
+		return to >= 0 && to < previous.length && previous[to] == from 
+				&& travelTimes[from] + travelTime == travelTimes[to];
+	}
+
+	/**
+	 * @return memory used by the tree in bytes.
+	 */
+	public long getMemory() {
+		return (long)travelTimes.length * 12;
+	}
+}
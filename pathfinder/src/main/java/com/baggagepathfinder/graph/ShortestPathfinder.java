@@ -0,0 +1,121 @@
+package com.baggagepathfinder.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The class ShortestPathfinder implements Dijkstra's shortest path
+ * algorithm to find shortest path between two nodes in a bidirectional weighted graph.
+ * Nodes are queued in an IndexedMinHeap, so lowering the travel time of a queued node
+ * costs O(log n). Search stops as soon as the destination node is settled.
+ * 
+ * Reached nodes get a dense heap id, kept in the node, so a search allocates nothing but the
+ * path. Heap and id array are reused by the next search, a ShortestPathfinder must not be
+ * shared between threads.
+ * 
+ * @author abankey
+ */
+public class ShortestPathfinder {
+
+	private final IndexedMinHeap nodeQueue = new IndexedMinHeap(16);
+
+	/**
+	 * Node of each heap id of the current search.
+	 */
+	private Node[] heapNodes = new Node[16];
+	private int heapNodeCount;
+
+	/**
+	 * Fetches the shortest path between two nodes.
+	 * 
+	 * @param source Source Node
+	 * 
+	 * @param destination Destination Node
+	 * 
+	 * @return NodePath which contains path and travel time information.
+	 */
+	public NodePath getShortestPath(Node source, Node destination)
+	{
+		computeQuickestPath(source, destination);
+
+		List<Node> path = new ArrayList<Node>();
+		for (Node node = destination; node != null; node = node.getPrevious())
+			path.add(node);
+		Collections.reverse(path);
+		return new NodePath(path, destination.getMinTravelTime());
+	}
+
+	/**
+	 * Computes the shortest path from source node to every node settled before destination 
+	 * node. Search stops once destination node is settled.
+	 * 
+	 * @param sourceNode Source node
+	 * 
+	 * @param destinationNode Destination node
+	 */
+	private void computeQuickestPath(Node sourceNode, Node destinationNode){
+		//Nodes get a heap id when they are reached for the first time.
+		nodeQueue.clear();
+		Arrays.fill(heapNodes, 0, heapNodeCount, null);
+		heapNodeCount = 0;
+
+		sourceNode.setMinTravelTime(0d);
+		nodeQueue.insertOrDecrease(heapId(sourceNode), 0d);
+
+		while(!nodeQueue.isEmpty()){
+			Node currentNode = heapNodes[nodeQueue.poll()];
+			if(currentNode == destinationNode)
+			//Travel time of destination is final.
+			{
+				break;
+			}
+
+			for(int edge = 0, count = currentNode.getEdgeCount(); edge < count; edge++){
+				Node adjacentNode = currentNode.getTarget(edge);
+				double totalTravelTime = currentNode.getMinTravelTime() + currentNode.getTravelTime(edge);
+
+				if(totalTravelTime < adjacentNode.getMinTravelTime()){
+					adjacentNode.setMinTravelTime(totalTravelTime);
+					adjacentNode.setPrevious(currentNode);
+					nodeQueue.insertOrDecrease(heapId(adjacentNode), totalTravelTime);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fetches the heap id of node, assigns next free id if node doesn't have one in the
+	 * current search yet. An id left over from an earlier search or another pathfinder 
+	 * doesn't point back to the node.
+	 */
+	private int heapId(Node node){
+		int id = node.getSearchId();
+		if(id >= 0 && id < heapNodeCount && heapNodes[id] == node){
+			return id;
+		}
+		if(heapNodeCount == heapNodes.length){
+			heapNodes = Arrays.copyOf(heapNodes, heapNodeCount * 2);
+		}
+		id = heapNodeCount++;
+		heapNodes[id] = node;
+		node.setSearchId(id);
+		return id;
+	}
+
+	/**
+	 * Resets all input nodes. Executing computeQuickestPath api sets two of the Node's
+	 * attributes minTravelTime, previous in the context of Source Node. These attributes 
+	 * should be set to their default values before executing computeQuickestPath api again.
+	 * 
+	 * @param nodeMap NodeMap
+	 */
+	public void resetAllNodes(Map<String, Node> nodeMap){
+		for(Map.Entry<String, Node> entry : nodeMap.entrySet()){
+			entry.getValue().reset();
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.baggagepathfinder.graph;
+
+/**
+ * The class TimeDependentPathfinder implements Dijkstra's shortest path algorithm on travel
+ * times which depend on the time a bag enters each edge, see TravelTimeProfiles. A node is
+ * settled in order of arrival time and an edge is evaluated at the arrival time of its source
+ * node. A bag waits in front of an offline edge until it comes back online, the waiting time
+ * is part of the edge travel time, see TravelTimeProfiles#getArrivalTime. With waiting arrival
+ * times are FIFO, so the search finds the earliest arrival. Search stops once the destination
+ * node is settled.
+ *
+ * @author abankey
+ */
+public class TimeDependentPathfinder {
+
+	private final TravelTimeProfiles profiles;
+	private final CompactGraph graph;
+	private final SearchState state;
+	private final SearchCounters counters = new SearchCounters();
+
+	public TimeDependentPathfinder(TravelTimeProfiles profiles) {
+		this.profiles = profiles;
+		this.graph = profiles.getGraph();
+		this.state = new SearchState(graph.getNodeCount(), counters);
+	}
+
+	/**
+	 * Fetches the quickest path between two nodes for a bag entering the conveyor system at
+	 * given time.
+	 *
+	 * @param sourceId Source node id
+	 *
+	 * @param destinationId Destination node id
+	 *
+	 * @param departureTime Time the bag leaves the source node, minutes since midnight.
+	 *
+	 * @return NodePath with travel time from departure to arrival at destination, including
+	 * waiting for offline edges, Double.POSITIVE_INFINITY if destination is not reachable.
+	 */
+	public NodePath getShortestPath(int sourceId, int destinationId, double departureTime){
+		state.start(sourceId);
+		counters.searches++;
+
+		while(!state.queue.isEmpty()){
+			int currentId = state.poll();
+			if(currentId == destinationId)
+			//Arrival time of destination is final.
+			{
+				break;
+			}
+
+			double arrivalTime = departureTime + state.travelTime[currentId];
+			counters.relaxedEdges += graph.lastEdge(currentId) - graph.firstEdge(currentId);
+			for(int edge = graph.firstEdge(currentId), last = graph.lastEdge(currentId); edge < last; edge++){
+				double totalTravelTime = profiles.getArrivalTime(edge, arrivalTime) - departureTime;
+				state.update(graph.getTarget(edge), totalTravelTime, currentId, totalTravelTime);
+			}
+		}
+		return state.getPath(graph, destinationId);
+	}
+
+	public TravelTimeProfiles getProfiles() {
+		return profiles;
+	}
+
+	public CompactGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return work counters of all searches of this pathfinder.
+	 */
+	public SearchCounters getCounters() {
+		return counters;
+	}
+}
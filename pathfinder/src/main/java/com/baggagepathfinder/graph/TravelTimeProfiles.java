@@ -0,0 +1,261 @@
+package com.baggagepathfinder.graph;
+
+import java.util.Arrays;
+
+import com.baggagepathfinder.utils.TimeOfDay;
+
+/**
+ * The class TravelTimeProfiles gives the edges of a CompactGraph a travel time which depends
+ * on the time of day the bag enters the edge. A profile is a piecewise linear function given
+ * by breakpoints (minute of day, travel time), repeated every day. Between two breakpoints the
+ * travel time is interpolated linearly, after the last breakpoint it runs towards the first
+ * breakpoint of the next day. Two breakpoints of the same minute make a step.
+ *
+ * A travel time of Double.POSITIVE_INFINITY takes the edge offline, for example during a
+ * maintenance window. Any interval touching an offline breakpoint is offline.
+ *
+ * All profiles share three primitive arrays, edges refer to their profile by index, so many
+ * edges with the same schedule cost one int each. Edges without profile keep the travel time
+ * of the graph.
+ *
+ * A bag may wait in front of an edge, for example until a segment comes back online after a
+ * maintenance window. getArrivalTime gives the earliest arrival over all times of entering the
+ * edge at or after the bag arrives in front of it. Waiting makes arrival times FIFO: arriving
+ * in front of an edge later never leaves it earlier, which keeps time dependent Dijkstra exact
+ * across offline intervals too. Online pieces must be FIFO on their own, linear pieces may not
+ * fall faster than one minute per minute and steps between online travel times may only rise,
+ * so a bag never waits for a quicker belt speed.
+ *
+ * @author abankey
+ */
+public final class TravelTimeProfiles {
+
+	private final CompactGraph graph;
+	private final int[] edgeProfiles;
+	private final int[] offsets;
+	private final int[] times;
+	private final double[] travelTimes;
+
+	private TravelTimeProfiles(CompactGraph graph, int[] edgeProfiles, int[] offsets, int[] times, double[] travelTimes) {
+		this.graph = graph;
+		this.edgeProfiles = edgeProfiles;
+		this.offsets = offsets;
+		this.times = times;
+		this.travelTimes = travelTimes;
+	}
+
+	/**
+	 * Fetches the travel time of an edge for a bag entering it at given time.
+	 *
+	 * @param edge Edge index of the graph
+	 *
+	 * @param time Time in minutes since midnight, may exceed one day.
+	 *
+	 * @return travel time, Double.POSITIVE_INFINITY if edge is offline.
+	 */
+	public double getTravelTime(int edge, double time){
+		int profile = edgeProfiles[edge];
+		if(profile == -1){
+			return graph.getWeight(edge);
+		}
+
+		int first = offsets[profile];
+		int last = offsets[profile + 1] - 1;
+		if(first == last){
+			return travelTimes[first];
+		}
+
+		double minute = time % TimeOfDay.MINUTES_PER_DAY;
+		if(minute < 0){
+			minute += TimeOfDay.MINUTES_PER_DAY;
+		}
+
+		//Last breakpoint at or before minute, the last of the previous day if there is none.
+		int low = first;
+		int high = last + 1;
+		while(low < high){
+			int middle = (low + high) >>> 1;
+			if(times[middle] <= minute){
+				low = middle + 1;
+			}else{
+				high = middle;
+			}
+		}
+		int from = low - 1;
+		int to = low;
+		double fromTime = from < first ? times[last] - TimeOfDay.MINUTES_PER_DAY : times[from];
+		double toTime = to > last ? times[first] + TimeOfDay.MINUTES_PER_DAY : times[to];
+		from = from < first ? last : from;
+		to = to > last ? first : to;
+
+		if(travelTimes[from] == Double.POSITIVE_INFINITY || travelTimes[to] == Double.POSITIVE_INFINITY){
+			return Double.POSITIVE_INFINITY;
+		}
+		if(toTime == fromTime){
+			return travelTimes[from];
+		}
+		return travelTimes[from] + (travelTimes[to] - travelTimes[from]) * (minute - fromTime) / (toTime - fromTime);
+	}
+
+	/**
+	 * Fetches the earliest time a bag arrives in front of an edge at given time leaves it,
+	 * waiting in front of the edge while it is offline. The earliest arrival of a linear piece
+	 * is at one of its ends, so the pieces are scanned from time on until a piece starts after
+	 * the best arrival found, over one day at most.
+	 *
+	 * @param edge Edge index of the graph
+	 *
+	 * @param time Time in minutes since midnight, may exceed one day.
+	 *
+	 * @return arrival time at the target node, Double.POSITIVE_INFINITY if edge is offline all day.
+	 */
+	public double getArrivalTime(int edge, double time){
+		int profile = edgeProfiles[edge];
+		if(profile == -1){
+			return time + graph.getWeight(edge);
+		}
+
+		int first = offsets[profile];
+		int last = offsets[profile + 1] - 1;
+		if(first == last){
+			return time + travelTimes[first];
+		}
+
+		double minute = time % TimeOfDay.MINUTES_PER_DAY;
+		if(minute < 0){
+			minute += TimeOfDay.MINUTES_PER_DAY;
+		}
+		//Midnight of the previous day, its last piece may still run at time.
+		double day = time - minute - TimeOfDay.MINUTES_PER_DAY;
+		double best = Double.POSITIVE_INFINITY;
+		for(; day <= time + TimeOfDay.MINUTES_PER_DAY; day += TimeOfDay.MINUTES_PER_DAY){
+			for(int from = first; from <= last; from++){
+				double start = day + times[from];
+				if(start >= best || start >= time + TimeOfDay.MINUTES_PER_DAY){
+					return best;
+				}
+				int to = from == last ? first : from + 1;
+				double end = from == last ? day + times[first] + TimeOfDay.MINUTES_PER_DAY : day + times[to];
+				if(end <= time || end == start || travelTimes[from] == Double.POSITIVE_INFINITY
+						|| travelTimes[to] == Double.POSITIVE_INFINITY)
+				//Piece over before time, a step or offline.
+				{
+					continue;
+				}
+				double slope = (travelTimes[to] - travelTimes[from]) / (end - start);
+				double enter = Math.max(start, time);
+				best = Math.min(best, Math.min(enter + travelTimes[from] + slope * (enter - start), end + travelTimes[to]));
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return true if the edge has a profile.
+	 */
+	public boolean hasProfile(int edge){
+		return edgeProfiles[edge] != -1;
+	}
+
+	public int getProfileCount() {
+		return offsets.length - 1;
+	}
+
+	/**
+	 * @return memory of the profile arrays in bytes, without the graph.
+	 */
+	public long getMemory() {
+		return 4L * edgeProfiles.length + 4L * offsets.length + 4L * times.length + 8L * travelTimes.length;
+	}
+
+	public CompactGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Checks the breakpoints of a profile.
+	 *
+	 * @param times Minutes of day of the breakpoints, ascending, from 0 to TimeOfDay.MINUTES_PER_DAY - 1.
+	 *
+	 * @param travelTimes Travel time at each breakpoint, positive, Double.POSITIVE_INFINITY if offline.
+	 *
+	 * @return error message, null if the profile is valid.
+	 */
+	public static String validate(int[] times, double[] travelTimes){
+		if(times.length == 0 || times.length != travelTimes.length){
+			return "Travel time profile needs one travel time per breakpoint.";
+		}
+		for(int i = 0; i < times.length; i++){
+			if(times[i] < 0 || times[i] >= TimeOfDay.MINUTES_PER_DAY || (i > 0 && times[i] < times[i - 1])){
+				return "Travel time profile breakpoints must be ascending minutes of day.";
+			}
+			if(!(travelTimes[i] > 0)){
+				return "Travel time profile travel times must be positive.";
+			}
+		}
+		for(int i = 0; i < times.length; i++){
+			int next = (i + 1) % times.length;
+			double span = next == 0 ? times[0] + TimeOfDay.MINUTES_PER_DAY - times[i] : times[next] - times[i];
+			if(travelTimes[i] == Double.POSITIVE_INFINITY || travelTimes[next] == Double.POSITIVE_INFINITY
+					|| times.length == 1)
+			//Bags wait in front of an offline edge, see getArrivalTime.
+			{
+				continue;
+			}
+			if(span == 0 ? travelTimes[next] < travelTimes[i] : travelTimes[i] - travelTimes[next] > span){
+				return "Travel time profile must not let a later bag overtake an earlier one.";
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The class Builder collects profiles and assigns them to the edges of a graph.
+	 */
+	public static final class Builder {
+
+		private final CompactGraph graph;
+		private final int[] edgeProfiles;
+		private int[] offsets = new int[]{0};
+		private int[] times = new int[0];
+		private double[] travelTimes = new double[0];
+
+		public Builder(CompactGraph graph) {
+			this.graph = graph;
+			this.edgeProfiles = new int[graph.getEdgeCount()];
+			Arrays.fill(edgeProfiles, -1);
+		}
+
+		/**
+		 * Adds a profile, see validate.
+		 *
+		 * @return profile index
+		 */
+		public int addProfile(int[] profileTimes, double[] profileTravelTimes){
+			int profile = offsets.length - 1;
+			int start = times.length;
+			times = Arrays.copyOf(times, start + profileTimes.length);
+			travelTimes = Arrays.copyOf(travelTimes, start + profileTimes.length);
+			System.arraycopy(profileTimes, 0, times, start, profileTimes.length);
+			System.arraycopy(profileTravelTimes, 0, travelTimes, start, profileTimes.length);
+			offsets = Arrays.copyOf(offsets, offsets.length + 1);
+			offsets[profile + 1] = times.length;
+			return profile;
+		}
+
+		/**
+		 * Assigns a profile to all edges from one node to another.
+		 */
+		public void setProfile(int from, int to, int profile){
+			for(int edge = graph.firstEdge(from), last = graph.lastEdge(from); edge < last; edge++){
+				if(graph.getTarget(edge) == to){
+					edgeProfiles[edge] = profile;
+				}
+			}
+		}
+
+		public TravelTimeProfiles build(){
+			return new TravelTimeProfiles(graph, edgeProfiles, offsets, times, travelTimes);
+		}
+	}
+}
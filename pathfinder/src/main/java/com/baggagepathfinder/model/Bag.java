@@ -3,16 +3,22 @@ package com.baggagepathfinder.model;
 import com.baggagepathfinder.graph.Node;
 
 /**
- * The Bag class represents Baggage data.
+ * The Bag class represents Baggage data. Induction time is the time the bag enters the 
+ * conveyor system in minutes since midnight, NO_INDUCTION_TIME if unknown.
  * 
  * @author abankey
  *
  */
 public class Bag {
+
+	public static final int NO_INDUCTION_TIME = -1;
+
 	private String bagId;
 	private Node sourceNode;
 	private Terminal destinationNode;
 	private String flightId;
+	private int inductionTime = NO_INDUCTION_TIME;
+	private DeadlineStatus deadlineStatus;
 	
 	public Bag(String bagId, Node sourceNode, Terminal destinationNode,
 			String flightId) {
@@ -23,6 +29,13 @@ public class Bag {
 		this.flightId = flightId;
 	}
 
+	public Bag(String bagId, Node sourceNode, Terminal destinationNode,
+			String flightId, int inductionTime) {
+	
+		this(bagId, sourceNode, destinationNode, flightId);
+		this.inductionTime = inductionTime;
+	}
+
 	public String getBagId() {
 		return bagId;
 	}
@@ -55,4 +68,23 @@ public class Bag {
 		this.flightId = flightId;
 	}
 
+	public int getInductionTime() {
+		return inductionTime;
+	}
+
+	public void setInductionTime(int inductionTime) {
+		this.inductionTime = inductionTime;
+	}
+
+	/**
+	 * @return deadline status of last deadline aware routing, null if not routed that way.
+	 */
+	public DeadlineStatus getDeadlineStatus() {
+		return deadlineStatus;
+	}
+
+	public void setDeadlineStatus(DeadlineStatus deadlineStatus) {
+		this.deadlineStatus = deadlineStatus;
+	}
+
 }
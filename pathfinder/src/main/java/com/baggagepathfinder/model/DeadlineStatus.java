@@ -0,0 +1,30 @@
+package com.baggagepathfinder.model;
+
+/**
+ * Whether a bag reaches its departure gate before the flight's cut-off time.
+ * 
+ * @author abankey
+ *
+ */
+public enum DeadlineStatus {
+
+	/**
+	 * Bag arrives at the gate before the at risk margin of the cut-off time.
+	 */
+	ON_TIME,
+
+	/**
+	 * Bag arrives at the gate before the cut-off time, but within the at risk margin.
+	 */
+	AT_RISK,
+
+	/**
+	 * Bag arrives at the gate after the cut-off time or can not reach the gate at all.
+	 */
+	MISSED,
+
+	/**
+	 * Bag has no induction time or is an ARRIVAL bag.
+	 */
+	NO_DEADLINE
+}
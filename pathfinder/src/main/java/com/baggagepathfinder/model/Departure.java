@@ -1,9 +1,8 @@
 package com.baggagepathfinder.model;
 
-import java.util.Date;
-
 /**
- * The Departure class represents Departure schedule data
+ * The Departure class represents Departure schedule data. Departure time is kept as 
+ * minutes since midnight, see TimeOfDay.
  * 
  * @author abankey
  *
@@ -13,10 +12,10 @@ public class Departure {
 	private String flightId;
 	private Terminal terminal;
 	private String destination;
-	private Date departureTime;
+	private int departureTime;
 	
 	public Departure(String flightId, Terminal terminal, String destination,
-			Date departureTime) {
+			int departureTime) {
 		
 		this.flightId = flightId;
 		this.terminal = terminal;
@@ -48,11 +47,14 @@ public class Departure {
 		this.destination = destination;
 	}
 
-	public Date getDepartureTime() {
+	/**
+	 * @return departure time in minutes since midnight
+	 */
+	public int getDepartureTime() {
 		return departureTime;
 	}
 
-	public void setDepartureTime(Date departureTime) {
+	public void setDepartureTime(int departureTime) {
 		this.departureTime = departureTime;
 	}
 
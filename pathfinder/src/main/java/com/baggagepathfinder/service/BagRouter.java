@@ -0,0 +1,315 @@
+package com.baggagepathfinder.service;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.baggagepathfinder.graph.CompactGraph;
+import com.baggagepathfinder.graph.CompactShortestPathfinder;
+import com.baggagepathfinder.graph.NodePath;
+import com.baggagepathfinder.graph.Pathfinder;
+import com.baggagepathfinder.graph.RouteTable;
+import com.baggagepathfinder.graph.SearchCounters;
+import com.baggagepathfinder.graph.ShortestPathTree;
+import com.baggagepathfinder.utils.LatencyHistogram;
+
+/**
+ * The class BagRouter finds the quickest path for a batch of bags. Bags are grouped by
+ * source node, so a single Dijkstra search is executed per distinct source node and all
+ * the destinations of that group are answered from the resulting shortest path tree.
+ * If a RouteTable is supplied, bags heading to a destination of the table are answered 
+ * by a table walk and need no search. If a RouteTreeCache is supplied, shortest path trees
+ * are taken from and added to the cache. If a RouteCache is supplied, routes are looked up
+ * there first and every computed route is added to it.
+ * 
+ * If a point to point pathfinder supplier is given, every remaining bag gets its own search
+ * and shortest path trees are neither computed nor cached.
+ * 
+ * With parallelism above 1 the grouped bags are split into chunks which are routed on one
+ * ForkJoinPool shared by all routers, sized to the number of processors. A batch submits at
+ * most parallelism tasks, each taking the next chunk until none is left, so a router never
+ * routes on more threads than its parallelism. A chunk borrows the search scratch space of
+ * a worker, graph and route table are only read. Workers are kept by the router, so
+ * consecutive batches reuse their scratch space and the tree each worker holds last, and are
+ * freed with the router. A group larger than a chunk is searched once per worker it lands on.
+ * 
+ * If PathfinderMetrics are supplied, the latency of each bag, cache hits and the search work
+ * of the workers are recorded. Latencies go to a histogram of the worker, which is added to
+ * the metrics once per chunk. Without metrics routing takes no timestamps.
+ * 
+ * A BagRouter may route several batches one after the other, but must not be shared 
+ * between threads.
+ *
+ * @author abankey
+ *
+ */
+class BagRouter {
+
+	private static final int MIN_PARALLEL_BAGS = 1024;
+	private static final int MIN_CHUNK_BAGS = 256;
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/**
+	 * ForkJoinPool of all routers. Pool threads are daemon threads, started on demand and
+	 * ended when idle.
+	 */
+	private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+	private final CompactGraph graph;
+	private final RouteTable routeTable;
+	private final RouteTreeCache treeCache;
+	private final RouteCache routeCache;
+	private final Supplier<Pathfinder> pathfinders;
+	private final int parallelism;
+	private final PathfinderMetrics metrics;
+
+	/**
+	 * Workers not routing a chunk at the moment, at most one per thread routing at once.
+	 */
+	private final ConcurrentLinkedQueue<Worker> idleWorkers = new ConcurrentLinkedQueue<Worker>();
+
+	/**
+	 * @param pathfinders Creates a point to point pathfinder for each thread, null to search
+	 * shortest path trees.
+	 * 
+	 * @param metrics Records latencies and search work, null to disable.
+	 */
+	BagRouter(CompactGraph graph, RouteTable routeTable, RouteTreeCache treeCache, RouteCache routeCache,
+			Supplier<Pathfinder> pathfinders, int parallelism, PathfinderMetrics metrics) {
+		this.graph = graph;
+		this.routeTable = routeTable;
+		this.treeCache = treeCache;
+		this.routeCache = routeCache;
+		this.pathfinders = pathfinders;
+		this.parallelism = parallelism;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Finds the quickest path for each bag.
+	 *
+	 * @param sourceIds Source node id of each bag
+	 *
+	 * @param destinationIds Destination node id of each bag
+	 *
+	 * @param count Number of bags
+	 *
+	 * @return NodePath of each bag, in the same order as input bags.
+	 */
+	NodePath[] route(int[] sourceIds, int[] destinationIds, int count){
+		NodePath[] paths = new NodePath[count];
+		int[] order = groupBySource(sourceIds, count, new int[graph.getNodeCount() + 1]);
+
+		if(parallelism <= 1 || count < MIN_PARALLEL_BAGS){
+			routeRange(sourceIds, destinationIds, order, 0, count, paths);
+			return paths;
+		}
+
+		int chunkSize = Math.max(MIN_CHUNK_BAGS, count / (parallelism * CHUNKS_PER_THREAD));
+		int chunkCount = (count + chunkSize - 1) / chunkSize;
+		AtomicInteger nextBag = new AtomicInteger();
+		RouteTask[] tasks = new RouteTask[Math.min(parallelism, chunkCount)];
+		for(int i = 0; i < tasks.length; i++){
+			tasks[i] = new RouteTask(sourceIds, destinationIds, order, count, chunkSize, nextBag, paths);
+			POOL.execute(tasks[i]);
+		}
+		for(RouteTask task : tasks){
+			task.join();
+		}
+		return paths;
+	}
+
+	/**
+	 * Routes bags at positions from to to - 1 of order array with an idle worker, or a new one
+	 * if all workers are busy.
+	 */
+	private void routeRange(int[] sourceIds, int[] destinationIds, int[] order, int from, int to, NodePath[] paths){
+		Worker worker = idleWorkers.poll();
+		if(worker == null){
+			worker = createWorker();
+		}
+		try{
+			routeRange(sourceIds, destinationIds, order, from, to, worker, paths);
+		}finally{
+			idleWorkers.offer(worker);
+		}
+	}
+
+	/**
+	 * Finds the quickest path for bags at positions from to to - 1 of order array. Search
+	 * is only executed if neither route cache, worker nor tree cache hold the route.
+	 */
+	private void routeRange(int[] sourceIds, int[] destinationIds, int[] order, int from, int to,
+			Worker worker, NodePath[] paths){
+		for(int i = from; i < to; i++){
+			int bag = order[i];
+			int source = sourceIds[bag];
+			int destination = destinationIds[bag];
+			if(metrics == null){
+				paths[bag] = route(source, destination, worker);
+				continue;
+			}
+			long start = System.nanoTime();
+			paths[bag] = route(source, destination, worker);
+			worker.latencies.record(System.nanoTime() - start);
+		}
+
+		if(metrics != null){
+			SearchCounters counters = worker.getCounters();
+			metrics.recordSearches(counters);
+			counters.reset();
+			metrics.recordQueries(worker.latencies);
+			worker.latencies.reset();
+		}
+	}
+
+	/**
+	 * Finds the quickest path from source to destination, from route cache or by findPath.
+	 */
+	private NodePath route(int source, int destination, Worker worker){
+		if(routeCache != null){
+			NodePath path = routeCache.get(source, destination);
+			if(metrics != null){
+				metrics.recordRouteCache(path != null);
+			}
+			if(path != null){
+				return path;
+			}
+		}
+		NodePath path = findPath(source, destination, worker);
+		if(routeCache != null){
+			path = routeCache.put(source, destination, path);
+		}
+		return path;
+	}
+
+	/**
+	 * Finds the quickest path from source to destination, by route table walk, point to point
+	 * search or from the shortest path tree of the source.
+	 */
+	private NodePath findPath(int source, int destination, Worker worker){
+		if(routeTable != null && routeTable.hasDestination(destination)){
+			return routeTable.getShortestPath(source, destination);
+		}
+		if(worker.pointToPoint != null){
+			return worker.pointToPoint.getShortestPath(source, destination);
+		}
+		if(worker.source != source){
+			worker.tree = treeCache != null ? treeCache.get(source) : null;
+			if(treeCache != null && metrics != null){
+				metrics.recordTreeCache(worker.tree != null);
+			}
+			if(worker.tree == null){
+				worker.pathFinder.computeQuickestPath(source);
+				if(treeCache != null){
+					worker.tree = worker.pathFinder.getShortestPathTree();
+					treeCache.put(worker.tree);
+				}
+			}
+			worker.source = source;
+		}
+		return worker.tree != null ? worker.tree.getPath(graph, destination) 
+				: worker.pathFinder.getPath(destination);
+	}
+
+	/**
+	 * Sorts bag indexes by source node id (counting sort). Bags of source node <code>s</code> are
+	 * at positions <code>groupOffsets[s]</code> to <code>groupOffsets[s + 1] - 1</code> of returned
+	 * array, in input order.
+	 *
+	 * @param sourceIds Source node id of each bag
+	 *
+	 * @param count Number of bags
+	 *
+	 * @param groupOffsets Array of size node count + 1, filled with group boundaries.
+	 *
+	 * @return bag indexes grouped by source node
+	 */
+	static int[] groupBySource(int[] sourceIds, int count, int[] groupOffsets){
+		for(int i = 0; i < count; i++){
+			groupOffsets[sourceIds[i] + 1]++;
+		}
+		for(int i = 1; i < groupOffsets.length; i++){
+			groupOffsets[i] += groupOffsets[i - 1];
+		}
+
+		int[] next = new int[groupOffsets.length - 1];
+		System.arraycopy(groupOffsets, 0, next, 0, next.length);
+		int[] order = new int[count];
+		for(int i = 0; i < count; i++){
+			order[next[sourceIds[i]]++] = i;
+		}
+		return order;
+	}
+
+	/**
+	 * Creates search scratch space of a worker.
+	 */
+	private Worker createWorker(){
+		LatencyHistogram latencies = metrics != null ? new LatencyHistogram() : null;
+		if(pathfinders != null){
+			return new Worker(null, pathfinders.get(), latencies);
+		}
+		return new Worker(new CompactShortestPathfinder(graph), null, latencies);
+	}
+
+	/**
+	 * Search scratch space, used by one thread at a time. Remembers the source of the shortest path
+	 * tree it currently holds, either in pathFinder or as cached tree. Holds a point to point
+	 * pathfinder instead, if a pathfinder supplier is given. Latencies recorded since the last
+	 * chunk are kept if metrics are enabled.
+	 */
+	private static class Worker {
+		private final CompactShortestPathfinder pathFinder;
+		private final Pathfinder pointToPoint;
+		private int source = -1;
+		private ShortestPathTree tree;
+		private final LatencyHistogram latencies;
+
+		private Worker(CompactShortestPathfinder pathFinder, Pathfinder pointToPoint, LatencyHistogram latencies) {
+			this.pathFinder = pathFinder;
+			this.pointToPoint = pointToPoint;
+			this.latencies = latencies;
+		}
+
+		private SearchCounters getCounters() {
+			return pathFinder != null ? pathFinder.getCounters() : pointToPoint.getCounters();
+		}
+	}
+
+	/**
+	 * Routes chunks of grouped bags, takes the next chunk of the batch until none is left.
+	 */
+	private class RouteTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] sourceIds;
+		private final int[] destinationIds;
+		private final int[] order;
+		private final int count;
+		private final int chunkSize;
+		private final AtomicInteger nextBag;
+		private final NodePath[] paths;
+
+		private RouteTask(int[] sourceIds, int[] destinationIds, int[] order, int count, int chunkSize,
+				AtomicInteger nextBag, NodePath[] paths) {
+			this.sourceIds = sourceIds;
+			this.destinationIds = destinationIds;
+			this.order = order;
+			this.count = count;
+			this.chunkSize = chunkSize;
+			this.nextBag = nextBag;
+			this.paths = paths;
+		}
+
+		@Override
+		protected void compute() {
+			int from;
+			while((from = nextBag.getAndAdd(chunkSize)) < count){
+				routeRange(sourceIds, destinationIds, order, from, Math.min(from + chunkSize, count), paths);
+			}
+		}
+	}
+}
@@ -0,0 +1,252 @@
+package com.baggagepathfinder.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.baggagepathfinder.graph.NodeTable;
+import com.baggagepathfinder.model.Bag;
+import com.baggagepathfinder.model.DeadlineStatus;
+import com.baggagepathfinder.model.Terminal;
+
+/**
+ * The class BagStore is the bag repository of BaggagePathfinderService, kept in columns of
+ * primitive arrays instead of one Bag object per bag. Source and destination are node ids of
+ * the node table of the service, which are also the ids of its compact graph, so bags are
+ * routed straight from the columns. Flight ids are interned into flight indexes.
+ *
+ * A bag id of up to 18 digits is packed into a long together with its digit count, so leading
+ * zeros survive. Any other bag id is kept as UTF-8 bytes in a shared byte array.
+ *
+ * get creates a Bag view of a bag on demand. The view is a copy, changing it doesn't change
+ * the store.
+ *
+ * @author abankey
+ *
+ */
+public final class BagStore {
+
+	private static final int MAX_PACKED_DIGITS = 18;
+	private static final DeadlineStatus[] DEADLINE_STATUSES = DeadlineStatus.values();
+
+	private final NodeTable nodeTable;
+
+	/**
+	 * Packed bag id if idDigits is positive, otherwise offset into idBytes in upper and
+	 * length in lower half.
+	 */
+	private long[] ids = new long[16];
+	private byte[] idDigits = new byte[16];
+	private byte[] idBytes = new byte[64];
+	private int idByteCount;
+
+	private int[] sourceIds = new int[16];
+	private int[] destinationIds = new int[16];
+	private int[] flightIndexes = new int[16];
+	private int[] inductionTimes = new int[16];
+
+	/**
+	 * DeadlineStatus ordinal + 1 of each bag, 0 if not routed by deadline.
+	 */
+	private byte[] deadlineStatuses = new byte[16];
+	private int size;
+
+	private final List<String> flightIds = new ArrayList<String>();
+	private final Map<String, Integer> flightIndex = new HashMap<String, Integer>();
+
+	/**
+	 * @param nodeTable Node table the node ids of the bags refer to.
+	 */
+	BagStore(NodeTable nodeTable) {
+		this.nodeTable = nodeTable;
+	}
+
+	/**
+	 * Appends a bag.
+	 *
+	 * @param bagId Bag id
+	 *
+	 * @param sourceId Node id where bag enters conveyor system.
+	 *
+	 * @param destinationId Node id of destination terminal
+	 *
+	 * @param flightId Flight id or ARRIVAL
+	 *
+	 * @param inductionTime Induction time in minutes since midnight or Bag.NO_INDUCTION_TIME
+	 *
+	 * @return index of the bag.
+	 */
+	int add(String bagId, int sourceId, int destinationId, String flightId, int inductionTime){
+		if(size == sourceIds.length){
+			int capacity = size * 2;
+			ids = Arrays.copyOf(ids, capacity);
+			idDigits = Arrays.copyOf(idDigits, capacity);
+			sourceIds = Arrays.copyOf(sourceIds, capacity);
+			destinationIds = Arrays.copyOf(destinationIds, capacity);
+			flightIndexes = Arrays.copyOf(flightIndexes, capacity);
+			inductionTimes = Arrays.copyOf(inductionTimes, capacity);
+			deadlineStatuses = Arrays.copyOf(deadlineStatuses, capacity);
+		}
+
+		int bag = size++;
+		int digits = bagId.length();
+		long value = 0;
+		for(int i = 0; i < digits && digits <= MAX_PACKED_DIGITS; i++){
+			char c = bagId.charAt(i);
+			if(c < '0' || c > '9'){
+				digits = MAX_PACKED_DIGITS + 1;
+				break;
+			}
+			value = value * 10 + (c - '0');
+		}
+		if(digits > 0 && digits <= MAX_PACKED_DIGITS){
+			ids[bag] = value;
+			idDigits[bag] = (byte)digits;
+		}
+		else
+		//Not a number, keep the bytes.
+		{
+			byte[] bytes = bagId.getBytes(StandardCharsets.UTF_8);
+			if(idBytes.length - idByteCount < bytes.length){
+				idBytes = Arrays.copyOf(idBytes, Math.max(idByteCount + bytes.length, idBytes.length * 2));
+			}
+			System.arraycopy(bytes, 0, idBytes, idByteCount, bytes.length);
+			ids[bag] = ((long)idByteCount << 32) | bytes.length;
+			idDigits[bag] = 0;
+			idByteCount += bytes.length;
+		}
+
+		Integer flight = flightIndex.get(flightId);
+		if(flight == null){
+			flight = flightIds.size();
+			flightIds.add(flightId);
+			flightIndex.put(flightId, flight);
+		}
+		sourceIds[bag] = sourceId;
+		destinationIds[bag] = destinationId;
+		flightIndexes[bag] = flight;
+		inductionTimes[bag] = inductionTime;
+		deadlineStatuses[bag] = 0;
+		return bag;
+	}
+
+	/**
+	 * Sends all bags of a flight to another destination, for example after a gate change.
+	 *
+	 * @return number of bags of the flight.
+	 */
+	int setDestination(String flightId, int destinationId){
+		Integer index = flightIndex.get(flightId);
+		if(index == null){
+			return 0;
+		}
+		int flight = index;
+		int count = 0;
+		for(int bag = 0; bag < size; bag++){
+			if(flightIndexes[bag] == flight){
+				destinationIds[bag] = destinationId;
+				count++;
+			}
+		}
+		return count;
+	}
+
+	void setDeadlineStatus(int bag, DeadlineStatus status){
+		deadlineStatuses[bag] = (byte)(status == null ? 0 : status.ordinal() + 1);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public String getBagId(int bag){
+		if(idDigits[bag] > 0){
+			StringBuilder id = new StringBuilder(MAX_PACKED_DIGITS);
+			appendBagId(bag, id);
+			return id.toString();
+		}
+		return new String(idBytes, (int)(ids[bag] >>> 32), (int)ids[bag], StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Appends the bag id to a buffer, a packed id without creating a String.
+	 */
+	public void appendBagId(int bag, StringBuilder buffer){
+		int digits = idDigits[bag];
+		if(digits == 0){
+			buffer.append(getBagId(bag));
+			return;
+		}
+		int start = buffer.length();
+		buffer.setLength(start + digits);
+		long value = ids[bag];
+		for(int i = start + digits - 1; i >= start; i--){
+			buffer.setCharAt(i, (char)('0' + value % 10));
+			value /= 10;
+		}
+	}
+
+	/**
+	 * @return node id where bag enters conveyor system.
+	 */
+	public int getSourceId(int bag){
+		return sourceIds[bag];
+	}
+
+	/**
+	 * @return node id of destination terminal.
+	 */
+	public int getDestinationId(int bag){
+		return destinationIds[bag];
+	}
+
+	public String getFlightId(int bag){
+		return flightIds.get(flightIndexes[bag]);
+	}
+
+	/**
+	 * @return flight index, dense in order of the first bag of each flight.
+	 */
+	public int getFlightIndex(int bag){
+		return flightIndexes[bag];
+	}
+
+	/**
+	 * @return induction time in minutes since midnight or Bag.NO_INDUCTION_TIME
+	 */
+	public int getInductionTime(int bag){
+		return inductionTimes[bag];
+	}
+
+	/**
+	 * @return deadline status of last deadline aware routing, null if not routed that way.
+	 */
+	public DeadlineStatus getDeadlineStatus(int bag){
+		int status = deadlineStatuses[bag];
+		return status == 0 ? null : DEADLINE_STATUSES[status - 1];
+	}
+
+	/**
+	 * Creates a Bag view of a bag.
+	 *
+	 * @param bag Bag index, 0 to size() - 1.
+	 *
+	 * @return new Bag object with the values of the bag.
+	 */
+	public Bag get(int bag){
+		Bag view = new Bag(getBagId(bag), nodeTable.get(sourceIds[bag]),
+				(Terminal)nodeTable.get(destinationIds[bag]), getFlightId(bag), inductionTimes[bag]);
+		view.setDeadlineStatus(getDeadlineStatus(bag));
+		return view;
+	}
+
+	/**
+	 * @return memory of the store in bytes, without flight ids.
+	 */
+	public long getMemory() {
+		return 9L * ids.length + idBytes.length + 17L * sourceIds.length;
+	}
+}
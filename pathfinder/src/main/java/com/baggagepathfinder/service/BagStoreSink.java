@@ -0,0 +1,28 @@
+package com.baggagepathfinder.service;
+
+import java.io.IOException;
+
+import com.baggagepathfinder.graph.NodePath;
+
+/**
+ * The interface BagStoreSink receives the route of each bag of a bag store by bag index.
+ * Used inside the service where the index of a bag is needed, for example to keep its route.
+ * 
+ * @author abankey
+ *
+ */
+interface BagStoreSink {
+
+	/**
+	 * Receives the route of a bag.
+	 * 
+	 * @param bags Bag store
+	 * 
+	 * @param bag Bag index in bag store
+	 * 
+	 * @param path Quickest path and travel time of the bag.
+	 * 
+	 * @throws IOException if route can not be written.
+	 */
+	void accept(BagStore bags, int bag, NodePath path) throws IOException;
+}
@@ -0,0 +1,322 @@
+package com.baggagepathfinder.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.utils.LatencyHistogram;
+
+/**
+ * The class BagStream routes bags of a live stream of baggage data lines, for example bag
+ * scans arriving on standard input or a socket, against a Topology loaded once.
+ *
+ * A reader thread puts lines into a bounded queue. Once the queue is full the reader blocks,
+ * so the stream isn't read faster than bags are routed and a burst costs at most queue
+ * capacity lines of memory. The routing thread takes micro-batches off the queue: a batch is
+ * routed once it has maxBatchBags lines or maxBatchDelay has passed since its first line,
+ * whichever comes first, and the sink is flushed after each batch. While routing keeps up, a
+ * bag is emitted at most maxBatchDelay plus the routing time of one batch after it was read.
+ * Behind a burst a bag also waits for the bags queued before it, at most queueCapacity bags,
+ * which is why the default capacity is a few batches only.
+ *
+ * Consecutive batches mostly start at the same check-in counters, so the stream keeps the
+ * shortest path trees of recent source nodes, up to MAX_ROUTE_TREE_BYTES.
+ *
+ * An invalid line is skipped and counted, it doesn't stop the stream. The topology may be
+ * replaced while the stream runs, it is used from the next batch on.
+ *
+ * A BagStream runs once. The reader thread of a stopped stream may still be blocked reading
+ * its input, so a further input needs a new BagStream.
+ *
+ * @author abankey
+ *
+ */
+public final class BagStream {
+
+	public static final int DEFAULT_MAX_BATCH_BAGS = 1024;
+	public static final int DEFAULT_QUEUE_CAPACITY = 8 * DEFAULT_MAX_BATCH_BAGS;
+	public static final long DEFAULT_MAX_BATCH_DELAY_MILLIS = 10;
+	public static final long MAX_ROUTE_TREE_BYTES = 64L * 1024 * 1024;
+
+	/**
+	 * Marks the end of the stream in the queue, compared by identity.
+	 */
+	private static final Line END = new Line(null, 0);
+
+	private volatile Topology topology;
+	private final RouteSink sink;
+	private final BlockingQueue<Line> queue;
+	private final int maxBatchBags;
+	private final long maxBatchDelayNanos;
+
+	/**
+	 * Nanoseconds from reading the first line of a batch to flushing the sink, which is the
+	 * latency of the bag of the batch which waited longest.
+	 */
+	private final LatencyHistogram batchLatency = new LatencyHistogram();
+
+	/**
+	 * Router and tree cache of the topology of the last batch, only used by the routing thread.
+	 */
+	private Topology routedTopology;
+	private BagRouter router;
+
+	private volatile long bagCount;
+	private volatile long rejectedCount;
+	private volatile String lastError;
+	private final AtomicBoolean started = new AtomicBoolean();
+	private volatile boolean stopped;
+	private volatile IOException readError;
+
+	/**
+	 * Creates a stream with DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH_BAGS and
+	 * DEFAULT_MAX_BATCH_DELAY_MILLIS.
+	 */
+	public BagStream(Topology topology, RouteSink sink) {
+		this(topology, sink, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH_BAGS, DEFAULT_MAX_BATCH_DELAY_MILLIS);
+	}
+
+	/**
+	 * @param topology Topology bags are routed against
+	 *
+	 * @param sink Receives the route of each bag, in input order.
+	 *
+	 * @param queueCapacity Maximum number of lines read but not yet routed
+	 *
+	 * @param maxBatchBags Maximum number of lines of a batch
+	 *
+	 * @param maxBatchDelayMillis Maximum time a batch waits for more lines
+	 */
+	public BagStream(Topology topology, RouteSink sink, int queueCapacity, int maxBatchBags, long maxBatchDelayMillis) {
+		if(queueCapacity < 1 || maxBatchBags < 1 || maxBatchDelayMillis < 0){
+			throw new IllegalArgumentException("Invalid stream settings " + queueCapacity + " " + maxBatchBags
+					+ " " + maxBatchDelayMillis);
+		}
+		this.topology = topology;
+		this.sink = sink;
+		this.queue = new ArrayBlockingQueue<Line>(queueCapacity);
+		this.maxBatchBags = maxBatchBags;
+		this.maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchDelayMillis);
+	}
+
+	/**
+	 * Routes bags of baggage data lines until the input ends or stop is called. Lines are read
+	 * on a separate daemon thread, bags are routed on the calling thread.
+	 *
+	 * @param input Baggage data lines, see BaggagePathfinderService#handleBaggagedata. Blank
+	 * lines are skipped.
+	 *
+	 * @return number of routed bags.
+	 *
+	 * @throws IOException if input can not be read or sink fails.
+	 *
+	 * @throws InterruptedException if the calling thread is interrupted.
+	 *
+	 * @throws IllegalStateException if the stream was run before.
+	 */
+	public long run(Reader input) throws IOException, InterruptedException{
+		if(!started.compareAndSet(false, true)){
+			throw new IllegalStateException("BagStream can only be run once.");
+		}
+		final BufferedReader lines = input instanceof BufferedReader ? (BufferedReader)input
+				: new BufferedReader(input);
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				read(lines);
+			}
+		}, "bag-stream-reader");
+		reader.setDaemon(true);
+		reader.start();
+
+		String[] batch = new String[maxBatchBags];
+		String[] errors = new String[maxBatchBags];
+		long routed = 0;
+		boolean end = false;
+		try{
+			while(!end && !stopped){
+				Line line = queue.take();
+				long first = line.readTime;
+				int count = 0;
+				while(line != END){
+					batch[count++] = line.text;
+					if(count == maxBatchBags){
+						break;
+					}
+					//Take what is queued, then wait for more until the batch is due.
+					line = queue.poll();
+					if(line == null){
+						long remaining = first + maxBatchDelayNanos - System.nanoTime();
+						line = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+						if(line == null){
+							break;
+						}
+					}
+				}
+				end = line == END;
+
+				if(count > 0){
+					routed += route(batch, count, errors);
+					batchLatency.record(System.nanoTime() - first);
+				}
+			}
+		}finally{
+			//Also if the sink failed, so the reader thread doesn't wait for a full queue forever.
+			stopped = true;
+		}
+		if(readError != null){
+			throw readError;
+		}
+		return routed;
+	}
+
+	/**
+	 * Makes run return once the current batch is routed. The reader thread ends with the input.
+	 */
+	public void stop(){
+		stopped = true;
+		queue.offer(END);
+	}
+
+	/**
+	 * Replaces the topology, bags of the next batch are routed against it.
+	 */
+	public void setTopology(Topology topology){
+		this.topology = topology;
+	}
+
+	public Topology getTopology() {
+		return topology;
+	}
+
+	/**
+	 * @return number of bags routed so far.
+	 */
+	public long getBagCount() {
+		return bagCount;
+	}
+
+	/**
+	 * @return number of invalid lines skipped so far.
+	 */
+	public long getRejectedCount() {
+		return rejectedCount;
+	}
+
+	/**
+	 * @return error message of the last invalid line, null if there was none.
+	 */
+	public String getLastError() {
+		return lastError;
+	}
+
+	/**
+	 * @return latency histogram of batches in nanoseconds, from reading the first line of a
+	 * batch to flushing the sink.
+	 */
+	public LatencyHistogram getBatchLatency() {
+		return batchLatency;
+	}
+
+	private int route(String[] batch, int count, String[] errors) throws IOException{
+		Topology current = topology;
+		if(current != routedTopology)
+		//First batch or topology replaced, trees of the previous topology are dropped.
+		{
+			int nodeCount = Math.max(1, current.getGraph().getNodeCount());
+			int maxTrees = (int)Math.max(1, Math.min(nodeCount, MAX_ROUTE_TREE_BYTES / (12L * nodeCount)));
+			router = current.createRouter(new RouteTreeCache(maxTrees));
+			routedTopology = current;
+		}
+		int routed = current.routeBatch(router, batch, count, sink, errors);
+		for(int i = 0; i < count; i++){
+			if(errors[i] != null){
+				rejectedCount++;
+				lastError = errors[i];
+			}
+			batch[i] = null;
+		}
+		bagCount += routed;
+		sink.flush();
+		return routed;
+	}
+
+	/**
+	 * Puts lines of input into the queue, blocks while the queue is full.
+	 */
+	private void read(BufferedReader input){
+		try{
+			try{
+				String line;
+				while((line = input.readLine()) != null && put(new Line(line, System.nanoTime()))){
+				}
+			}catch(IOException e){
+				readError = e;
+			}
+			put(END);
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Waits until the line is queued or the stream is stopped.
+	 *
+	 * @return false if the stream is stopped.
+	 */
+	private boolean put(Line line) throws InterruptedException{
+		while(!queue.offer(line, 10, TimeUnit.MILLISECONDS)){
+			if(stopped){
+				return false;
+			}
+		}
+		return !stopped;
+	}
+
+	/**
+	 * Routes bags of standard input and writes their routes to standard output.
+	 *
+	 * @param args Input file with conveyor system and departure sections, see
+	 * BaggagePathfinderService#loadTopology. A bag section is ignored.
+	 */
+	public static void main(String[] args) throws IOException, SystemException, InterruptedException{
+		if(args.length < 1){
+			System.err.println("Usage: BagStream <conveyor and departure data file>");
+			return;
+		}
+		BaggagePathfinderService service = new BaggagePathfinderService();
+		try(Reader data = new InputStreamReader(new FileInputStream(args[0]), StandardCharsets.UTF_8)){
+			service.loadTopology(data);
+		}
+
+		RouteWriter writer = new RouteWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+		BagStream stream = new BagStream(service.createTopology(), writer);
+		stream.run(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+		if(stream.getRejectedCount() > 0){
+			System.err.println(stream.getRejectedCount() + " invalid lines skipped, last: " + stream.getLastError());
+		}
+	}
+
+	/**
+	 * Input line and the System.nanoTime it was read at.
+	 */
+	private static final class Line {
+		private final String text;
+		private final long readTime;
+
+		Line(String text, long readTime) {
+			this.text = text;
+			this.readTime = readTime;
+		}
+	}
+}
@@ -0,0 +1,2064 @@
+package com.baggagepathfinder.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.graph.AltPathfinder;
+import com.baggagepathfinder.graph.BidirectionalPathfinder;
+import com.baggagepathfinder.graph.CompactGraph;
+import com.baggagepathfinder.graph.ContractionHierarchy;
+import com.baggagepathfinder.graph.ContractionHierarchyPathfinder;
+import com.baggagepathfinder.graph.EarlyExitPathfinder;
+import com.baggagepathfinder.graph.KShortestPathfinder;
+import com.baggagepathfinder.graph.Edge;
+import com.baggagepathfinder.graph.Landmarks;
+import com.baggagepathfinder.graph.Node;
+import com.baggagepathfinder.graph.NodePath;
+import com.baggagepathfinder.graph.NodeTable;
+import com.baggagepathfinder.graph.Pathfinder;
+import com.baggagepathfinder.graph.RouteTable;
+import com.baggagepathfinder.graph.TimeDependentPathfinder;
+import com.baggagepathfinder.graph.TravelTimeProfiles;
+import com.baggagepathfinder.model.Bag;
+import com.baggagepathfinder.model.BaggageClaim;
+import com.baggagepathfinder.model.DeadlineStatus;
+import com.baggagepathfinder.model.Departure;
+import com.baggagepathfinder.model.NodeFactory;
+import com.baggagepathfinder.model.Terminal;
+import com.baggagepathfinder.utils.FileUtils;
+import com.baggagepathfinder.utils.LatencyHistogram;
+import com.baggagepathfinder.utils.LineTokenizer;
+import com.baggagepathfinder.utils.TimeOfDay;
+
+/**
+ * The class represents BaggageConveyor system. It is responsible for processing input data, 
+ * creates domain objects, identify shortest travel path and time for each baggage.
+ 
+ * @author abankey
+ *
+ */
+public class BaggagePathfinderService {
+
+	public static final String HEADER_CONVEYOR 	= "# Section: Conveyor System";
+	public static final String HEADER_DEPARTURE = "# Section: Departures";
+	public static final String HEADER_BAG 		= "# Section: Bags";
+	public static final String ARRIVAL 			= "ARRIVAL";
+	public static final String BAGGAGE_CLAIM 	= "BaggageClaim";
+	public static final String TIME_FORMAT 		= "HH:mm";
+	public static final String NEW_LINE 		= System.getProperty("line.separator");
+	public static final String SPACE 			= " ";
+	public static final long DEFAULT_MAX_ROUTE_TABLE_BYTES = 256L * 1024 * 1024;
+	public static final int OUTPUT_CHUNK_BAGS 	= 16384;
+	public static final long DEFAULT_MAX_ROUTE_CACHE_BYTES = 64L * 1024 * 1024;
+	public static final int DEFAULT_LANDMARK_COUNT = 8;
+	public static final int DEFAULT_AT_RISK_MARGIN = 10;
+	public static final double DEFAULT_CONGESTION_WINDOW = 60;
+
+	static final int SECTION_NONE 		= 0;
+	static final int SECTION_CONVEYOR 	= 1;
+	static final int SECTION_DEPARTURE 	= 2;
+	static final int SECTION_BAG 		= 3;
+
+	private static final long NO_CHECKSUM = -1;
+
+	/**
+	 *Departure object repository 
+	 */
+	private Map<String, Departure> departureMap;
+
+	/**
+	 * Departures of departure repository by terminal and departure time.
+	 */
+	private DepartureSchedule departureSchedule;
+
+	/**
+	 * Bag repository, node ids of the bags are ids of node repository.
+	 */
+	private BagStore bags;
+
+	/**
+	 * Node object repository, node names interned into dense ids in order of addition.
+	 */
+	private NodeTable nodeTable;
+
+	/**
+	 * Frozen array view of node repository. Built on demand and discarded whenever 
+	 * the node repository changes.
+	 */
+	private CompactGraph compactGraph;
+
+	/**
+	 * Last compact graph built. Node ids never change, so it resolves the ids of all nodes
+	 * which existed when it was built, even after the node repository changed.
+	 */
+	private CompactGraph lastCompactGraph;
+
+	/**
+	 * Shortest path trees of recently routed source nodes, null if disabled.
+	 */
+	private RouteTreeCache routeTreeCache;
+
+	/**
+	 * Routes of recently routed (source node, destination node) pairs, null if disabled.
+	 */
+	private RouteCache routeCache;
+
+	/**
+	 * Incremented on every change of node repository. Routes in route cache are only valid
+	 * for the version they were computed with.
+	 */
+	private long topologyVersion;
+
+	/**
+	 * CRC32 of the conveyor and departure lines of the last load, NO_CHECKSUM if there was
+	 * none or the topology changed since.
+	 */
+	private long topologyChecksum = NO_CHECKSUM;
+
+	/**
+	 * Precomputed routes to all destination terminals. Built on demand if precomputeRoutes 
+	 * is enabled and discarded whenever the node repository changes.
+	 */
+	private RouteTable routeTable;
+
+	/**
+	 * Landmarks of compact graph for SearchStrategy.ALT. Built on demand and discarded
+	 * whenever the node repository changes.
+	 */
+	private Landmarks landmarks;
+
+	/**
+	 * Contraction hierarchy of compact graph for SearchStrategy.CONTRACTION_HIERARCHY. Built 
+	 * on demand and discarded whenever the node repository changes.
+	 */
+	private ContractionHierarchy contractionHierarchy;
+
+	/**
+	 * Breakpoint times and travel times of each distinct travel time profile.
+	 */
+	private List<int[]> profileTimes;
+	private List<double[]> profileTravelTimes;
+
+	/**
+	 * Profile index of each conveyor segment direction with a travel time profile, keyed by
+	 * source and destination name.
+	 */
+	private Map<String, Integer> segmentProfiles;
+
+	/**
+	 * Travel time profiles of compact graph. Built on demand and discarded whenever the node
+	 * repository or a profile changes.
+	 */
+	private TravelTimeProfiles travelTimeProfiles;
+
+	private boolean precomputeRoutes;
+
+	private SearchStrategy searchStrategy = SearchStrategy.DIJKSTRA;
+
+	private int landmarkCount = DEFAULT_LANDMARK_COUNT;
+
+	private long maxRouteTableBytes = DEFAULT_MAX_ROUTE_TABLE_BYTES;
+
+	private int parallelism = 1;
+
+	/**
+	 * Minutes before departure time by which bags must reach the gate.
+	 */
+	private int departureCutoff;
+
+	/**
+	 * Bags reaching the gate less than this many minutes before the cut-off are at risk.
+	 */
+	private int atRiskMargin = DEFAULT_AT_RISK_MARGIN;
+
+	/**
+	 * Minutes a wave of bags is spread over, see routeBagsByCongestion.
+	 */
+	private double congestionWindow = DEFAULT_CONGESTION_WINDOW;
+
+	/**
+	 * Pathfinder of findAlternativeRoutes, keeps the shortest path tree of the last destination.
+	 * Replaced once the compact graph changes.
+	 */
+	private KShortestPathfinder kShortestPathfinder;
+
+	/**
+	 * Parse, routing and search metrics, null if disabled.
+	 */
+	private PathfinderMetrics metrics;
+
+	/**
+	 * Splits input lines into words.
+	 */
+	private final LineTokenizer tokenizer = new LineTokenizer();
+
+	public BaggagePathfinderService() {
+		init();
+	}
+	
+	/**
+	 * Initialize object repositories.
+	 */
+	private void init(){
+		this.departureMap = new HashMap<String, Departure>();
+		this.departureSchedule = new DepartureSchedule();
+		this.nodeTable = new NodeTable();
+		this.bags = new BagStore(nodeTable);
+		this.compactGraph = null;
+		this.lastCompactGraph = null;
+		this.routeTable = null;
+		this.landmarks = null;
+		this.contractionHierarchy = null;
+		this.profileTimes = new ArrayList<int[]>();
+		this.profileTravelTimes = new ArrayList<double[]>();
+		this.segmentProfiles = new HashMap<String, Integer>();
+		this.travelTimeProfiles = null;
+		this.topologyVersion++;
+		this.topologyChecksum = NO_CHECKSUM;
+		if(routeTreeCache != null){
+			routeTreeCache.clear();
+		}
+	}
+
+	/**
+	 * @return read only view of node repository.
+	 */
+	public Map<String, Node> getNodeMap() {
+		return nodeTable.asMap();
+	}
+	
+	/**
+	 * @return read only view of departure repository.
+	 */
+	public Map<String, Departure> getDepartureMap() {
+		return Collections.unmodifiableMap(departureMap);
+	}
+
+	/**
+	 * Finds the next departures of a terminal. The departure schedule repeats every day, 
+	 * departures late in the day are followed by the first departures of the next day.
+	 * 
+	 * @param terminalName Name of departure terminal
+	 * 
+	 * @param fromTime First departure time in minutes since midnight
+	 * 
+	 * @param maxCount Maximum number of departures
+	 * 
+	 * @return at most maxCount departures in order of departure time, empty if the terminal
+	 * has no departures.
+	 */
+	public List<Departure> getUpcomingDepartures(String terminalName, int fromTime, int maxCount){
+		return departureSchedule.getUpcoming(terminalName, fromTime, maxCount);
+	}
+
+	/**
+	 * Discards all bags of bag repository. Nodes and departures are kept.
+	 */
+	public void clearBags(){
+		this.bags = new BagStore(nodeTable);
+	}
+
+	/**
+	 * @return bag repository. Bag ids are in the order bags were added.
+	 */
+	public BagStore getBags() {
+		return bags;
+	}
+	
+	/**
+	 * Fetches the compact graph of current node repository, builds it if required.
+	 * 
+	 * @return CompactGraph
+	 */
+	public CompactGraph getCompactGraph(){
+		if(compactGraph == null){
+			compactGraph = CompactGraph.build(nodeTable.asMap());
+			lastCompactGraph = compactGraph;
+			if(metrics != null){
+				metrics.recordGraph(compactGraph);
+			}
+		}
+		return compactGraph;
+	}
+	
+	/**
+	 * Takes an immutable snapshot of the conveyor system and departures, see Topology. The
+	 * topology routes with the current search strategy, and with the route table if 
+	 * precomputeRoutes is enabled. Later changes of the service don't affect it.
+	 * 
+	 * @return Topology
+	 * 
+	 * @throws SystemException if route table would need more than maxRouteTableBytes memory.
+	 */
+	public Topology createTopology() throws SystemException{
+		CompactGraph graph = getCompactGraph();
+		return new Topology(graph, departureMap, precomputeRoutes ? getRouteTable() : null, getPathfinders(graph));
+	}
+
+	/**
+	 * Fetches the route table from every node to all destination terminals (departure 
+	 * terminals and BaggageClaim), builds it if required.
+	 * 
+	 * @return RouteTable
+	 * 
+	 * @throws SystemException if route table would need more than maxRouteTableBytes memory.
+	 */
+	public RouteTable getRouteTable() throws SystemException{
+		if(routeTable == null){
+			CompactGraph graph = getCompactGraph();
+			int[] destinationIds = getDestinationIds(graph);
+			routeTable = RouteTable.build(graph, destinationIds, maxRouteTableBytes);
+		}
+		return routeTable;
+	}
+	
+	/**
+	 * Estimates the memory required by route table of current system.
+	 * 
+	 * @return memory in bytes
+	 */
+	public long estimateRouteTableMemory(){
+		CompactGraph graph = getCompactGraph();
+		return RouteTable.estimateMemory(graph.getNodeCount(), getDestinationIds(graph).length);
+	}
+	
+	/**
+	 * Collects ids of all terminals a bag can be sent to.
+	 */
+	private int[] getDestinationIds(CompactGraph graph){
+		List<Integer> destinations = new ArrayList<Integer>();
+		boolean[] added = new boolean[graph.getNodeCount()];
+		for(Departure departure : departureMap.values()){
+			int id = graph.getId(departure.getTerminal().getName());
+			if(id != -1 && !added[id]){
+				added[id] = true;
+				destinations.add(id);
+			}
+		}
+		int id = graph.getId(BAGGAGE_CLAIM);
+		if(id != -1 && !added[id] && graph.getNode(id) instanceof BaggageClaim){
+			destinations.add(id);
+		}
+
+		int[] destinationIds = new int[destinations.size()];
+		for(int i = 0; i < destinationIds.length; i++){
+			destinationIds[i] = destinations.get(i);
+		}
+		return destinationIds;
+	}
+
+	/**
+	 * Fetches the landmarks of current node repository for SearchStrategy.ALT, builds them 
+	 * if required.
+	 * 
+	 * @return Landmarks
+	 */
+	public Landmarks getLandmarks(){
+		if(landmarks == null){
+			landmarks = Landmarks.build(getCompactGraph(), landmarkCount);
+		}
+		return landmarks;
+	}
+
+	/**
+	 * Fetches the contraction hierarchy of current node repository for 
+	 * SearchStrategy.CONTRACTION_HIERARCHY, builds it if required. Preprocessing time and 
+	 * index size are reported by the hierarchy.
+	 * 
+	 * @return ContractionHierarchy
+	 */
+	public ContractionHierarchy getContractionHierarchy(){
+		if(contractionHierarchy == null){
+			contractionHierarchy = ContractionHierarchy.build(getCompactGraph());
+		}
+		return contractionHierarchy;
+	}
+
+	/**
+	 * Creates the point to point pathfinder supplier of search strategy.
+	 * 
+	 * @return supplier or null for SearchStrategy.DIJKSTRA
+	 */
+	private Supplier<Pathfinder> getPathfinders(final CompactGraph graph){
+		switch(searchStrategy){
+		case EARLY_EXIT_DIJKSTRA:
+			return new Supplier<Pathfinder>(){
+				@Override
+				public Pathfinder get() {
+					return new EarlyExitPathfinder(graph);
+				}
+			};
+		case BIDIRECTIONAL_DIJKSTRA:
+			return new Supplier<Pathfinder>(){
+				@Override
+				public Pathfinder get() {
+					return new BidirectionalPathfinder(graph);
+				}
+			};
+		case ALT:
+			final Landmarks landmarks = getLandmarks();
+			return new Supplier<Pathfinder>(){
+				@Override
+				public Pathfinder get() {
+					return new AltPathfinder(landmarks);
+				}
+			};
+		case CONTRACTION_HIERARCHY:
+			final ContractionHierarchy hierarchy = getContractionHierarchy();
+			return new Supplier<Pathfinder>(){
+				@Override
+				public Pathfinder get() {
+					return new ContractionHierarchyPathfinder(hierarchy);
+				}
+			};
+		default:
+			return null;
+		}
+	}
+
+	public SearchStrategy getSearchStrategy() {
+		return searchStrategy;
+	}
+
+	/**
+	 * Sets the search used to route bags which are not answered by route table or route cache.
+	 * Default is SearchStrategy.DIJKSTRA.
+	 * 
+	 * @param searchStrategy Search strategy
+	 */
+	public void setSearchStrategy(SearchStrategy searchStrategy) {
+		if(searchStrategy == null){
+			throw new IllegalArgumentException("Search strategy must not be null");
+		}
+		this.searchStrategy = searchStrategy;
+	}
+
+	public int getLandmarkCount() {
+		return landmarkCount;
+	}
+
+	/**
+	 * Sets the number of landmarks of SearchStrategy.ALT. More landmarks give tighter lower
+	 * bounds, each landmark uses 8 bytes per node. 
+	 * 
+	 * @param landmarkCount Number of landmarks
+	 */
+	public void setLandmarkCount(int landmarkCount) {
+		if(landmarkCount < 1){
+			throw new IllegalArgumentException("Landmark count must be positive: " + landmarkCount);
+		}
+		this.landmarkCount = landmarkCount;
+		this.landmarks = null;
+	}
+
+	public boolean isPrecomputeRoutes() {
+		return precomputeRoutes;
+	}
+
+	/**
+	 * Enables or disables precomputed route table. If enabled, each bag lookup walks
+	 * the route table instead of running a graph search.
+	 * 
+	 * @param precomputeRoutes true to enable route table
+	 */
+	public void setPrecomputeRoutes(boolean precomputeRoutes) {
+		this.precomputeRoutes = precomputeRoutes;
+	}
+
+	public long getMaxRouteTableBytes() {
+		return maxRouteTableBytes;
+	}
+
+	/**
+	 * Sets the maximum memory route table may use. Route table is not built above this limit. 
+	 * 
+	 * @param maxRouteTableBytes Memory limit in bytes
+	 */
+	public void setMaxRouteTableBytes(long maxRouteTableBytes) {
+		this.maxRouteTableBytes = maxRouteTableBytes;
+		this.routeTable = null;
+	}
+
+	public int getDepartureCutoff() {
+		return departureCutoff;
+	}
+
+	/**
+	 * @param departureCutoff Minutes before departure time by which bags must reach the gate.
+	 */
+	public void setDepartureCutoff(int departureCutoff) {
+		this.departureCutoff = departureCutoff;
+	}
+
+	public int getAtRiskMargin() {
+		return atRiskMargin;
+	}
+
+	/**
+	 * @param atRiskMargin Bags reaching the gate less than this many minutes before the 
+	 * cut-off are at risk.
+	 */
+	public void setAtRiskMargin(int atRiskMargin) {
+		this.atRiskMargin = atRiskMargin;
+	}
+
+	public double getCongestionWindow() {
+		return congestionWindow;
+	}
+
+	/**
+	 * @param congestionWindow Minutes a wave of bags is spread over. A segment is saturated 
+	 * once it carries capacity times congestionWindow bags.
+	 */
+	public void setCongestionWindow(double congestionWindow) {
+		this.congestionWindow = congestionWindow;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Sets the number of threads used to route bags. Default is 1, bags are routed 
+	 * on the calling thread.
+	 * 
+	 * @param parallelism Number of threads
+	 */
+	public void setParallelism(int parallelism) {
+		if(parallelism < 1){
+			throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Enables caching of shortest path trees per source node. Cached trees survive topology 
+	 * changes made through addSegment, removeSegment and updateSegmentTravelTime unless the 
+	 * change affects them, so after a change only the affected routes are recomputed. Each tree
+	 * uses 12 bytes per node.
+	 * 
+	 * @param maxTrees Maximum number of cached trees, 0 disables the cache.
+	 */
+	public void setCachedRouteTrees(int maxTrees) {
+		this.routeTreeCache = maxTrees > 0 ? new RouteTreeCache(maxTrees) : null;
+	}
+
+	/**
+	 * @return number of cached shortest path trees.
+	 */
+	public int getCachedRouteTreeCount() {
+		return routeTreeCache != null ? routeTreeCache.size() : 0;
+	}
+
+	/**
+	 * Enables caching of routes per (source node, destination node). Bags sharing check-in counter 
+	 * and gate get the cached route without any search. All cached routes are dropped on a change
+	 * of the conveyor system. 
+	 * 
+	 * @param maxRoutes Maximum number of cached routes, 0 disables the cache.
+	 * 
+	 * @param maxBytes Maximum estimated memory of cached routes.
+	 */
+	public void setCachedRoutes(int maxRoutes, long maxBytes) {
+		this.routeCache = maxRoutes > 0 ? new RouteCache(maxRoutes, maxBytes) : null;
+	}
+
+	/**
+	 * Same as setCachedRoutes(int, long) with DEFAULT_MAX_ROUTE_CACHE_BYTES memory limit.
+	 */
+	public void setCachedRoutes(int maxRoutes) {
+		setCachedRoutes(maxRoutes, DEFAULT_MAX_ROUTE_CACHE_BYTES);
+	}
+
+	/**
+	 * @return number of cached routes.
+	 */
+	public int getCachedRouteCount() {
+		return routeCache != null ? routeCache.size() : 0;
+	}
+
+	/**
+	 * @return estimated memory of cached routes in bytes.
+	 */
+	public long getCachedRouteMemory() {
+		return routeCache != null ? routeCache.getMemory() : 0;
+	}
+
+	/**
+	 * @return number of bags routed from route cache.
+	 */
+	public long getRouteCacheHits() {
+		return routeCache != null ? routeCache.getHits() : 0;
+	}
+
+	/**
+	 * @return number of bags whose route was not in route cache.
+	 */
+	public long getRouteCacheMisses() {
+		return routeCache != null ? routeCache.getMisses() : 0;
+	}
+
+	/**
+	 * Enables collection of parse times, graph size, bag routing latencies, search work and
+	 * cache hit rates, see PathfinderMetrics. Enabling starts with fresh metrics, disabling
+	 * drops them. Disabled metrics cost no timestamps and no shared counters.
+	 * 
+	 * @param enabled true to collect metrics
+	 */
+	public void setMetricsEnabled(boolean enabled) {
+		if(!enabled){
+			this.metrics = null;
+			return;
+		}
+		this.metrics = new PathfinderMetrics();
+		if(compactGraph != null){
+			metrics.recordGraph(compactGraph);
+		}
+	}
+
+	/**
+	 * @return metrics, null if disabled.
+	 */
+	public PathfinderMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @return topology version, incremented on every change of the conveyor system.
+	 */
+	public long getTopologyVersion() {
+		return topologyVersion;
+	}
+	
+	/**
+	 * It handles input data, initializes the system. For each bag, identifies shortest travel path and travel time 
+	 * required. 
+	 * 
+	 * @param input Input data
+	 * 
+	 * @return travel path and time for each bag.
+	 * 
+	 * Example output: 
+	 * 
+	 * BagId Path                 TravelTime
+	 * -------------------------------------
+	 * 001   A1 A4 A5 A6          11.0
+	 * 003   A5 A6 A7              6.0
+	 * 
+	 * 
+	 * @throws SystemException
+	 */
+	public String findShortestPath(String input) throws SystemException{
+		//Initialize system
+		handelData(input);
+		
+		return routeBags();
+	}
+	
+	/**
+	 * Same as findShortestPath(String), but reads input data line by line, see loadData(Reader).
+	 * 
+	 * @param input Input data
+	 * 
+	 * @return travel path and time for each bag.
+	 * 
+	 * @throws IOException if input can not be read.
+	 * 
+	 * @throws SystemException
+	 */
+	public String findShortestPath(Reader input) throws IOException, SystemException{
+		//Initialize system
+		loadData(input);
+		
+		return routeBags();
+	}
+	
+	/**
+	 * Same as findShortestPath(Reader), but writes the route of each bag to output as soon
+	 * as it is computed instead of collecting all routes in memory.
+	 * 
+	 * @param input Input data
+	 * 
+	 * @param output Output, travel path and time for each bag. Output is flushed but not closed.
+	 * 
+	 * @throws IOException if input can not be read or output can not be written.
+	 * 
+	 * @throws SystemException
+	 */
+	public void findShortestPath(Reader input, Writer output) throws IOException, SystemException{
+		findShortestPath(input, new RouteWriter(output));
+		output.flush();
+	}
+	
+	/**
+	 * Same as findShortestPath(Reader, Writer), output is written UTF-8 encoded.
+	 */
+	public void findShortestPath(Reader input, OutputStream output) throws IOException, SystemException{
+		findShortestPath(input, new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+	}
+	
+	/**
+	 * Same as findShortestPath(Reader), but hands the route of each bag to sink as soon as 
+	 * it is computed.
+	 * 
+	 * @param input Input data
+	 * 
+	 * @param sink Receives the route of each bag, in input order.
+	 * 
+	 * @throws IOException if input can not be read or sink fails.
+	 * 
+	 * @throws SystemException
+	 */
+	public void findShortestPath(Reader input, RouteSink sink) throws IOException, SystemException{
+		//Initialize system
+		loadData(input);
+		
+		routeBags(sink);
+	}
+	
+	/**
+	 * Routes a new batch of bags against the current conveyor system and departures. Unlike
+	 * findShortestPath, nodes and departures are kept, only the bag repository is replaced.
+	 * 
+	 * @param baggageData Baggage data, see handleBaggagedata for expected data format.
+	 * 
+	 * @return travel path and time for each bag.
+	 * 
+	 * @throws SystemException
+	 */
+	public String routeNewBags(String baggageData) throws SystemException{
+		clearBags();
+		handleBaggagedata(baggageData);
+		
+		return routeBags();
+	}
+	
+	/**
+	 * Identifies shortest travel path and travel time of each bag in bag repository.
+	 * 
+	 * @return travel path and time for each bag.
+	 * 
+	 * @throws SystemException
+	 */
+	private String routeBags() throws SystemException{
+		StringWriter output = new StringWriter();
+		try{
+			routeBags(new RouteWriter(output));
+		}catch(IOException e){
+			throw new SystemException(e.getMessage());
+		}
+		return output.toString();
+	}
+	
+	/**
+	 * Identifies shortest travel path and travel time of each bag in bag repository. Bags are 
+	 * routed in chunks of OUTPUT_CHUNK_BAGS, so only the routes of one chunk are held in memory.
+	 * 
+	 * @param sink Receives the route of each bag, in bag repository order.
+	 * 
+	 * @throws IOException if sink fails.
+	 * 
+	 * @throws SystemException
+	 */
+	public void routeBags(RouteSink sink) throws IOException, SystemException{
+		routeBags(null, storeSink(sink));
+	}
+
+	/**
+	 * Identifies shortest travel path and travel time of each bag in bag repository, in
+	 * earliest deadline first order, and compares the arrival time at the gate with the 
+	 * cut-off time of the flight. Deadline of a bag is departure time of its flight minus
+	 * departureCutoff, arrival time is induction time plus travel time. Bags without 
+	 * deadline are routed last, in bag repository order.
+	 * 
+	 * Times are minutes of day. A departure more than 12 hours before the induction time 
+	 * is taken to be on the next day, so bags inducted shortly before midnight can reach
+	 * flights shortly after.
+	 * 
+	 * @param sink Receives the route of each bag in earliest deadline first order. The 
+	 * deadline status of the bag is set before.
+	 * 
+	 * @return number of bags of each deadline status, at risk and missed bags.
+	 * 
+	 * @throws IOException if sink fails.
+	 * 
+	 * @throws SystemException
+	 */
+	public DeadlineReport routeBagsByDeadline(final RouteSink sink) throws IOException, SystemException{
+		//Sort keys are deadline in upper and bag index in lower half, so equal deadlines 
+		//keep bag repository order.
+		long[] keys = new long[bags.size()];
+		final int[] deadlines = new int[bags.size()];
+		for(int i = 0; i < keys.length; i++){
+			deadlines[i] = getDeadline(i);
+			keys[i] = ((long)deadlines[i] << 32) | i;
+		}
+		Arrays.sort(keys);
+
+		int[] order = new int[keys.length];
+		for(int i = 0; i < keys.length; i++){
+			order[i] = (int)keys[i];
+		}
+
+		final DeadlineReport report = new DeadlineReport();
+		routeBags(order, new BagStoreSink() {
+			@Override
+			public void accept(BagStore bags, int bag, NodePath path) throws IOException {
+				DeadlineStatus status = getDeadlineStatus(bags.getInductionTime(bag), path, deadlines[bag]);
+				bags.setDeadlineStatus(bag, status);
+				report.add(bags, bag, status);
+				sink.accept(bags, bag, path);
+			}
+		});
+		return report;
+	}
+
+	/**
+	 * Identifies a travel path of each bag in bag repository which respects the throughput
+	 * limits of conveyor segments. Bags are split into rounds in bag repository order, each 
+	 * round is routed on segment costs grown by the load of all earlier rounds (BPR function,
+	 * see CongestionRouter), so bags of later rounds avoid saturated segments. One round 
+	 * routes all bags along their quickest path, as many rounds as bags assign bags one by one.
+	 * 
+	 * @param sink Receives the route of each bag, in bag repository order. Travel time is the
+	 * plain travel time of the route.
+	 * 
+	 * @param rounds Number of rounds
+	 * 
+	 * @return number of bags assigned to each edge, indexed by edge of getCompactGraph().
+	 * 
+	 * @throws IOException if sink fails.
+	 * 
+	 * @throws SystemException
+	 */
+	public int[] routeBagsByCongestion(RouteSink sink, int rounds) throws IOException, SystemException{
+		CompactGraph graph = getCompactGraph();
+		int[] sourceIds = new int[bags.size()];
+		int[] destinationIds = new int[bags.size()];
+		for(int i = 0; i < bags.size(); i++){
+			sourceIds[i] = bags.getSourceId(i);
+			destinationIds[i] = bags.getDestinationId(i);
+		}
+
+		CongestionRouter router = new CongestionRouter(graph, congestionWindow, sourceIds, destinationIds, bags.size());
+		rounds = Math.max(1, Math.min(rounds, bags.size()));
+		for(int round = 0; round < rounds; round++){
+			int from = (int)((long)bags.size() * round / rounds);
+			int to = (int)((long)bags.size() * (round + 1) / rounds);
+			NodePath[] nodePaths = router.route(from, to);
+			for(int i = from; i < to; i++){
+				sink.accept(bags, i, nodePaths[i - from]);
+			}
+		}
+		return router.getLoads();
+	}
+
+	/**
+	 * Identifies shortest travel path and travel time of each bag in bag repository, like
+	 * routeBags, and keeps the routes so bags can be rerouted when a conveyor segment or node
+	 * goes out of service, see InFlightRoutes. Later changes of the service don't affect the
+	 * returned routes.
+	 *
+	 * @param sink Receives the route of each bag, in bag repository order.
+	 *
+	 * @return routes of all bags, bag index is the position in bag repository.
+	 *
+	 * @throws IOException if sink fails.
+	 *
+	 * @throws SystemException
+	 */
+	public InFlightRoutes routeInFlightBags(final RouteSink sink) throws IOException, SystemException{
+		final InFlightRoutes routes = new InFlightRoutes(getCompactGraph(), bags, parallelism);
+		routeBags(null, new BagStoreSink() {
+			@Override
+			public void accept(BagStore bags, int bag, NodePath path) throws IOException {
+				routes.setPath(bag, path);
+				sink.accept(bags, bag, path);
+			}
+		});
+		return routes;
+	}
+
+	/**
+	 * @return deadline of a bag in minutes since midnight of its induction day, 
+	 * Integer.MAX_VALUE if bag has no deadline.
+	 */
+	private int getDeadline(int bag){
+		Departure departure = departureMap.get(bags.getFlightId(bag));
+		int inductionTime = bags.getInductionTime(bag);
+		if(departure == null || inductionTime == Bag.NO_INDUCTION_TIME){
+			return Integer.MAX_VALUE;
+		}
+		int halfDay = TimeOfDay.MINUTES_PER_DAY / 2;
+		int slack = departure.getDepartureTime() - departureCutoff - inductionTime;
+		slack = Math.floorMod(slack + halfDay, TimeOfDay.MINUTES_PER_DAY) - halfDay;
+		return inductionTime + slack;
+	}
+
+	private DeadlineStatus getDeadlineStatus(int inductionTime, NodePath path, int deadline){
+		if(deadline == Integer.MAX_VALUE){
+			return DeadlineStatus.NO_DEADLINE;
+		}
+		double arrivalTime = inductionTime + path.getTravelTime();
+		if(arrivalTime > deadline){
+			return DeadlineStatus.MISSED;
+		}
+		return arrivalTime > deadline - atRiskMargin ? DeadlineStatus.AT_RISK : DeadlineStatus.ON_TIME;
+	}
+
+	/**
+	 * @return sink passing routes of bag store bags on to a RouteSink.
+	 */
+	private static BagStoreSink storeSink(final RouteSink sink){
+		return new BagStoreSink() {
+			@Override
+			public void accept(BagStore bags, int bag, NodePath path) throws IOException {
+				sink.accept(bags, bag, path);
+			}
+		};
+	}
+
+	/**
+	 * Identifies shortest travel path and travel time of bags of bag repository, see routeBags.
+	 * 
+	 * @param order Bag indexes in routing order, null for bag repository order.
+	 */
+	private void routeBags(int[] order, BagStoreSink sink) throws IOException, SystemException{
+		CompactGraph graph = getCompactGraph();
+		RouteTable table = precomputeRoutes ? getRouteTable() : null;
+		if(routeCache != null){
+			routeCache.validate(topologyVersion);
+		}
+		BagRouter router = new BagRouter(graph, table, routeTreeCache, routeCache, getPathfinders(graph), parallelism, 
+				metrics);
+		
+		BagStore bags = this.bags;
+		int bagCount = bags.size();
+		int chunkSize = Math.min(OUTPUT_CHUNK_BAGS, bagCount);
+		int[] sourceIds = new int[chunkSize];
+		int[] destinationIds = new int[chunkSize];
+		for(int from = 0; from < bagCount; from += chunkSize){
+			int count = Math.min(chunkSize, bagCount - from);
+			for(int i = 0; i < count; i++){
+				int bag = order != null ? order[from + i] : from + i;
+				sourceIds[i] = bags.getSourceId(bag);
+				destinationIds[i] = bags.getDestinationId(bag);
+			}
+			
+			//Find path of all bags of the chunk, one search per distinct source node.
+			NodePath[] nodePaths = router.route(sourceIds, destinationIds, count);
+			for(int i = 0; i < count; i++){
+				sink.accept(bags, order != null ? order[from + i] : from + i, nodePaths[i]);
+			}
+		}
+	}
+	
+	/**
+	 * Extracts different sections from input data and calls respective apis to create domain objects.
+	 * 
+	 * @param data for conveyor system graph topology, departure schedule, baggage information.
+	 * 
+	 * Expected data format:
+	 * 
+	 * # Section: Conveyor System
+	 * <conveyor data>
+	 * # Section: Departures
+	 * <departure data>
+	 * # Section: Bags
+	 * <baggage data>
+	 * 
+	 * @throws SystemException
+	 */
+	private void handelData(String data) throws SystemException{
+		
+		if(data == null || data.isEmpty())
+		//No data, throw exception.
+		{
+			//Initialize object repositories.
+			init();
+			throw new SystemException("Invalid input data");
+		}
+
+		try{
+			loadData(new StringReader(data));
+		}catch(IOException e){
+			throw new SystemException("Invalid input data");
+		}
+	}
+
+	/**
+	 * Reads input data line by line and creates domain objects section by section. The input 
+	 * is never held in memory as a whole. Existing object repositories are discarded. If the
+	 * conveyor and departure sections are the same as in the last load and the topology wasn't
+	 * changed since, the loaded topology is kept together with its compact graph, route table,
+	 * search indexes, cached routes and shortest path trees, only bags are replaced.
+	 * 
+	 * @param reader Input data, see handelData for expected data format.
+	 * 
+	 * @throws IOException if input can not be read.
+	 * 
+	 * @throws SystemException if any section is missing, sections are not in order or 
+	 * 			section data is invalid.
+	 */
+	public void loadData(Reader reader) throws IOException, SystemException{
+		if(load(reader, SECTION_BAG) != SECTION_BAG)
+		//If any section is missing, throw exception.
+		{
+			throw new SystemException("Invalid input data");
+		}
+	}
+
+	/**
+	 * Reads conveyor system and departures of input data, see loadData(Reader). Reading stops
+	 * at the bag section header, the bag section is optional and never read. Existing object
+	 * repositories are discarded, an unchanged topology is kept like in loadData(Reader).
+	 * 
+	 * @param reader Input data with conveyor and departure sections.
+	 * 
+	 * @throws IOException if input can not be read.
+	 * 
+	 * @throws SystemException if conveyor or departure section is missing, sections are not
+	 * 			in order or section data is invalid.
+	 */
+	public void loadTopology(Reader reader) throws IOException, SystemException{
+		if(load(reader, SECTION_DEPARTURE) != SECTION_DEPARTURE)
+		//Conveyor or departure section missing.
+		{
+			throw new SystemException("Invalid input data");
+		}
+	}
+
+	/**
+	 * Reads sections of input data up to lastSection, stops at the header of the section after.
+	 * 
+	 * @return last section read, SECTION_NONE if input has no section header.
+	 */
+	private int load(Reader reader, int lastSection) throws IOException, SystemException{
+		
+		//Keep loaded topology aside, it is restored if conveyor and departure lines are unchanged.
+		LoadedTopology previous = topologyChecksum != NO_CHECKSUM ? new LoadedTopology() : null;
+		
+		//Initialize object repositories.
+		init();
+		
+		BufferedReader input = reader instanceof BufferedReader ? (BufferedReader)reader : new BufferedReader(reader);
+		CRC32 checksum = new CRC32();
+		int section = SECTION_NONE;
+		int blankLines = 0;
+		int sectionLines = 0;
+		long sectionStart = metrics != null ? System.nanoTime() : 0;
+		String line;
+		while((line = input.readLine()) != null){
+			if(section < SECTION_BAG && !line.startsWith(HEADER_BAG)){
+				checksum.update(line.getBytes(StandardCharsets.UTF_8));
+				checksum.update('\n');
+			}
+			if(line.startsWith(HEADER_CONVEYOR) || line.startsWith(HEADER_DEPARTURE) || line.startsWith(HEADER_BAG)){
+				int nextSection = line.startsWith(HEADER_CONVEYOR) ? SECTION_CONVEYOR 
+						: line.startsWith(HEADER_DEPARTURE) ? SECTION_DEPARTURE : SECTION_BAG;
+				if(nextSection != section + 1)
+				//Sections are expected in order conveyor, departures, bags.
+				{
+					throw new SystemException("Invalid input data");
+				}
+				if(metrics != null){
+					sectionStart = recordParse(section, sectionStart, sectionLines);
+				}
+				if(nextSection == SECTION_BAG){
+					topologyLoaded(checksum.getValue(), previous);
+				}
+				if(nextSection > lastSection){
+					return section;
+				}
+				section = nextSection;
+				blankLines = 0;
+				sectionLines = 0;
+			}
+			else if(section != SECTION_NONE){
+				blankLines = handleLine(section, line, blankLines);
+				sectionLines++;
+			}
+		}
+		if(metrics != null){
+			recordParse(section, sectionStart, sectionLines);
+		}
+		if(section == SECTION_DEPARTURE){
+			topologyLoaded(checksum.getValue(), previous);
+		}
+		return section;
+	}
+
+	/**
+	 * Restores the previously loaded topology if the conveyor and departure lines just read
+	 * are the same, so compact graph, route table, search indexes and caches stay valid. Bags
+	 * aren't read yet at this point.
+	 * 
+	 * @param checksum CRC32 of conveyor and departure lines
+	 * 
+	 * @param previous Topology before this load, null if it was changed after its load.
+	 */
+	private void topologyLoaded(long checksum, LoadedTopology previous){
+		if(previous != null && previous.checksum == checksum){
+			previous.restore();
+		}
+		topologyChecksum = checksum;
+	}
+
+	/**
+	 * Reads input data from stream, see loadData(Reader).
+	 * 
+	 * @param input Input data stream, UTF-8 encoded.
+	 */
+	public void loadData(InputStream input) throws IOException, SystemException{
+		loadData(new InputStreamReader(input, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Reads input data from file, see loadData(Reader).
+	 * 
+	 * @param path Input data file, UTF-8 encoded.
+	 */
+	public void loadData(Path path) throws IOException, SystemException{
+		BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+		try{
+			loadData(reader);
+		}finally{
+			reader.close();
+		}
+	}
+
+	/**
+	 * Loads input data from a memory mapped file. Sections are tokenized directly from 
+	 * the mapped bytes, see MappedInputLoader. Existing object repositories are discarded.
+	 * 
+	 * @param path Input data file, UTF-8 encoded, at most 2 GB.
+	 * 
+	 * @throws IOException if file can not be read.
+	 * 
+	 * @throws SystemException if any section is missing, sections are not in order or 
+	 * 			section data is invalid.
+	 */
+	public void loadMappedData(Path path) throws IOException, SystemException{
+		
+		//Initialize object repositories.
+		init();
+		
+		new MappedInputLoader(this).load(path);
+	}
+
+	/**
+	 * Loads input data like loadMappedData, but takes conveyor system and departures from a
+	 * snapshot if the snapshot is valid for the input data file. Only the bag section is parsed 
+	 * then. Otherwise the whole file is parsed and the snapshot is written for the next start.
+	 * 
+	 * @param path Input data file, UTF-8 encoded, at most 2 GB.
+	 * 
+	 * @param snapshot Snapshot file, see writeSnapshot.
+	 * 
+	 * @return true if conveyor system and departures were taken from snapshot.
+	 * 
+	 * @throws IOException if a file can not be read or written.
+	 * 
+	 * @throws SystemException if any section is missing, sections are not in order or 
+	 * 			section data is invalid.
+	 */
+	public boolean loadData(Path path, Path snapshot) throws IOException, SystemException{
+		long bagSectionOffset = TopologySnapshot.load(this, snapshot, path);
+		if(bagSectionOffset != -1){
+			new MappedInputLoader(this).loadBags(path, bagSectionOffset);
+			return true;
+		}
+
+		loadMappedData(path);
+		writeSnapshot(snapshot, path);
+		return false;
+	}
+
+	/**
+	 * Writes a binary snapshot of conveyor system and departures, and of the route table if
+	 * precomputeRoutes is enabled. Snapshot records a checksum of the conveyor and departure 
+	 * sections of the input data file, so loading it fails once they change.
+	 * 
+	 * @param snapshot Snapshot file
+	 * 
+	 * @param path Input data file the system was loaded from
+	 * 
+	 * @throws IOException if a file can not be read or written.
+	 * 
+	 * @throws SystemException if route table would need more than maxRouteTableBytes memory.
+	 */
+	public void writeSnapshot(Path snapshot, Path path) throws IOException, SystemException{
+		TopologySnapshot.write(this, snapshot, path, precomputeRoutes ? getRouteTable() : null);
+	}
+
+	/**
+	 * Loads conveyor system and departures from a binary snapshot, see writeSnapshot. 
+	 * Existing object repositories are discarded if the snapshot is loaded.
+	 * 
+	 * @param snapshot Snapshot file
+	 * 
+	 * @param path Input data file the snapshot was written for
+	 * 
+	 * @return false if snapshot doesn't exist, has another format version, is damaged or
+	 * the conveyor or departure section of input data file changed.
+	 * 
+	 * @throws IOException if a file can not be read.
+	 * 
+	 * @throws SystemException if snapshot data is invalid.
+	 */
+	public boolean loadSnapshot(Path snapshot, Path path) throws IOException, SystemException{
+		return TopologySnapshot.load(this, snapshot, path) != -1;
+	}
+
+	/**
+	 * Replaces object repositories by the nodes of a compact graph, node ids are kept.
+	 */
+	void restore(CompactGraph graph){
+		init();
+		for(int id = 0; id < graph.getNodeCount(); id++){
+			nodeTable.add(graph.getNode(id));
+		}
+		this.compactGraph = graph;
+		this.lastCompactGraph = graph;
+		if(metrics != null){
+			metrics.recordGraph(graph);
+		}
+	}
+
+	/**
+	 * Sets the route table of current compact graph.
+	 */
+	void restore(RouteTable routeTable){
+		this.routeTable = routeTable;
+	}
+
+	/**
+	 * Handles all lines of a single section.
+	 * 
+	 * @param data Section data
+	 * 
+	 * @param section Section
+	 * 
+	 * @throws SystemException if section data is invalid.
+	 */
+	private void handleSection(String data, int section) throws SystemException{
+		BufferedReader input = new BufferedReader(new StringReader(data));
+		int blankLines = 0;
+		int lines = 0;
+		long start = metrics != null ? System.nanoTime() : 0;
+		try{
+			String line;
+			while((line = input.readLine()) != null){
+				blankLines = handleLine(section, line, blankLines);
+				lines++;
+			}
+		}catch(IOException e){
+			throw new SystemException("Invalid input data");
+		}
+		if(metrics != null){
+			recordParse(section, start, lines);
+		}
+	}
+
+	/**
+	 * Records parse time of the lines of a section, if metrics are enabled.
+	 * 
+	 * @param section Section, nothing is recorded for SECTION_NONE or a section without lines.
+	 * 
+	 * @param start System.nanoTime() when the section started
+	 * 
+	 * @param lines Number of lines of the section
+	 * 
+	 * @return System.nanoTime() now, start of the next section.
+	 */
+	long recordParse(int section, long start, int lines){
+		long now = System.nanoTime();
+		if(metrics != null && section != SECTION_NONE && lines > 0){
+			metrics.recordParse(section, now - start, lines);
+		}
+		return now;
+	}
+
+	/**
+	 * Handles a single line of a section. Blank lines are only accepted at the end of a section.
+	 * 
+	 * @param section Section of line
+	 * 
+	 * @param line Line
+	 * 
+	 * @param blankLines Number of blank lines seen since last data line of the section.
+	 * 
+	 * @return number of blank lines seen since last data line of the section.
+	 * 
+	 * @throws SystemException if line is invalid.
+	 */
+	private int handleLine(int section, String line, int blankLines) throws SystemException{
+		if(line.isEmpty()){
+			return blankLines + 1;
+		}
+		if(blankLines > 0)
+		//Blank line in the middle of a section.
+		{
+			throw new SystemException("Invalid input data");
+		}
+
+		if(section == SECTION_CONVEYOR){
+			handleConveyorLine(line);
+		}
+		else if(section == SECTION_DEPARTURE){
+			handleDepartureLine(line);
+		}
+		else{
+			handleBagLine(line);
+		}
+		return 0;
+	}
+
+	/**
+	 * Adds source node and destination node in system node graph. Also adjusts the links
+	 * between source and destination nodes.
+	 * 
+	 * @param sourceNode Source Node
+	 * 
+	 * @param destinationNode Destination Node
+	 * 
+	 * @param travelTime Travel time between source and destination nodes
+	 */
+	public void addNode(Node sourceNode, Node destinationNode, double travelTime){
+		addNode(sourceNode, destinationNode, travelTime, Edge.UNLIMITED_CAPACITY);
+	}
+
+	/**
+	 * Adds source node and destination node in system node graph. Also adjusts the links
+	 * between source and destination nodes.
+	 * 
+	 * @param sourceNode Source Node
+	 * 
+	 * @param destinationNode Destination Node
+	 * 
+	 * @param travelTime Travel time between source and destination nodes
+	 * 
+	 * @param capacity Throughput limit in bags per minute, Edge.UNLIMITED_CAPACITY if unlimited.
+	 */
+	public void addNode(Node sourceNode, Node destinationNode, double travelTime, double capacity){
+		//Put the nodes in node repository, existing nodes of the same name are kept.
+		sourceNode = nodeTable.get(nodeTable.add(sourceNode));
+		destinationNode = nodeTable.get(nodeTable.add(destinationNode));
+
+		//Set the connector between source and destination nodes.
+		sourceNode.addEdge(destinationNode, travelTime, capacity);
+		destinationNode.addEdge(sourceNode, travelTime, capacity);
+		
+		//Node repository changed, compact graph and route table are stale now.
+		topologyChanged();
+		if(routeTreeCache != null && !routeTreeCache.isEmpty()){
+			routeTreeCache.invalidateAddition(nodeId(sourceNode), nodeId(destinationNode), travelTime);
+		}
+	}
+
+	/**
+	 * Adds a conveyor segment between two nodes. Nodes are created if they don't exist yet.
+	 * 
+	 * @param sourceName Name of one end
+	 * 
+	 * @param destinationName Name of other end
+	 * 
+	 * @param travelTime Travel time of the segment
+	 */
+	public void addSegment(String sourceName, String destinationName, double travelTime){
+		addSegment(sourceName, destinationName, travelTime, Edge.UNLIMITED_CAPACITY);
+	}
+
+	/**
+	 * Adds a conveyor segment with limited throughput between two nodes. Nodes are created 
+	 * if they don't exist yet.
+	 * 
+	 * @param sourceName Name of one end
+	 * 
+	 * @param destinationName Name of other end
+	 * 
+	 * @param travelTime Travel time of the segment
+	 * 
+	 * @param capacity Throughput limit in bags per minute, Edge.UNLIMITED_CAPACITY if unlimited.
+	 */
+	public void addSegment(String sourceName, String destinationName, double travelTime, double capacity){
+		addNode(NodeFactory.createNode(sourceName), NodeFactory.createNode(destinationName), travelTime, capacity);
+	}
+
+	/**
+	 * Removes all conveyor segments between two nodes. The nodes stay in node repository.
+	 * 
+	 * @param sourceName Name of one end
+	 * 
+	 * @param destinationName Name of other end
+	 * 
+	 * @throws SystemException if there is no segment between the nodes.
+	 */
+	public void removeSegment(String sourceName, String destinationName) throws SystemException{
+		Node sourceNode = nodeTable.get(sourceName);
+		Node destinationNode = nodeTable.get(destinationName);
+		double travelTime = Double.POSITIVE_INFINITY;
+		if(sourceNode != null && destinationNode != null){
+			travelTime = Math.min(removeEdges(sourceNode, destinationNode), removeEdges(destinationNode, sourceNode));
+		}
+		if(travelTime == Double.POSITIVE_INFINITY)
+		//No segment between the nodes. Invalid data.
+		{
+			throw new SystemException("Conveyor segment " + sourceName + " " + destinationName + " doesn't exist.");
+		}
+
+		segmentProfiles.remove(sourceName + SPACE + destinationName);
+		segmentProfiles.remove(destinationName + SPACE + sourceName);
+		topologyChanged();
+		if(routeTreeCache != null && !routeTreeCache.isEmpty()){
+			routeTreeCache.invalidateRemoval(nodeId(sourceNode), nodeId(destinationNode), travelTime);
+		}
+	}
+
+	/**
+	 * Replaces all conveyor segments between two nodes by a single segment with new travel time.
+	 * 
+	 * @param sourceName Name of one end
+	 * 
+	 * @param destinationName Name of other end
+	 * 
+	 * @param travelTime New travel time
+	 * 
+	 * @throws SystemException if there is no segment between the nodes.
+	 */
+	public void updateSegmentTravelTime(String sourceName, String destinationName, double travelTime) throws SystemException{
+		//Keep capacity of the quickest segment and travel time profile.
+		double capacity = Edge.UNLIMITED_CAPACITY;
+		double quickest = Double.POSITIVE_INFINITY;
+		Node sourceNode = nodeTable.get(sourceName);
+		for(int edge = 0, count = sourceNode != null ? sourceNode.getEdgeCount() : 0; edge < count; edge++){
+			if(sourceNode.getTarget(edge).getName().equals(destinationName) && sourceNode.getTravelTime(edge) < quickest){
+				quickest = sourceNode.getTravelTime(edge);
+				capacity = sourceNode.getCapacity(edge);
+			}
+		}
+		Integer forwardProfile = segmentProfiles.get(sourceName + SPACE + destinationName);
+		Integer backwardProfile = segmentProfiles.get(destinationName + SPACE + sourceName);
+		removeSegment(sourceName, destinationName);
+		addNode(sourceNode, nodeTable.get(destinationName), travelTime, capacity);
+		if(forwardProfile != null){
+			segmentProfiles.put(sourceName + SPACE + destinationName, forwardProfile);
+		}
+		if(backwardProfile != null){
+			segmentProfiles.put(destinationName + SPACE + sourceName, backwardProfile);
+		}
+	}
+
+	/**
+	 * Gives a conveyor segment a travel time which depends on the time of day, for example
+	 * for belt speed changes or maintenance windows. The profile applies to both directions
+	 * and replaces the travel time of the segment in time dependent searches only, see
+	 * TravelTimeProfiles. Segments sharing the same profile share its storage.
+	 * 
+	 * @param sourceName Name of one end
+	 * 
+	 * @param destinationName Name of other end
+	 * 
+	 * @param times Minutes of day of the breakpoints, ascending.
+	 * 
+	 * @param travelTimes Travel time at each breakpoint, Double.POSITIVE_INFINITY while the
+	 * segment is offline.
+	 * 
+	 * @throws SystemException if there is no segment between the nodes or profile is invalid.
+	 */
+	public void setTravelTimeProfile(String sourceName, String destinationName, int[] times, double[] travelTimes) 
+			throws SystemException{
+		if(!hasSegment(sourceName, destinationName))
+		//No segment between the nodes. Invalid data.
+		{
+			throw new SystemException("Conveyor segment " + sourceName + " " + destinationName + " doesn't exist.");
+		}
+		String error = TravelTimeProfiles.validate(times, travelTimes);
+		if(error != null){
+			throw new SystemException(error);
+		}
+
+		int profile = 0;
+		while(profile < profileTimes.size() && !(Arrays.equals(profileTimes.get(profile), times) 
+				&& Arrays.equals(profileTravelTimes.get(profile), travelTimes))){
+			profile++;
+		}
+		if(profile == profileTimes.size()){
+			profileTimes.add(times.clone());
+			profileTravelTimes.add(travelTimes.clone());
+		}
+		segmentProfiles.put(sourceName + SPACE + destinationName, profile);
+		segmentProfiles.put(destinationName + SPACE + sourceName, profile);
+		travelTimeProfiles = null;
+	}
+
+	/**
+	 * Removes the travel time profile of a conveyor segment, if it has one.
+	 * 
+	 * @param sourceName Name of one end
+	 * 
+	 * @param destinationName Name of other end
+	 */
+	public void clearTravelTimeProfile(String sourceName, String destinationName){
+		segmentProfiles.remove(sourceName + SPACE + destinationName);
+		segmentProfiles.remove(destinationName + SPACE + sourceName);
+		travelTimeProfiles = null;
+	}
+
+	/**
+	 * Fetches the travel time profiles of current compact graph, builds them if required.
+	 * 
+	 * @return TravelTimeProfiles
+	 */
+	public TravelTimeProfiles getTravelTimeProfiles(){
+		if(travelTimeProfiles == null){
+			CompactGraph graph = getCompactGraph();
+			TravelTimeProfiles.Builder builder = new TravelTimeProfiles.Builder(graph);
+			for(int profile = 0; profile < profileTimes.size(); profile++){
+				builder.addProfile(profileTimes.get(profile), profileTravelTimes.get(profile));
+			}
+			for(Map.Entry<String, Integer> entry : segmentProfiles.entrySet()){
+				int separator = entry.getKey().indexOf(SPACE);
+				builder.setProfile(graph.getId(entry.getKey().substring(0, separator)), 
+						graph.getId(entry.getKey().substring(separator + 1)), entry.getValue());
+			}
+			travelTimeProfiles = builder.build();
+		}
+		return travelTimeProfiles;
+	}
+
+	/**
+	 * Identifies the quickest path between two nodes for a bag entering the conveyor system
+	 * at given time, using the travel time profiles of the segments.
+	 * 
+	 * @param sourceName Name of source node
+	 * 
+	 * @param destinationName Name of destination node
+	 * 
+	 * @param departureTime Time the bag enters the conveyor system, minutes since midnight.
+	 * 
+	 * @return path and travel time, Double.POSITIVE_INFINITY if destination is not reachable.
+	 * 
+	 * @throws SystemException if a node doesn't exist.
+	 */
+	public NodePath findTimeDependentPath(String sourceName, String destinationName, int departureTime) throws SystemException{
+		CompactGraph graph = getCompactGraph();
+		int sourceId = graph.getId(sourceName);
+		int destinationId = graph.getId(destinationName);
+		if(sourceId == -1 || destinationId == -1){
+			throw new SystemException("Terminal/Checkin/BaggageClaim of name " 
+					+ (sourceId == -1 ? sourceName : destinationName) + " doesn't exist.");
+		}
+		return new TimeDependentPathfinder(getTravelTimeProfiles()).getShortestPath(sourceId, destinationId, departureTime);
+	}
+
+	/**
+	 * Identifies alternative routes between two nodes, for example to reroute bags around a 
+	 * jammed segment without a fresh search. Routes are loopless and ranked by travel time, 
+	 * each shares at most maxOverlap of its travel time with any quicker route, see 
+	 * KShortestPathfinder.
+	 * 
+	 * @param sourceName Name of source node
+	 * 
+	 * @param destinationName Name of destination node
+	 * 
+	 * @param k Maximum number of routes, at least 1.
+	 * 
+	 * @param maxOverlap Maximum shared fraction of travel time from 0 to 1, 1 for plain k 
+	 * quickest routes.
+	 * 
+	 * @return at most k routes, quickest first, empty if destination is not reachable.
+	 * 
+	 * @throws SystemException if a node doesn't exist.
+	 */
+	public List<NodePath> findAlternativeRoutes(String sourceName, String destinationName, int k, double maxOverlap) 
+			throws SystemException{
+		if(k < 1 || !(maxOverlap >= 0 && maxOverlap <= 1)){
+			throw new IllegalArgumentException("Invalid route count " + k + " or overlap " + maxOverlap);
+		}
+		CompactGraph graph = getCompactGraph();
+		int sourceId = graph.getId(sourceName);
+		int destinationId = graph.getId(destinationName);
+		if(sourceId == -1 || destinationId == -1){
+			throw new SystemException("Terminal/Checkin/BaggageClaim of name " 
+					+ (sourceId == -1 ? sourceName : destinationName) + " doesn't exist.");
+		}
+		if(kShortestPathfinder == null || kShortestPathfinder.getGraph() != graph){
+			kShortestPathfinder = new KShortestPathfinder(graph);
+		}
+		return kShortestPathfinder.getShortestPaths(sourceId, destinationId, k, maxOverlap);
+	}
+
+	/**
+	 * Identifies the quickest path of each bag in bag repository at its induction time, using
+	 * the travel time profiles of the segments. Bags without induction time are routed on 
+	 * plain travel times.
+	 * 
+	 * @param sink Receives the route of each bag, in bag repository order.
+	 * 
+	 * @throws IOException if sink fails.
+	 */
+	public void routeBagsTimeDependent(RouteSink sink) throws IOException{
+		CompactGraph graph = getCompactGraph();
+		TimeDependentPathfinder timeDependentPathfinder = new TimeDependentPathfinder(getTravelTimeProfiles());
+		EarlyExitPathfinder staticPathfinder = new EarlyExitPathfinder(graph);
+		LatencyHistogram latencies = metrics != null ? new LatencyHistogram() : null;
+		for(int bag = 0; bag < bags.size(); bag++){
+			long start = metrics != null ? System.nanoTime() : 0;
+			int sourceId = bags.getSourceId(bag);
+			int destinationId = bags.getDestinationId(bag);
+			int inductionTime = bags.getInductionTime(bag);
+			NodePath path = inductionTime == Bag.NO_INDUCTION_TIME 
+					? staticPathfinder.getShortestPath(sourceId, destinationId)
+					: timeDependentPathfinder.getShortestPath(sourceId, destinationId, inductionTime);
+			if(metrics != null){
+				latencies.record(System.nanoTime() - start);
+			}
+			sink.accept(bags, bag, path);
+		}
+		if(metrics != null){
+			metrics.recordQueries(latencies);
+			metrics.recordSearches(timeDependentPathfinder.getCounters());
+			metrics.recordSearches(staticPathfinder.getCounters());
+		}
+	}
+
+	/**
+	 * @return true if there is a conveyor segment between two nodes.
+	 */
+	private boolean hasSegment(String sourceName, String destinationName){
+		Node sourceNode = nodeTable.get(sourceName);
+		for(int edge = 0, count = sourceNode != null ? sourceNode.getEdgeCount() : 0; edge < count; edge++){
+			if(sourceNode.getTarget(edge).getName().equals(destinationName)){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes all edges from a node to target node.
+	 * 
+	 * @return travel time of quickest removed edge, Double.POSITIVE_INFINITY if there was none.
+	 */
+	private static double removeEdges(Node node, Node targetNode){
+		double travelTime = Double.POSITIVE_INFINITY;
+		for(int edge = node.getEdgeCount() - 1; edge >= 0; edge--){
+			if(node.getTarget(edge) == targetNode){
+				travelTime = Math.min(travelTime, node.getTravelTime(edge));
+				node.removeEdge(edge);
+			}
+		}
+		return travelTime;
+	}
+
+	/**
+	 * Discards compact graph, route table and search indexes after a topology change, cached routes become
+	 * stale with the new topology version.
+	 */
+	private void topologyChanged(){
+		compactGraph = null;
+		routeTable = null;
+		landmarks = null;
+		contractionHierarchy = null;
+		travelTimeProfiles = null;
+		topologyVersion++;
+		topologyChecksum = NO_CHECKSUM;
+	}
+
+	/**
+	 * Resolves node id for route tree invalidation.
+	 * 
+	 * @return node id, -1 if node was added after the last compact graph was built.
+	 */
+	private int nodeId(Node node){
+		return lastCompactGraph != null ? lastCompactGraph.getId(node.getName()) : -1;
+	}
+	
+	/**
+	 * Creates conveyor system nodes. 
+	 * 
+	 * Expected data format:
+	 * 
+	 * Terminal1 Terminal2 TravelTime [Capacity]
+	 * -------------------------------
+	 * A1        A2        4
+	 * A2        A5        3          40
+	 * 
+	 * Capacity is optional, throughput limit of the segment in bags per minute. It is only 
+	 * used by routeBagsByCongestion.
+	 * 
+	 * @param 	conveyorData conveyor data string
+	 * 
+	 * @throws 	SystemException 
+	 * 		   	Either if any of the line in input data contains less then 3 parameters 
+	 * 			or if 3rd parameter of any of the line is not numeric
+	 * 			or if 4th parameter is not a positive number.
+	 */
+	public void handleConveyorData(String conveyorData) throws SystemException{
+		if(conveyorData == null || conveyorData.isEmpty()){
+			return;
+		}
+
+		handleSection(conveyorData, SECTION_CONVEYOR);
+	}
+
+	/**
+	 * Creates the nodes of a single conveyor data line.
+	 */
+	private void handleConveyorLine(String line) throws SystemException{
+		if(tokenizer.tokenize(line) < 3)
+		//Each line is expected to have three parameters.
+		{
+			throw new SystemException("Invalid input data");
+		}
+
+		//Create source and destination nodes, unless they exist.
+		Node sourceNode = internNode(0);
+		Node destinationNode = internNode(1);
+		try{
+			double travelTime = Double.parseDouble(tokenizer.get(2));
+			double capacity = tokenizer.getCount() > 3 ? Double.parseDouble(tokenizer.get(3)) : Edge.UNLIMITED_CAPACITY;
+			if(!(capacity > 0)){
+				throw new SystemException("Invalid input data");
+			}
+
+			//Add nodes in node repository.
+			addNode(sourceNode, destinationNode, travelTime, capacity);
+		}catch(NumberFormatException n){
+			throw new SystemException("Invalid input data");
+		}
+	}
+
+	/**
+	 * Fetches the node named by a word of the current line, creates it if it doesn't exist.
+	 * Existing nodes are found without creating the word String.
+	 */
+	private Node internNode(int index){
+		int id = nodeTable.getId(tokenizer.getLine(), tokenizer.getStart(index), tokenizer.getEnd(index));
+		return id != -1 ? nodeTable.get(id) : NodeFactory.createNode(tokenizer.get(index));
+	}
+
+	/**
+	 * Creates departure objects. It does various validations on input data. It should be called 
+	 * after see com.baggagepathfinder.service#handleConveyorData
+	 * 
+	 * Expected data format:
+	 * 
+	 * FlightId Terminal Destination Time
+	 * ----------------------------------
+	 * UA10     A1       JFK         8:00
+	 * UA12     A4       LAX         9:00
+	 * 
+	 * @param 	departureData Departure data string
+	 * 
+	 * @throws 	SystemException
+	 * 			Either if any of the line in input data contains less than 4 parameters 
+	 * 			or if the 2nd parameter line does not represents valid node.
+	 */
+	public void handleDepartureData(String departureData) throws SystemException{
+		if(departureData == null || departureData.isEmpty()){
+			return;
+		}
+
+		handleSection(departureData, SECTION_DEPARTURE);
+	}
+
+	/**
+	 * Creates the departure object of a single departure data line.
+	 */
+	private void handleDepartureLine(String line) throws SystemException{
+		if(tokenizer.tokenize(line) < 4)
+		//Each line is expected to have four parameters
+		{
+			throw new SystemException("Invalid input data");
+		}
+
+		String flightId = tokenizer.get(0);
+		String nodeName = tokenizer.get(1);
+		String destination = tokenizer.get(2);
+		int departureTime = tokenizer.getTime(3);
+		if(departureTime == -1){
+			throw new SystemException("Invalid departure time " + tokenizer.get(3));
+		}
+		
+		addDeparture(flightId, nodeName, destination, departureTime);
+	}
+
+	/**
+	 * Creates departure object and puts it in departure repository. An existing departure
+	 * with the same flight id is replaced, bags of the flight in bag repository follow a 
+	 * gate change.
+	 * 
+	 * @param flightId Flight id
+	 * 
+	 * @param nodeName Name of departure terminal
+	 * 
+	 * @param destination Flight destination
+	 * 
+	 * @param hour Departure hour, 0 to 23
+	 * 
+	 * @param minute Departure minute
+	 * 
+	 * @throws SystemException if departure terminal doesn't exist or time is invalid.
+	 */
+	public void addDeparture(String flightId, String nodeName, String destination, int hour, int minute) throws SystemException{
+		if(hour < 0 || hour > 23 || minute < 0 || minute > 59){
+			throw new SystemException("Invalid departure time " + hour + ":" + minute);
+		}
+		addDeparture(flightId, nodeName, destination, hour * 60 + minute);
+	}
+
+	/**
+	 * Creates departure object and puts it in departure repository, see 
+	 * addDeparture(String, String, String, int, int).
+	 * 
+	 * @param departureTime Departure time in minutes since midnight
+	 */
+	void addDeparture(String flightId, String nodeName, String destination, int departureTime) throws SystemException{
+		Terminal terminal;
+		Node node = nodeTable.get(nodeName);
+		if(node == null)
+		//Terminal node doesn't exist. Invalid data.
+		{
+			throw new SystemException("Terminal " + nodeName + " doesn't exist.");
+		}
+		else{
+			if(!(node instanceof Terminal))
+			//Node exists but not an instance of Terminal. Invalid data.
+			{
+				throw new SystemException("Terminal " + nodeName + " doesn't exist.");
+			}
+
+			terminal = (Terminal)node;
+		}
+		
+		//Create departure object and put it in object repository.
+		Departure departure = new Departure(flightId, terminal, destination, departureTime);
+		Departure previous = this.departureMap.put(flightId, departure);
+		if(previous != null){
+			departureSchedule.remove(previous);
+		}
+		departureSchedule.add(departure);
+		topologyChecksum = NO_CHECKSUM;
+		
+		//Gate change, send bags of the flight to new terminal.
+		if(previous != null && previous.getTerminal() != terminal){
+			bags.setDestination(flightId, nodeTable.getId(terminal.getName()));
+		}
+		
+		//Route table has no row for a new departure terminal.
+		if(routeTable != null && !routeTable.hasDestination(compactGraph.getId(terminal.getName()))){
+			routeTable = null;
+		}
+	}
+
+	/**
+	 * Creates bag objects and put them in bag repository. It performs validation
+	 * on input data. If flight id is ARRIVAL, it looks for BaggageClaim terminal in the node
+	 * repository and set BaggageClaim as destination terminal.
+	 * 
+	 * Expected data format:
+	 * 
+	 * BagId Terminal FlightId [InductionTime]
+	 * --------------------------------
+	 * 0001  A1       UA10
+	 * 0002  A2       UA12     08:40
+	 * 
+	 * Induction time is optional and only used by routeBagsByDeadline.
+	 * 
+	 * @param 	baggageData BaggageData string.
+	 * 
+	 * @throws 	SystemException if
+	 * 			1. Any of the input line contains less than 3 parameters.
+	 * 			2. If source Departure Terminal/BaggageClaim/Checkin counter doesn't exist.
+	 * 			3. If input contains ARRIVAL and no BaggageClain terminal exist in system.
+	 * 			4. Invalid flight id.
+	 */
+	public void handleBaggagedata(String baggageData) throws SystemException{
+		if(baggageData == null || baggageData.isEmpty()){
+			return;
+		}
+
+		handleSection(baggageData, SECTION_BAG);
+	}
+
+	/**
+	 * Creates the bag object of a single baggage data line.
+	 */
+	private void handleBagLine(String line) throws SystemException{
+		if(tokenizer.tokenize(line) < 3)
+		//Each line is expected to have three parameters.
+		{
+			throw new SystemException("Invalid input data");
+		}
+
+		int inductionTime = Bag.NO_INDUCTION_TIME;
+		if(tokenizer.getCount() > 3){
+			inductionTime = tokenizer.getTime(3);
+			if(inductionTime == -1){
+				throw new SystemException("Invalid induction time " + tokenizer.get(3));
+			}
+		}
+		int nodeId = nodeTable.getId(tokenizer.getLine(), tokenizer.getStart(1), tokenizer.getEnd(1));
+		if(nodeId == -1)
+		//Unknown node, let addBag report it.
+		{
+			addBag(tokenizer.get(0), tokenizer.get(1), tokenizer.get(2), inductionTime);
+			return;
+		}
+		addBag(tokenizer.get(0), nodeTable.get(nodeId), tokenizer.get(2), inductionTime);
+	}
+
+	/**
+	 * Creates bag object and puts it in bag repository.
+	 * 
+	 * @param bagId Bag id
+	 * 
+	 * @param nodeName Name of the node where bag enters conveyor system.
+	 * 
+	 * @param flightId Flight id or ARRIVAL
+	 * 
+	 * @param inductionTime Induction time in minutes since midnight or Bag.NO_INDUCTION_TIME
+	 * 
+	 * @throws SystemException if node or flight doesn't exist.
+	 */
+	void addBag(String bagId, String nodeName, String flightId, int inductionTime) throws SystemException{
+		Node node = nodeTable.get(nodeName);
+		if(node == null)
+		//Node with nodeName doesn't exist in the conveyor system. Invalid data.
+		{
+			throw new SystemException("Terminal/Checkin/BaggageClaim of name " + nodeName + " doesn't exist.");
+		}
+
+		addBag(bagId, node, flightId, inductionTime);
+	}
+
+	/**
+	 * Creates bag object and puts it in bag repository.
+	 * 
+	 * @param bagId Bag id
+	 * 
+	 * @param sourceNode Node of node repository where bag enters conveyor system.
+	 * 
+	 * @param flightId Flight id or ARRIVAL
+	 * 
+	 * @param inductionTime Induction time in minutes since midnight or Bag.NO_INDUCTION_TIME
+	 * 
+	 * @throws SystemException if flight doesn't exist.
+	 */
+	void addBag(String bagId, Node sourceNode, String flightId, int inductionTime) throws SystemException{
+		Terminal destinationTerminal;
+		if(flightId.equals(ARRIVAL))
+		//If flight id is ARRIVAL, then destination terminal should be baggage claim.
+		{
+			Node node = nodeTable.get(BAGGAGE_CLAIM);
+			if(node != null){
+				if(!(node instanceof BaggageClaim))
+				//Node with name BaggageClaim should be of type BaggageClaim.
+				{
+					throw new SystemException("Invalid Data. Inputs contains a bag for ARRIVAL and no " +
+							"BaggageClaim terminal exists in system.");
+				}
+				else{
+					destinationTerminal = (BaggageClaim)node;
+				}
+			}
+			else
+			//BaggageClaim node not exist in the system and 
+			//we have a bag with flight id ARRIVAL. Invalid data.
+			{
+				throw new SystemException("Invalid Data. Inputs contains a bag for ARRIVAL and no " +
+						"BaggageClaim terminal exists in system.");
+			}
+		}
+		else if(this.departureMap.containsKey(flightId))
+		//Find the departure with flight id and fetch destination terminal
+		{
+			Departure departure = departureMap.get(flightId);
+			destinationTerminal = departure.getTerminal();
+		}
+		else	
+		//Flight id is not ARRIVAL and it doesn't belong to any of the departure exist in 
+	    //system. Invalid data.
+		{
+			throw new SystemException("Departure with flight name " + flightId + " doesn't exist.");
+		}
+
+		//Put bag in bag repository
+		this.bags.add(bagId, nodeTable.getId(sourceNode.getName()), nodeTable.getId(destinationTerminal.getName()), 
+				flightId, inductionTime);
+	}
+
+	public static void main(String[] args) throws IOException, SystemException{
+		String data = FileUtils.readFileData("/TestInputData_1.txt");
+		
+		BaggagePathfinderService service = new BaggagePathfinderService();
+		String output = service.findShortestPath(data);
+		
+		System.out.println(output);
+	}
+
+	/**
+	 * Topology of the service before a load: node and departure repositories, compact graph,
+	 * route table, search indexes and shortest path trees. Taking it detaches the route tree
+	 * cache, so init doesn't clear the trees.
+	 */
+	private final class LoadedTopology {
+		private final long checksum = topologyChecksum;
+		private final long version = topologyVersion;
+		private final NodeTable nodes = nodeTable;
+		private final Map<String, Departure> departures = departureMap;
+		private final DepartureSchedule schedule = departureSchedule;
+		private final CompactGraph graph = compactGraph;
+		private final CompactGraph lastGraph = lastCompactGraph;
+		private final RouteTable table = routeTable;
+		private final Landmarks graphLandmarks = landmarks;
+		private final ContractionHierarchy hierarchy = contractionHierarchy;
+		private final RouteTreeCache treeCache = routeTreeCache;
+
+		private LoadedTopology() {
+			if(treeCache != null){
+				routeTreeCache = new RouteTreeCache(treeCache.getMaxTrees());
+			}
+		}
+
+		/**
+		 * Puts the topology back, bag repository is replaced by an empty one of its nodes.
+		 */
+		private void restore(){
+			nodeTable = nodes;
+			bags = new BagStore(nodes);
+			departureMap = departures;
+			departureSchedule = schedule;
+			compactGraph = graph;
+			lastCompactGraph = lastGraph;
+			routeTable = table;
+			landmarks = graphLandmarks;
+			contractionHierarchy = hierarchy;
+			topologyVersion = version;
+			routeTreeCache = treeCache;
+		}
+	}
+}
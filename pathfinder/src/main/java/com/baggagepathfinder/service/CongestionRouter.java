@@ -0,0 +1,214 @@
+package com.baggagepathfinder.service;
+
+import java.util.Arrays;
+
+import com.baggagepathfinder.graph.CompactGraph;
+import com.baggagepathfinder.graph.CompactShortestPathfinder;
+import com.baggagepathfinder.graph.Edge;
+import com.baggagepathfinder.graph.NodePath;
+
+/**
+ * The class CongestionRouter assigns a wave of bags to conveyor segments with limited
+ * throughput. Bags are routed in rounds, each round on edge costs which include the load
+ * assigned by all earlier rounds, so later bags avoid segments already busy.
+ *
+ * Cost of an edge follows the BPR (Bureau of Public Roads) function
+ * <code>travelTime * (1 + BPR_ALPHA * (load / (capacity * window)) ^ BPR_BETA)</code>,
+ * where load is the number of bags assigned to the edge and window the time in minutes
+ * the wave is spread over. Edges of unlimited capacity keep their travel time.
+ *
+ * Bags of the wave sharing source and destination share a route id, assigned once before the
+ * first round. Route ids are dense and ordered by source node, so a round searches once per
+ * distinct source node of its routes and looks up the edges of each route once. Loads, costs,
+ * route ids and route edges are kept in primitive arrays, a round allocates nothing per bag.
+ *
+ * Reported travel time of a bag is the plain travel time of its route, the congested cost
+ * only steers the choice of route.
+ *
+ * @author abankey
+ *
+ */
+class CongestionRouter {
+
+	static final double BPR_ALPHA = 0.15;
+	static final double BPR_BETA = 4;
+
+	private static final int[] NO_EDGES = new int[0];
+
+	private final CompactGraph graph;
+	private final double window;
+	private final int[] loads;
+
+	/**
+	 * Congested cost of each edge, weights of the graph searched by pathfinder.
+	 */
+	private final double[] costs;
+	private final CompactShortestPathfinder pathfinder;
+
+	/**
+	 * Route id of each bag of the wave.
+	 */
+	private final int[] routeOfBag;
+	private final int[] routeSources;
+	private final int[] routeDestinations;
+
+	/**
+	 * Edges of each route as found by the last round routing it.
+	 */
+	private final int[][] routeEdges;
+	private final NodePath[] routePaths;
+
+	/**
+	 * Number of bags of each route in the current round, round routes in ascending route id.
+	 */
+	private final int[] roundBags;
+	private final int[] roundRoutes;
+
+	/**
+	 * @param graph Compact graph of the conveyor system
+	 *
+	 * @param window Minutes the wave of bags is spread over
+	 *
+	 * @param sourceIds Source node id of each bag of the wave
+	 *
+	 * @param destinationIds Destination node id of each bag of the wave
+	 *
+	 * @param count Number of bags of the wave
+	 */
+	CongestionRouter(CompactGraph graph, double window, int[] sourceIds, int[] destinationIds, int count) {
+		this.graph = graph;
+		this.window = window;
+		this.loads = new int[graph.getEdgeCount()];
+		this.costs = new double[graph.getEdgeCount()];
+		this.pathfinder = new CompactShortestPathfinder(graph.withWeights(costs));
+
+		//Bags grouped by source, each distinct destination of a group is a new route.
+		int[] order = BagRouter.groupBySource(sourceIds, count, new int[graph.getNodeCount() + 1]);
+		int[] destinationRoutes = new int[graph.getNodeCount()];
+		int[] destinationSources = new int[graph.getNodeCount()];
+		Arrays.fill(destinationSources, -1);
+		int[] sources = new int[count];
+		int[] destinations = new int[count];
+		this.routeOfBag = new int[count];
+		int routeCount = 0;
+		for(int i = 0; i < count; i++){
+			int bag = order[i];
+			int source = sourceIds[bag];
+			int destination = destinationIds[bag];
+			if(destinationSources[destination] != source){
+				destinationSources[destination] = source;
+				destinationRoutes[destination] = routeCount;
+				sources[routeCount] = source;
+				destinations[routeCount] = destination;
+				routeCount++;
+			}
+			routeOfBag[bag] = destinationRoutes[destination];
+		}
+		this.routeSources = Arrays.copyOf(sources, routeCount);
+		this.routeDestinations = Arrays.copyOf(destinations, routeCount);
+		this.routeEdges = new int[routeCount][];
+		this.routePaths = new NodePath[routeCount];
+		this.roundBags = new int[routeCount];
+		this.roundRoutes = new int[routeCount];
+	}
+
+	/**
+	 * Finds the route of one round of bags under the loads of all earlier rounds, then adds
+	 * the load of the round.
+	 *
+	 * @param from Position of the first bag of the round in the wave
+	 *
+	 * @param to Position after the last bag of the round
+	 *
+	 * @return NodePath of each bag of the round, in wave order.
+	 */
+	NodePath[] route(int from, int to){
+		for(int edge = 0; edge < costs.length; edge++){
+			costs[edge] = cost(edge);
+		}
+
+		int routeCount = 0;
+		for(int bag = from; bag < to; bag++){
+			int route = routeOfBag[bag];
+			if(roundBags[route]++ == 0){
+				roundRoutes[routeCount++] = route;
+			}
+		}
+		Arrays.sort(roundRoutes, 0, routeCount);
+
+		//Routes are ordered by source, one search per distinct source.
+		int searchedSource = -1;
+		for(int i = 0; i < routeCount; i++){
+			int route = roundRoutes[i];
+			if(routeSources[route] != searchedSource){
+				searchedSource = routeSources[route];
+				pathfinder.computeQuickestPath(searchedSource);
+			}
+			findRoute(route);
+		}
+
+		//Load of the round is added after all its routes are found.
+		for(int i = 0; i < routeCount; i++){
+			int route = roundRoutes[i];
+			for(int edge : routeEdges[route]){
+				loads[edge] += roundBags[route];
+			}
+			roundBags[route] = 0;
+		}
+
+		NodePath[] paths = new NodePath[to - from];
+		for(int bag = from; bag < to; bag++){
+			paths[bag - from] = routePaths[routeOfBag[bag]];
+		}
+		return paths;
+	}
+
+	/**
+	 * Takes path and edges of a route from the last search of its source, the cheapest edge
+	 * under current costs between two nodes of the path.
+	 */
+	private void findRoute(int route){
+		int destination = routeDestinations[route];
+		NodePath path = pathfinder.getPath(destination);
+		if(pathfinder.getTravelTime(destination) == Double.POSITIVE_INFINITY){
+			routeEdges[route] = NO_EDGES;
+			routePaths[route] = path;
+			return;
+		}
+
+		int[] edges = new int[path.getPath().size() - 1];
+		double travelTime = 0d;
+		for(int to = destination, i = edges.length - 1; i >= 0; to = pathfinder.getPrevious(to), i--){
+			int from = pathfinder.getPrevious(to);
+			int cheapest = -1;
+			for(int edge = graph.firstEdge(from), last = graph.lastEdge(from); edge < last; edge++){
+				if(graph.getTarget(edge) == to && (cheapest == -1 || costs[edge] < costs[cheapest])){
+					cheapest = edge;
+				}
+			}
+			edges[i] = cheapest;
+			travelTime += graph.getWeight(cheapest);
+		}
+		routeEdges[route] = edges;
+		routePaths[route] = new NodePath(path.getPath(), travelTime);
+	}
+
+	/**
+	 * @return congested cost of an edge under its current load.
+	 */
+	private double cost(int edge){
+		double capacity = graph.getCapacity(edge);
+		if(capacity == Edge.UNLIMITED_CAPACITY || loads[edge] == 0){
+			return graph.getWeight(edge);
+		}
+		double saturation = loads[edge] / (capacity * window);
+		return graph.getWeight(edge) * (1 + BPR_ALPHA * Math.pow(saturation, BPR_BETA));
+	}
+
+	/**
+	 * @return number of bags assigned to each edge of the compact graph so far.
+	 */
+	int[] getLoads() {
+		return Arrays.copyOf(loads, loads.length);
+	}
+}
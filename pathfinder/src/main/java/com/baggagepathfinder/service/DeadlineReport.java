@@ -0,0 +1,47 @@
+package com.baggagepathfinder.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.baggagepathfinder.model.Bag;
+import com.baggagepathfinder.model.DeadlineStatus;
+
+/**
+ * The class DeadlineReport summarizes a deadline aware routing run: number of bags of each
+ * DeadlineStatus, and the at risk and missed bags in the order they were routed, which is
+ * earliest deadline first.
+ * 
+ * @author abankey
+ *
+ */
+public class DeadlineReport {
+
+	private final int[] counts = new int[DeadlineStatus.values().length];
+	private final List<Bag> atRiskBags = new ArrayList<Bag>();
+	private final List<Bag> missedBags = new ArrayList<Bag>();
+
+	void add(BagStore bags, int bag, DeadlineStatus status){
+		counts[status.ordinal()]++;
+		if(status == DeadlineStatus.AT_RISK){
+			atRiskBags.add(bags.get(bag));
+		}else if(status == DeadlineStatus.MISSED){
+			missedBags.add(bags.get(bag));
+		}
+	}
+
+	/**
+	 * @return number of bags of given status
+	 */
+	public int getCount(DeadlineStatus status){
+		return counts[status.ordinal()];
+	}
+
+	public List<Bag> getAtRiskBags() {
+		return Collections.unmodifiableList(atRiskBags);
+	}
+
+	public List<Bag> getMissedBags() {
+		return Collections.unmodifiableList(missedBags);
+	}
+}
@@ -0,0 +1,135 @@
+package com.baggagepathfinder.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.baggagepathfinder.model.Departure;
+
+/**
+ * The class DepartureSchedule keeps the departures of each terminal ordered by departure time,
+ * so the upcoming flights of a terminal are found by binary search over a primitive array.
+ * Departures of equal time keep the order they were added in.
+ *
+ * The schedule repeats every day: upcoming departures late in the day continue with the first
+ * departures of the next day.
+ *
+ * @author abankey
+ *
+ */
+class DepartureSchedule {
+
+	private final Map<String, Timetable> timetables = new HashMap<String, Timetable>();
+
+	/**
+	 * Adds a departure to the timetable of its terminal.
+	 */
+	void add(Departure departure){
+		String terminalName = departure.getTerminal().getName();
+		Timetable timetable = timetables.get(terminalName);
+		if(timetable == null){
+			timetable = new Timetable();
+			timetables.put(terminalName, timetable);
+		}
+		timetable.add(departure);
+	}
+
+	/**
+	 * Removes a departure from the timetable of its terminal, if present.
+	 */
+	void remove(Departure departure){
+		Timetable timetable = timetables.get(departure.getTerminal().getName());
+		if(timetable != null){
+			timetable.remove(departure);
+		}
+	}
+
+	/**
+	 * Finds the next departures of a terminal.
+	 *
+	 * @param terminalName Name of departure terminal
+	 *
+	 * @param fromTime First departure time in minutes since midnight
+	 *
+	 * @param maxCount Maximum number of departures
+	 *
+	 * @return departures at or after fromTime in order of departure time, at most one day ahead.
+	 */
+	List<Departure> getUpcoming(String terminalName, int fromTime, int maxCount){
+		Timetable timetable = timetables.get(terminalName);
+		if(timetable == null || timetable.size == 0){
+			return Collections.emptyList();
+		}
+
+		int count = Math.min(maxCount, timetable.size);
+		List<Departure> upcoming = new ArrayList<Departure>(count);
+		int first = timetable.indexOf(fromTime);
+		for(int i = 0; i < count; i++){
+			upcoming.add(timetable.departures[(first + i) % timetable.size]);
+		}
+		return upcoming;
+	}
+
+	/**
+	 * Departures of one terminal ordered by time, times are kept in a parallel int array.
+	 */
+	private static final class Timetable {
+
+		private int[] times = new int[4];
+		private Departure[] departures = new Departure[4];
+		private int size;
+
+		private void add(Departure departure){
+			//Insert after all departures of the same time.
+			int index = lowerBound(departure.getDepartureTime() + 1);
+			if(size == times.length){
+				times = Arrays.copyOf(times, size * 2);
+				departures = Arrays.copyOf(departures, size * 2);
+			}
+			System.arraycopy(times, index, times, index + 1, size - index);
+			System.arraycopy(departures, index, departures, index + 1, size - index);
+			times[index] = departure.getDepartureTime();
+			departures[index] = departure;
+			size++;
+		}
+
+		private void remove(Departure departure){
+			for(int i = lowerBound(departure.getDepartureTime()); i < size && times[i] == departure.getDepartureTime(); i++){
+				if(departures[i] == departure){
+					System.arraycopy(times, i + 1, times, i, size - i - 1);
+					System.arraycopy(departures, i + 1, departures, i, size - i - 1);
+					departures[--size] = null;
+					return;
+				}
+			}
+		}
+
+		/**
+		 * @return index of first departure at or after time, 0 if all depart earlier.
+		 */
+		private int indexOf(int time){
+			int index = lowerBound(time);
+			return index == size ? 0 : index;
+		}
+
+		/**
+		 * @return index of first departure at or after time, size if all depart earlier.
+		 */
+		private int lowerBound(int time){
+			int low = 0;
+			int high = size;
+			while(low < high){
+				int middle = (low + high) >>> 1;
+				if(times[middle] < time){
+					low = middle + 1;
+				}else{
+					high = middle;
+				}
+			}
+			return low;
+		}
+	}
+}
@@ -0,0 +1,544 @@
+package com.baggagepathfinder.service;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.graph.BidirectionalPathfinder;
+import com.baggagepathfinder.graph.CompactGraph;
+import com.baggagepathfinder.graph.Node;
+import com.baggagepathfinder.graph.NodePath;
+import com.baggagepathfinder.graph.Pathfinder;
+
+/**
+ * The class InFlightRoutes keeps the routes of a wave of bags which are on their way, and
+ * reroutes only the bags affected when a conveyor segment or node goes out of service. All
+ * other bags keep their route.
+ *
+ * Bags sharing source and destination node share one route. A reverse index lists the routes
+ * crossing each edge of the compact graph, so a failure only looks at the routes over the
+ * failed edges. Affected routes are searched again on the graph without unavailable edges:
+ * a bidirectional search for a source node with a single affected route, one shortest path
+ * tree for any other source node, see BagRouter.
+ *
+ * A rerouted route is only added to the lists of edges it didn't cross before. Its entries
+ * in the lists of its old edges stay, they are dropped with duplicates when the edge is next
+ * looked up or its list is full. A list only grows if more than half of it are distinct
+ * routes crossing the edge, so it doesn't grow with the number of failures.
+ *
+ * Routes always start at the source node of the bag, the position of a bag on its route is
+ * not known. The compact graph is the one of the service when the bags were routed, later
+ * changes of the service don't affect it.
+ *
+ * InFlightRoutes must not be shared between threads.
+ *
+ * @author abankey
+ *
+ */
+public final class InFlightRoutes {
+
+	private final CompactGraph graph;
+	private final BagStore bags;
+	private final int parallelism;
+
+	/**
+	 * Route index of each bag.
+	 */
+	private final int[] bagRoutes;
+
+	/**
+	 * Bags of route r are at positions routeOffsets[r] to routeOffsets[r + 1] - 1 of routeBags.
+	 */
+	private final int[] routeOffsets;
+	private final int[] routeBags;
+
+	/**
+	 * Source node id, destination node id, path and edges of each route.
+	 */
+	private final int[] sourceIds;
+	private final int[] destinationIds;
+	private final NodePath[] paths;
+	private final int[][] routeEdges;
+
+	/**
+	 * Routes crossing each edge, may still hold routes which were rerouted since and routes
+	 * listed twice.
+	 */
+	private final int[][] edgeRoutes;
+	private final int[] edgeRouteCounts;
+	private final int[] edgeStamps;
+	private int edgeStamp;
+
+	/**
+	 * Travel time of each edge, Double.POSITIVE_INFINITY if the edge is unavailable.
+	 * availableGraph routes on these weights.
+	 */
+	private final double[] weights;
+	private final CompactGraph availableGraph;
+	private final boolean[] segmentDown;
+	private final boolean[] nodeDown;
+
+	private final int[] routeStamps;
+	private final int[] listedStamps;
+	private final int[] sourceCounts;
+	private int stamp;
+	private int listedStamp;
+	private int[] affected = new int[16];
+	private int affectedCount;
+
+	/**
+	 * @param graph Compact graph the bags are routed on
+	 *
+	 * @param bags Bag store, node ids are ids of graph. Bags added to the store later are
+	 * not part of the routes.
+	 *
+	 * @param parallelism Number of threads rerouting affected bags
+	 */
+	InFlightRoutes(CompactGraph graph, BagStore bags, int parallelism) {
+		this.graph = graph;
+		this.bags = bags;
+		this.parallelism = parallelism;
+		this.bagRoutes = new int[bags.size()];
+
+		//One route per distinct (source node, destination node) pair.
+		Map<Long, Integer> routeIndex = new HashMap<Long, Integer>();
+		int[] sources = new int[bags.size()];
+		int[] destinations = new int[bags.size()];
+		for(int i = 0; i < bagRoutes.length; i++){
+			int sourceId = bags.getSourceId(i);
+			int destinationId = bags.getDestinationId(i);
+			Long key = RouteCache.key(sourceId, destinationId);
+			Integer route = routeIndex.get(key);
+			if(route == null){
+				route = routeIndex.size();
+				routeIndex.put(key, route);
+				sources[route] = sourceId;
+				destinations[route] = destinationId;
+			}
+			bagRoutes[i] = route;
+		}
+		int routeCount = routeIndex.size();
+		this.sourceIds = Arrays.copyOf(sources, routeCount);
+		this.destinationIds = Arrays.copyOf(destinations, routeCount);
+		this.paths = new NodePath[routeCount];
+		this.routeEdges = new int[routeCount][];
+		this.routeStamps = new int[routeCount];
+		this.listedStamps = new int[routeCount];
+
+		//Bags grouped by route, counting sort keeps bag order within a route.
+		this.routeOffsets = new int[routeCount + 1];
+		this.routeBags = new int[bags.size()];
+		for(int route : bagRoutes){
+			routeOffsets[route + 1]++;
+		}
+		for(int route = 0; route < routeCount; route++){
+			routeOffsets[route + 1] += routeOffsets[route];
+		}
+		int[] next = Arrays.copyOf(routeOffsets, routeCount);
+		for(int i = 0; i < bagRoutes.length; i++){
+			routeBags[next[bagRoutes[i]]++] = i;
+		}
+
+		this.edgeRoutes = new int[graph.getEdgeCount()][];
+		this.edgeRouteCounts = new int[graph.getEdgeCount()];
+		this.edgeStamps = new int[graph.getEdgeCount()];
+		this.weights = new double[graph.getEdgeCount()];
+		for(int edge = 0; edge < weights.length; edge++){
+			weights[edge] = graph.getWeight(edge);
+		}
+		this.availableGraph = graph.withWeights(weights);
+		this.segmentDown = new boolean[graph.getEdgeCount()];
+		this.nodeDown = new boolean[graph.getNodeCount()];
+		this.sourceCounts = new int[graph.getNodeCount()];
+	}
+
+	/**
+	 * Sets the route of a bag as it was routed. Only the first bag of each route sets it,
+	 * bags of the same route share its path.
+	 *
+	 * @param bag Bag index
+	 *
+	 * @param path Quickest path of the bag
+	 */
+	void setPath(int bag, NodePath path){
+		int route = bagRoutes[bag];
+		if(paths[route] == null){
+			setRoute(route, path);
+		}
+	}
+
+	/**
+	 * @return current route of a bag, null if not routed yet.
+	 */
+	public NodePath getPath(int bag){
+		return paths[bagRoutes[bag]];
+	}
+
+	public int getBagCount() {
+		return bagRoutes.length;
+	}
+
+	/**
+	 * @return number of distinct (source node, destination node) pairs.
+	 */
+	public int getRouteCount() {
+		return paths.length;
+	}
+
+	/**
+	 * Takes all conveyor segments between two nodes out of service and reroutes the bags
+	 * whose route crosses one of them, in either direction.
+	 *
+	 * @param sourceName Name of one end
+	 *
+	 * @param destinationName Name of other end
+	 *
+	 * @param sink Receives the new route of each rerouted bag, grouped by route. Travel time
+	 * is Double.POSITIVE_INFINITY if the destination can't be reached any more.
+	 *
+	 * @return number of rerouted bags.
+	 *
+	 * @throws IOException if sink fails.
+	 *
+	 * @throws SystemException if there is no segment between the nodes.
+	 */
+	public int markSegmentDown(String sourceName, String destinationName, RouteSink sink)
+			throws IOException, SystemException{
+		int sourceId = findSegment(sourceName, destinationName);
+		int destinationId = graph.getId(destinationName);
+		startAffected();
+		setSegmentDown(sourceId, destinationId, true);
+		setSegmentDown(destinationId, sourceId, true);
+		return reroute(sink, false);
+	}
+
+	/**
+	 * Puts all conveyor segments between two nodes back into service. Routes are kept, only
+	 * bags which couldn't reach their destination are routed again.
+	 *
+	 * @param sourceName Name of one end
+	 *
+	 * @param destinationName Name of other end
+	 *
+	 * @param sink Receives the new route of each bag which is reachable again.
+	 *
+	 * @return number of rerouted bags.
+	 *
+	 * @throws IOException if sink fails.
+	 *
+	 * @throws SystemException if there is no segment between the nodes.
+	 */
+	public int markSegmentUp(String sourceName, String destinationName, RouteSink sink)
+			throws IOException, SystemException{
+		int sourceId = findSegment(sourceName, destinationName);
+		int destinationId = graph.getId(destinationName);
+		setSegmentDown(sourceId, destinationId, false);
+		setSegmentDown(destinationId, sourceId, false);
+		return rerouteUnreachable(sink);
+	}
+
+	/**
+	 * Takes a node and all its segments out of service and reroutes the bags whose route
+	 * crosses the node. Bags from or to the node can't reach their destination any more.
+	 *
+	 * @param name Name of node
+	 *
+	 * @param sink Receives the new route of each rerouted bag, grouped by route.
+	 *
+	 * @return number of rerouted bags.
+	 *
+	 * @throws IOException if sink fails.
+	 *
+	 * @throws SystemException if node doesn't exist.
+	 */
+	public int markNodeDown(String name, RouteSink sink) throws IOException, SystemException{
+		int id = findNode(name);
+		startAffected();
+		setNodeDown(id, true);
+		return reroute(sink, false);
+	}
+
+	/**
+	 * Puts a node back into service. Routes are kept, only bags which couldn't reach their
+	 * destination are routed again.
+	 *
+	 * @param name Name of node
+	 *
+	 * @param sink Receives the new route of each bag which is reachable again.
+	 *
+	 * @return number of rerouted bags.
+	 *
+	 * @throws IOException if sink fails.
+	 *
+	 * @throws SystemException if node doesn't exist.
+	 */
+	public int markNodeUp(String name, RouteSink sink) throws IOException, SystemException{
+		setNodeDown(findNode(name), false);
+		return rerouteUnreachable(sink);
+	}
+
+	private int findNode(String name) throws SystemException{
+		int id = graph.getId(name);
+		if(id == -1){
+			throw new SystemException("Terminal/Checkin/BaggageClaim of name " + name + " doesn't exist.");
+		}
+		return id;
+	}
+
+	/**
+	 * @return id of source node.
+	 */
+	private int findSegment(String sourceName, String destinationName) throws SystemException{
+		int sourceId = graph.getId(sourceName);
+		int destinationId = graph.getId(destinationName);
+		if(sourceId == -1 || destinationId == -1 || graph.findEdge(sourceId, destinationId) == -1)
+		//No segment between the nodes. Invalid data.
+		{
+			throw new SystemException("Conveyor segment " + sourceName + " " + destinationName + " doesn't exist.");
+		}
+		return sourceId;
+	}
+
+	/**
+	 * Marks all edges from one node to another, collects their routes if taken down.
+	 */
+	private void setSegmentDown(int from, int to, boolean down){
+		for(int edge = graph.firstEdge(from), last = graph.lastEdge(from); edge < last; edge++){
+			if(graph.getTarget(edge) == to){
+				segmentDown[edge] = down;
+				updateWeight(from, edge, down);
+			}
+		}
+	}
+
+	/**
+	 * Marks a node, updates all edges from and to it and collects their routes if taken down.
+	 */
+	private void setNodeDown(int id, boolean down){
+		nodeDown[id] = down;
+		for(int edge = graph.firstEdge(id), last = graph.lastEdge(id); edge < last; edge++){
+			int adjacentId = graph.getTarget(edge);
+			updateWeight(id, edge, down);
+			for(int reverse = graph.firstEdge(adjacentId), end = graph.lastEdge(adjacentId); reverse < end; reverse++){
+				if(graph.getTarget(reverse) == id){
+					updateWeight(adjacentId, reverse, down);
+				}
+			}
+		}
+	}
+
+	private void updateWeight(int from, int edge, boolean down){
+		boolean unavailable = segmentDown[edge] || nodeDown[from] || nodeDown[graph.getTarget(edge)];
+		weights[edge] = unavailable ? Double.POSITIVE_INFINITY : graph.getWeight(edge);
+		if(down){
+			collectRoutes(edge);
+		}
+	}
+
+	private void startAffected(){
+		stamp++;
+		affectedCount = 0;
+	}
+
+	/**
+	 * Adds the routes crossing an edge to the affected routes.
+	 */
+	private void collectRoutes(int edge){
+		int[] routes = edgeRoutes[edge];
+		for(int i = 0, count = pruneRoutes(edge); i < count; i++){
+			int route = routes[i];
+			if(routeStamps[route] != stamp){
+				routeStamps[route] = stamp;
+				if(affectedCount == affected.length){
+					affected = Arrays.copyOf(affected, affectedCount * 2);
+				}
+				affected[affectedCount++] = route;
+			}
+		}
+	}
+
+	/**
+	 * Drops routes which don't cross an edge any more and duplicates from its list.
+	 *
+	 * @return number of routes left in the list.
+	 */
+	private int pruneRoutes(int edge){
+		int[] routes = edgeRoutes[edge];
+		int kept = 0;
+		listedStamp++;
+		for(int i = 0, count = edgeRouteCounts[edge]; i < count; i++){
+			int route = routes[i];
+			if(listedStamps[route] != listedStamp && crosses(route, edge)){
+				listedStamps[route] = listedStamp;
+				routes[kept++] = route;
+			}
+		}
+		edgeRouteCounts[edge] = kept;
+		return kept;
+	}
+
+	private boolean crosses(int route, int edge){
+		for(int routeEdge : routeEdges[route]){
+			if(routeEdge == edge){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Collects all routes which don't reach their destination and reroutes them.
+	 */
+	private int rerouteUnreachable(RouteSink sink) throws IOException{
+		startAffected();
+		for(int route = 0; route < paths.length; route++){
+			if(paths[route] != null && paths[route].getTravelTime() == Double.POSITIVE_INFINITY){
+				if(affectedCount == affected.length){
+					affected = Arrays.copyOf(affected, affectedCount * 2);
+				}
+				affected[affectedCount++] = route;
+			}
+		}
+		return reroute(sink, true);
+	}
+
+	/**
+	 * Searches the affected routes again on available edges and hands the new route of each
+	 * of their bags to sink.
+	 *
+	 * @param reachableOnly true to keep routes which are still unreachable.
+	 *
+	 * @return number of rerouted bags.
+	 */
+	private int reroute(RouteSink sink, boolean reachableOnly) throws IOException{
+		if(affectedCount == 0){
+			return 0;
+		}
+		Arrays.sort(affected, 0, affectedCount);
+		for(int i = 0; i < affectedCount; i++){
+			sourceCounts[sourceIds[affected[i]]]++;
+		}
+
+		//A source with a single affected route gets a point to point search, any other source
+		//one shortest path tree for all its routes.
+		NodePath[] newPaths = new NodePath[affectedCount];
+		routeAffected(newPaths, true);
+		routeAffected(newPaths, false);
+		for(int i = 0; i < affectedCount; i++){
+			sourceCounts[sourceIds[affected[i]]] = 0;
+		}
+
+		int rerouted = 0;
+		for(int i = 0; i < affectedCount; i++){
+			if(reachableOnly && newPaths[i].getTravelTime() == Double.POSITIVE_INFINITY){
+				continue;
+			}
+			int route = affected[i];
+			setRoute(route, newPaths[i]);
+			for(int bag = routeOffsets[route]; bag < routeOffsets[route + 1]; bag++){
+				sink.accept(bags, routeBags[bag], newPaths[i]);
+				rerouted++;
+			}
+		}
+		return rerouted;
+	}
+
+	/**
+	 * Searches the affected routes whose source has a single affected route, or all others.
+	 * Uses a fresh router, shortest path trees of the last failure are stale.
+	 */
+	private void routeAffected(NodePath[] newPaths, boolean single){
+		int[] positions = new int[affectedCount];
+		int[] sources = new int[affectedCount];
+		int[] destinations = new int[affectedCount];
+		int count = 0;
+		for(int i = 0; i < affectedCount; i++){
+			int route = affected[i];
+			if((sourceCounts[sourceIds[route]] == 1) == single){
+				positions[count] = i;
+				sources[count] = sourceIds[route];
+				destinations[count] = destinationIds[route];
+				count++;
+			}
+		}
+		if(count == 0){
+			return;
+		}
+
+		Supplier<Pathfinder> pathfinders = !single ? null : new Supplier<Pathfinder>() {
+			@Override
+			public Pathfinder get() {
+				return new BidirectionalPathfinder(availableGraph);
+			}
+		};
+		BagRouter router = new BagRouter(availableGraph, null, null, null, pathfinders, parallelism, null);
+		NodePath[] paths = router.route(sources, destinations, count);
+		for(int i = 0; i < count; i++){
+			newPaths[positions[i]] = paths[i];
+		}
+	}
+
+	/**
+	 * Replaces the path of a route and adds the route to the lists of the edges it didn't
+	 * cross before. Edges are resolved on availableGraph, the quickest available edge is the
+	 * one the search used, also between nodes with parallel segments some of which are
+	 * unavailable.
+	 */
+	private void setRoute(int route, NodePath path){
+		paths[route] = path;
+		List<Node> nodes = path.getPath();
+		if(path.getTravelTime() == Double.POSITIVE_INFINITY || nodes.size() < 2){
+			routeEdges[route] = new int[0];
+			return;
+		}
+
+		//Edges of the old path already list the route.
+		edgeStamp++;
+		if(routeEdges[route] != null){
+			for(int edge : routeEdges[route]){
+				edgeStamps[edge] = edgeStamp;
+			}
+		}
+		int[] edges = new int[nodes.size() - 1];
+		int from = graph.getId(nodes.get(0).getName());
+		for(int i = 1; i < nodes.size(); i++){
+			int to = graph.getId(nodes.get(i).getName());
+			int edge = availableGraph.findEdge(from, to);
+			edges[i - 1] = edge;
+			if(edgeStamps[edge] != edgeStamp){
+				addRoute(edge, route);
+			}
+			from = to;
+		}
+		routeEdges[route] = edges;
+	}
+
+	/**
+	 * Appends a route to the list of an edge. A full list is pruned first and only grows if
+	 * it is still more than half full.
+	 */
+	private void addRoute(int edge, int route){
+		if(edgeRoutes[edge] == null){
+			edgeRoutes[edge] = new int[2];
+		}else if(edgeRouteCounts[edge] == edgeRoutes[edge].length
+				&& pruneRoutes(edge) * 2 > edgeRoutes[edge].length){
+			edgeRoutes[edge] = Arrays.copyOf(edgeRoutes[edge], edgeRoutes[edge].length * 2);
+		}
+		edgeRoutes[edge][edgeRouteCounts[edge]++] = route;
+	}
+
+	/**
+	 * @return number of entries in the route lists of all edges.
+	 */
+	int getEdgeRouteCount() {
+		int count = 0;
+		for(int edgeRouteCount : edgeRouteCounts){
+			count += edgeRouteCount;
+		}
+		return count;
+	}
+}
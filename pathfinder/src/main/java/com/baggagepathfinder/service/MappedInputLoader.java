@@ -0,0 +1,502 @@
+package com.baggagepathfinder.service;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.graph.Edge;
+import com.baggagepathfinder.graph.Node;
+import com.baggagepathfinder.model.Bag;
+import com.baggagepathfinder.model.NodeFactory;
+
+/**
+ * The class MappedInputLoader loads input data from a memory mapped file. The three sections
+ * are tokenized directly from the mapped buffer, travel and departure times are parsed
+ * from bytes, and node names and flight ids are interned into int ids as they are read, so
+ * a String is only created once per distinct name and once per bag id.
+ *
+ * Validation and SystemException semantics are the same as BaggagePathfinderService#loadData.
+ *
+ * @author abankey
+ *
+ */
+class MappedInputLoader {
+
+	private static final byte NEW_LINE = '\n';
+	private static final byte CARRIAGE_RETURN = '\r';
+	private static final byte SPACE = ' ';
+
+	private static final byte[] HEADER_CONVEYOR = bytes(BaggagePathfinderService.HEADER_CONVEYOR);
+	private static final byte[] HEADER_DEPARTURE = bytes(BaggagePathfinderService.HEADER_DEPARTURE);
+	private static final byte[] HEADER_BAG = bytes(BaggagePathfinderService.HEADER_BAG);
+
+	/**
+	 * Powers of ten which are exactly representable as double.
+	 */
+	private static final double[] POWERS_OF_TEN = new double[23];
+	static{
+		POWERS_OF_TEN[0] = 1d;
+		for(int i = 1; i < POWERS_OF_TEN.length; i++){
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10d;
+		}
+	}
+
+	private final BaggagePathfinderService service;
+	private final SymbolTable nodeNames = new SymbolTable();
+	private final SymbolTable flightIds = new SymbolTable();
+	private Node[] nodes = new Node[64];
+
+	private MappedByteBuffer buffer;
+	private int[] starts = new int[8];
+	private int[] ends = new int[8];
+	private int count;
+
+	MappedInputLoader(BaggagePathfinderService service) {
+		this.service = service;
+		this.flightIds.intern(bytes(BaggagePathfinderService.ARRIVAL), BaggagePathfinderService.ARRIVAL);
+	}
+
+	/**
+	 * Loads input data file into service.
+	 *
+	 * @param path Input data file, UTF-8 encoded.
+	 *
+	 * @throws IOException if file can not be read.
+	 *
+	 * @throws SystemException if any section is missing, sections are not in order or
+	 * 			section data is invalid.
+	 */
+	void load(Path path) throws IOException, SystemException{
+		load(path, 0, BaggagePathfinderService.SECTION_NONE);
+	}
+
+	/**
+	 * Loads the bag section of input data file into service. Conveyor system and departures
+	 * must already be loaded, for example from a snapshot.
+	 *
+	 * @param path Input data file, UTF-8 encoded.
+	 *
+	 * @param offset Offset of the bag section header
+	 *
+	 * @throws IOException if file can not be read.
+	 *
+	 * @throws SystemException if bag section is missing or invalid.
+	 */
+	void loadBags(Path path, long offset) throws IOException, SystemException{
+		for(Node node : service.getNodeMap().values()){
+			int id = nodeNames.intern(bytes(node.getName()), node.getName());
+			if(id >= nodes.length){
+				nodes = Arrays.copyOf(nodes, Math.max(id + 1, nodes.length * 2));
+			}
+			nodes[id] = node;
+		}
+		for(String flightId : service.getDepartureMap().keySet()){
+			flightIds.intern(bytes(flightId), flightId);
+		}
+		load(path, (int)offset, BaggagePathfinderService.SECTION_DEPARTURE);
+	}
+
+	private void load(Path path, int offset, int section) throws IOException, SystemException{
+		RandomAccessFile file = new RandomAccessFile(path.toFile(), "r");
+		try{
+			FileChannel channel = file.getChannel();
+			if(channel.size() > Integer.MAX_VALUE){
+				throw new SystemException("Input file " + path + " is too large to map.");
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			load(offset, buffer.limit(), section);
+		}finally{
+			buffer = null;
+			file.close();
+		}
+	}
+
+	private void load(int offset, int limit, int section) throws SystemException{
+		int blankLines = 0;
+		int sectionLines = 0;
+		long sectionStart = System.nanoTime();
+		int lineStart = offset;
+		while(lineStart < limit){
+			int lineEnd = lineStart;
+			while(lineEnd < limit && buffer.get(lineEnd) != NEW_LINE){
+				lineEnd++;
+			}
+			int next = lineEnd + 1;
+			if(lineEnd > lineStart && buffer.get(lineEnd - 1) == CARRIAGE_RETURN){
+				lineEnd--;
+			}
+
+			int header = header(lineStart, lineEnd);
+			if(header != BaggagePathfinderService.SECTION_NONE){
+				if(header != section + 1)
+				//Sections are expected in order conveyor, departures, bags.
+				{
+					throw new SystemException("Invalid input data");
+				}
+				sectionStart = service.recordParse(section, sectionStart, sectionLines);
+				section = header;
+				blankLines = 0;
+				sectionLines = 0;
+			}
+			else if(section != BaggagePathfinderService.SECTION_NONE){
+				if(lineEnd == lineStart){
+					blankLines++;
+				}
+				else if(blankLines > 0)
+				//Blank line in the middle of a section.
+				{
+					throw new SystemException("Invalid input data");
+				}
+				else if(section == BaggagePathfinderService.SECTION_CONVEYOR){
+					handleConveyorLine(lineStart, lineEnd);
+				}
+				else if(section == BaggagePathfinderService.SECTION_DEPARTURE){
+					handleDepartureLine(lineStart, lineEnd);
+				}
+				else{
+					handleBagLine(lineStart, lineEnd);
+				}
+				sectionLines++;
+			}
+			lineStart = next;
+		}
+		service.recordParse(section, sectionStart, sectionLines);
+
+		if(section != BaggagePathfinderService.SECTION_BAG)
+		//If any section is missing, throw exception.
+		{
+			throw new SystemException("Invalid input data");
+		}
+	}
+
+	private void handleConveyorLine(int lineStart, int lineEnd) throws SystemException{
+		if(tokenize(lineStart, lineEnd) < 3)
+		//Each line is expected to have three parameters.
+		{
+			throw new SystemException("Invalid input data");
+		}
+
+		Node sourceNode = internNode(0);
+		Node destinationNode = internNode(1);
+		double travelTime = parseDouble(starts[2], ends[2]);
+		double capacity = Edge.UNLIMITED_CAPACITY;
+		if(count > 3){
+			capacity = parseDouble(starts[3], ends[3]);
+			if(!(capacity > 0)){
+				throw new SystemException("Invalid input data");
+			}
+		}
+		service.addNode(sourceNode, destinationNode, travelTime, capacity);
+	}
+
+	private void handleDepartureLine(int lineStart, int lineEnd) throws SystemException{
+		if(tokenize(lineStart, lineEnd) < 4)
+		//Each line is expected to have four parameters
+		{
+			throw new SystemException("Invalid input data");
+		}
+
+		//Departures are few, plain Strings are fine here.
+		String flightId = flightIds.getName(flightIds.intern(token(0), null));
+		int time = parseTime(starts[3], ends[3]);
+		if(time == -1){
+			throw new SystemException("Invalid departure time " + string(3));
+		}
+		service.addDeparture(flightId, string(1), string(2), time);
+	}
+
+	private void handleBagLine(int lineStart, int lineEnd) throws SystemException{
+		if(tokenize(lineStart, lineEnd) < 3)
+		//Each line is expected to have three parameters.
+		{
+			throw new SystemException("Invalid input data");
+		}
+
+		String bagId = string(0);
+		int inductionTime = Bag.NO_INDUCTION_TIME;
+		if(count > 3){
+			inductionTime = parseTime(starts[3], ends[3]);
+			if(inductionTime == -1){
+				throw new SystemException("Invalid induction time " + string(3));
+			}
+		}
+		int nodeId = nodeNames.find(buffer, starts[1], ends[1]);
+		int flight = flightIds.find(buffer, starts[2], ends[2]);
+		if(nodeId == -1 || flight == -1)
+		//Unknown node or flight. Let the service report it.
+		{
+			service.addBag(bagId, string(1), string(2), inductionTime);
+			return;
+		}
+		service.addBag(bagId, nodes[nodeId], flightIds.getName(flight), inductionTime);
+	}
+
+	/**
+	 * Fetches the node of a word, creates it on first occurrence.
+	 */
+	private Node internNode(int index){
+		int id = nodeNames.find(buffer, starts[index], ends[index]);
+		if(id != -1){
+			return nodes[id];
+		}
+
+		String name = string(index);
+		id = nodeNames.intern(token(index), name);
+		if(id == nodes.length){
+			nodes = Arrays.copyOf(nodes, id * 2);
+		}
+		nodes[id] = NodeFactory.createNode(name);
+		return nodes[id];
+	}
+
+	/**
+	 * Parses a decimal number. Numbers with at most 15 significant digits and no exponent
+	 * are parsed from bytes, which gives the same result as Double.parseDouble because
+	 * both the digits and the power of ten are exact doubles. Any other number is handed
+	 * to Double.parseDouble.
+	 */
+	private double parseDouble(int start, int end) throws SystemException{
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = -1;
+		boolean negative = false;
+		int i = start;
+		if(i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')){
+			negative = buffer.get(i) == '-';
+			i++;
+		}
+		boolean fast = i < end;
+		for(; i < end && fast; i++){
+			byte b = buffer.get(i);
+			if(b >= '0' && b <= '9'){
+				mantissa = mantissa * 10 + (b - '0');
+				digits++;
+				if(fractionDigits >= 0){
+					fractionDigits++;
+				}
+			}
+			else if(b == '.' && fractionDigits < 0){
+				fractionDigits = 0;
+			}
+			else{
+				fast = false;
+			}
+		}
+
+		if(fast && digits > 0 && digits <= 15){
+			double value = mantissa / POWERS_OF_TEN[Math.max(fractionDigits, 0)];
+			return negative ? -value : value;
+		}
+		try{
+			return Double.parseDouble(new String(token(start, end), StandardCharsets.UTF_8));
+		}catch(NumberFormatException n){
+			throw new SystemException("Invalid input data");
+		}
+	}
+
+	/**
+	 * Parses time of format H:mm or HH:mm.
+	 *
+	 * @return minutes since midnight, -1 if token is not a valid time.
+	 */
+	private int parseTime(int start, int end){
+		int hour = 0;
+		int minute = 0;
+		int i = start;
+		int hourStart = i;
+		while(i < end && i - hourStart < 2 && isDigit(buffer.get(i))){
+			hour = hour * 10 + (buffer.get(i++) - '0');
+		}
+		boolean valid = i > hourStart && i < end && buffer.get(i++) == ':';
+		int minuteStart = i;
+		while(valid && i < end && i - minuteStart < 2 && isDigit(buffer.get(i))){
+			minute = minute * 10 + (buffer.get(i++) - '0');
+		}
+		if(!valid || i != end || i - minuteStart != 2 || hour > 23 || minute > 59){
+			return -1;
+		}
+		return hour * 60 + minute;
+	}
+
+	private static boolean isDigit(byte b){
+		return b >= '0' && b <= '9';
+	}
+
+	/**
+	 * @return section of header line, SECTION_NONE if line is not a header.
+	 */
+	private int header(int lineStart, int lineEnd){
+		if(startsWith(lineStart, lineEnd, HEADER_CONVEYOR)){
+			return BaggagePathfinderService.SECTION_CONVEYOR;
+		}
+		if(startsWith(lineStart, lineEnd, HEADER_DEPARTURE)){
+			return BaggagePathfinderService.SECTION_DEPARTURE;
+		}
+		if(startsWith(lineStart, lineEnd, HEADER_BAG)){
+			return BaggagePathfinderService.SECTION_BAG;
+		}
+		return BaggagePathfinderService.SECTION_NONE;
+	}
+
+	private boolean startsWith(int lineStart, int lineEnd, byte[] prefix){
+		if(lineEnd - lineStart < prefix.length){
+			return false;
+		}
+		for(int i = 0; i < prefix.length; i++){
+			if(buffer.get(lineStart + i) != prefix[i]){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Splits line into words, same rules as LineTokenizer.
+	 *
+	 * @return number of words
+	 */
+	private int tokenize(int lineStart, int lineEnd){
+		count = 0;
+		int start = lineStart;
+		for(int i = lineStart; i <= lineEnd; i++){
+			if(i == lineEnd || buffer.get(i) == SPACE){
+				if(count == starts.length){
+					starts = Arrays.copyOf(starts, count * 2);
+					ends = Arrays.copyOf(ends, count * 2);
+				}
+				starts[count] = start;
+				ends[count] = i;
+				count++;
+				start = i + 1;
+			}
+		}
+
+		//Drop trailing empty words.
+		while(count > 0 && starts[count - 1] == ends[count - 1]){
+			count--;
+		}
+		return count;
+	}
+
+	private byte[] token(int index){
+		return token(starts[index], ends[index]);
+	}
+
+	private byte[] token(int start, int end){
+		byte[] bytes = new byte[end - start];
+		for(int i = start; i < end; i++){
+			bytes[i - start] = buffer.get(i);
+		}
+		return bytes;
+	}
+
+	private String string(int index){
+		return new String(token(index), StandardCharsets.UTF_8);
+	}
+
+	private static byte[] bytes(String value){
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Open addressing hash table which maps byte sequences to dense int ids. Lookups
+	 * compare directly against the mapped buffer, no String or byte array is created.
+	 */
+	private static final class SymbolTable {
+		private int[] slots = new int[64];
+		private int[] hashes = new int[32];
+		private byte[][] keys = new byte[32][];
+		private String[] names = new String[32];
+		private int size;
+
+		/**
+		 * @return id of the byte sequence or -1 if it is not in table.
+		 */
+		int find(MappedByteBuffer buffer, int start, int end){
+			int hash = 0;
+			for(int i = start; i < end; i++){
+				hash = 31 * hash + buffer.get(i);
+			}
+			int mask = slots.length - 1;
+			for(int slot = mix(hash) & mask; slots[slot] != 0; slot = (slot + 1) & mask){
+				int id = slots[slot] - 1;
+				if(hashes[id] == hash && equals(keys[id], buffer, start, end)){
+					return id;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Adds the key if it is not in table yet.
+		 *
+		 * @return id of the key
+		 */
+		int intern(byte[] key, String name){
+			int hash = 0;
+			for(byte b : key){
+				hash = 31 * hash + b;
+			}
+			int mask = slots.length - 1;
+			int slot = mix(hash) & mask;
+			for(; slots[slot] != 0; slot = (slot + 1) & mask){
+				int id = slots[slot] - 1;
+				if(hashes[id] == hash && Arrays.equals(keys[id], key)){
+					return id;
+				}
+			}
+
+			if(size == keys.length){
+				hashes = Arrays.copyOf(hashes, size * 2);
+				keys = Arrays.copyOf(keys, size * 2);
+				names = Arrays.copyOf(names, size * 2);
+			}
+			int id = size++;
+			hashes[id] = hash;
+			keys[id] = key;
+			names[id] = name != null ? name : new String(key, StandardCharsets.UTF_8);
+			slots[slot] = id + 1;
+			if(size * 2 > slots.length){
+				rehash();
+			}
+			return id;
+		}
+
+		String getName(int id){
+			return names[id];
+		}
+
+		private void rehash(){
+			slots = new int[slots.length * 2];
+			int mask = slots.length - 1;
+			for(int id = 0; id < size; id++){
+				int slot = mix(hashes[id]) & mask;
+				while(slots[slot] != 0){
+					slot = (slot + 1) & mask;
+				}
+				slots[slot] = id + 1;
+			}
+		}
+
+		private static int mix(int hash){
+			return hash ^ (hash >>> 16);
+		}
+
+		private static boolean equals(byte[] key, MappedByteBuffer buffer, int start, int end){
+			if(key.length != end - start){
+				return false;
+			}
+			for(int i = 0; i < key.length; i++){
+				if(key[i] != buffer.get(start + i)){
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,326 @@
+package com.baggagepathfinder.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.graph.CompactGraph;
+import com.baggagepathfinder.graph.SearchCounters;
+import com.baggagepathfinder.utils.LatencyHistogram;
+
+/**
+ * The class PathfinderMetrics collects the metrics of a service while metrics are enabled,
+ * see BaggagePathfinderService#setMetricsEnabled: parse time and lines per input section,
+ * size of the compact graph, latency of each routed bag, the search work behind it (searches,
+ * settled nodes, relaxed edges, queue operations) and hits and misses of route cache and
+ * shortest path tree cache.
+ *
+ * Metrics are exported as a plain text snapshot, one <code>name value</code> pair per line,
+ * and as a JMX MBean once registered. Counters are LongAdders. Latencies are recorded into a
+ * LatencyHistogram of each routing worker, without any shared write per bag, and added to the
+ * shared histogram under its lock once per chunk of bags.
+ *
+ * @author abankey
+ *
+ */
+public class PathfinderMetrics implements PathfinderMetricsMBean {
+
+	public static final String OBJECT_NAME_PREFIX = "com.baggagepathfinder:type=PathfinderMetrics,name=";
+
+	private static final String[] SECTION_NAMES = new String[]{"none", "conveyor", "departure", "bag"};
+
+	private final LatencyHistogram queryLatency = new LatencyHistogram();
+	private final LongAdder searches = new LongAdder();
+	private final LongAdder settledNodes = new LongAdder();
+	private final LongAdder relaxedEdges = new LongAdder();
+	private final LongAdder queueOperations = new LongAdder();
+	private final LongAdder routeCacheHits = new LongAdder();
+	private final LongAdder routeCacheMisses = new LongAdder();
+	private final LongAdder treeCacheHits = new LongAdder();
+	private final LongAdder treeCacheMisses = new LongAdder();
+	private final LongAdder[] parseNanos = new LongAdder[SECTION_NAMES.length];
+	private final LongAdder[] parseLines = new LongAdder[SECTION_NAMES.length];
+	private volatile int graphNodeCount;
+	private volatile int graphEdgeCount;
+
+	public PathfinderMetrics() {
+		for(int section = 0; section < SECTION_NAMES.length; section++){
+			parseNanos[section] = new LongAdder();
+			parseLines[section] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Adds the times it took to route bags, the caller resets the histogram afterwards.
+	 */
+	void recordQueries(LatencyHistogram latencies){
+		synchronized(queryLatency){
+			queryLatency.add(latencies);
+		}
+	}
+
+	/**
+	 * Adds the work counted by a pathfinder, the caller resets the counters afterwards.
+	 */
+	void recordSearches(SearchCounters counters){
+		searches.add(counters.getSearches());
+		settledNodes.add(counters.getSettledNodes());
+		relaxedEdges.add(counters.getRelaxedEdges());
+		queueOperations.add(counters.getQueueOperations());
+	}
+
+	void recordRouteCache(boolean hit){
+		(hit ? routeCacheHits : routeCacheMisses).increment();
+	}
+
+	void recordTreeCache(boolean hit){
+		(hit ? treeCacheHits : treeCacheMisses).increment();
+	}
+
+	/**
+	 * Records the time it took to parse lines of an input section.
+	 */
+	void recordParse(int section, long nanos, int lines){
+		parseNanos[section].add(nanos);
+		parseLines[section].add(lines);
+	}
+
+	void recordGraph(CompactGraph graph){
+		graphNodeCount = graph.getNodeCount();
+		graphEdgeCount = graph.getEdgeCount();
+	}
+
+	/**
+	 * @return copy of the latencies of routed bags in nanoseconds.
+	 */
+	public LatencyHistogram getQueryLatency() {
+		synchronized(queryLatency){
+			return new LatencyHistogram(queryLatency);
+		}
+	}
+
+	@Override
+	public long getQueries() {
+		synchronized(queryLatency){
+			return queryLatency.getCount();
+		}
+	}
+
+	@Override
+	public double getQueryLatencyMeanMicros() {
+		synchronized(queryLatency){
+			return queryLatency.getMean() / 1000d;
+		}
+	}
+
+	@Override
+	public double getQueryLatencyP50Micros() {
+		return getQueryLatencyMicros(50);
+	}
+
+	@Override
+	public double getQueryLatencyP99Micros() {
+		return getQueryLatencyMicros(99);
+	}
+
+	@Override
+	public double getQueryLatencyP999Micros() {
+		return getQueryLatencyMicros(99.9);
+	}
+
+	@Override
+	public double getQueryLatencyMaxMicros() {
+		synchronized(queryLatency){
+			return queryLatency.getMax() / 1000d;
+		}
+	}
+
+	private double getQueryLatencyMicros(double percentile){
+		synchronized(queryLatency){
+			return queryLatency.getValueAtPercentile(percentile) / 1000d;
+		}
+	}
+
+	@Override
+	public long getSearches() {
+		return searches.sum();
+	}
+
+	@Override
+	public long getSettledNodes() {
+		return settledNodes.sum();
+	}
+
+	@Override
+	public long getRelaxedEdges() {
+		return relaxedEdges.sum();
+	}
+
+	@Override
+	public long getQueueOperations() {
+		return queueOperations.sum();
+	}
+
+	public long getRouteCacheHits() {
+		return routeCacheHits.sum();
+	}
+
+	public long getRouteCacheMisses() {
+		return routeCacheMisses.sum();
+	}
+
+	public long getTreeCacheHits() {
+		return treeCacheHits.sum();
+	}
+
+	public long getTreeCacheMisses() {
+		return treeCacheMisses.sum();
+	}
+
+	@Override
+	public double getRouteCacheHitRate() {
+		return hitRate(routeCacheHits.sum(), routeCacheMisses.sum());
+	}
+
+	@Override
+	public double getTreeCacheHitRate() {
+		return hitRate(treeCacheHits.sum(), treeCacheMisses.sum());
+	}
+
+	@Override
+	public int getGraphNodeCount() {
+		return graphNodeCount;
+	}
+
+	@Override
+	public int getGraphEdgeCount() {
+		return graphEdgeCount;
+	}
+
+	@Override
+	public double getConveyorParseMillis() {
+		return parseNanos[BaggagePathfinderService.SECTION_CONVEYOR].sum() / 1e6;
+	}
+
+	@Override
+	public double getDepartureParseMillis() {
+		return parseNanos[BaggagePathfinderService.SECTION_DEPARTURE].sum() / 1e6;
+	}
+
+	@Override
+	public double getBagParseMillis() {
+		return parseNanos[BaggagePathfinderService.SECTION_BAG].sum() / 1e6;
+	}
+
+	/**
+	 * @return number of parsed lines of a section, see BaggagePathfinderService section constants.
+	 */
+	public long getParseLines(int section) {
+		return parseLines[section].sum();
+	}
+
+	/**
+	 * Fetches all metrics as plain text, one <code>name value</code> pair per line.
+	 *
+	 * @return metrics snapshot
+	 */
+	@Override
+	public String getSnapshot() {
+		StringBuilder snapshot = new StringBuilder();
+		for(int section = BaggagePathfinderService.SECTION_CONVEYOR; section < SECTION_NAMES.length; section++){
+			append(snapshot, "parse." + SECTION_NAMES[section] + ".millis", parseNanos[section].sum() / 1e6);
+			append(snapshot, "parse." + SECTION_NAMES[section] + ".lines", parseLines[section].sum());
+		}
+		append(snapshot, "graph.nodes", graphNodeCount);
+		append(snapshot, "graph.edges", graphEdgeCount);
+		append(snapshot, "query.count", getQueries());
+		append(snapshot, "query.latency.mean.micros", getQueryLatencyMeanMicros());
+		append(snapshot, "query.latency.p50.micros", getQueryLatencyP50Micros());
+		append(snapshot, "query.latency.p99.micros", getQueryLatencyP99Micros());
+		append(snapshot, "query.latency.p999.micros", getQueryLatencyP999Micros());
+		append(snapshot, "query.latency.max.micros", getQueryLatencyMaxMicros());
+		append(snapshot, "search.count", getSearches());
+		append(snapshot, "search.settled.nodes", getSettledNodes());
+		append(snapshot, "search.relaxed.edges", getRelaxedEdges());
+		append(snapshot, "search.queue.operations", getQueueOperations());
+		append(snapshot, "cache.route.hits", getRouteCacheHits());
+		append(snapshot, "cache.route.misses", getRouteCacheMisses());
+		append(snapshot, "cache.route.hit.rate", getRouteCacheHitRate());
+		append(snapshot, "cache.tree.hits", getTreeCacheHits());
+		append(snapshot, "cache.tree.misses", getTreeCacheMisses());
+		append(snapshot, "cache.tree.hit.rate", getTreeCacheHitRate());
+		return snapshot.toString();
+	}
+
+	/**
+	 * Sets all counters and the latency histogram to zero. Graph size is kept.
+	 */
+	@Override
+	public void reset() {
+		synchronized(queryLatency){
+			queryLatency.reset();
+		}
+		for(LongAdder adder : new LongAdder[]{searches, settledNodes, relaxedEdges, queueOperations, 
+				routeCacheHits, routeCacheMisses, treeCacheHits, treeCacheMisses}){
+			adder.reset();
+		}
+		for(int section = 0; section < SECTION_NAMES.length; section++){
+			parseNanos[section].reset();
+			parseLines[section].reset();
+		}
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server.
+	 *
+	 * @param name Name of the metrics, for example the airport code.
+	 *
+	 * @return object name the metrics are registered under.
+	 *
+	 * @throws SystemException if the name is invalid or already registered.
+	 */
+	public ObjectName register(String name) throws SystemException{
+		try{
+			ObjectName objectName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+			return objectName;
+		}catch(JMException e){
+			throw new SystemException("Metrics " + name + " can not be registered: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Removes the metrics of a name from the platform MBean server, if registered.
+	 *
+	 * @param name Name the metrics were registered with.
+	 */
+	public static void unregister(String name){
+		try{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+			if(server.isRegistered(objectName)){
+				server.unregisterMBean(objectName);
+			}
+		}catch(JMException e){
+			//Not registered.
+		}
+	}
+
+	private static double hitRate(long hits, long misses){
+		return hits + misses == 0 ? 0d : (double)hits / (hits + misses);
+	}
+
+	private static void append(StringBuilder snapshot, String name, long value){
+		snapshot.append(name).append(' ').append(value).append(BaggagePathfinderService.NEW_LINE);
+	}
+
+	private static void append(StringBuilder snapshot, String name, double value){
+		snapshot.append(name).append(' ').append(String.format(Locale.ROOT, "%.3f", value))
+				.append(BaggagePathfinderService.NEW_LINE);
+	}
+}
@@ -0,0 +1,47 @@
+package com.baggagepathfinder.service;
+
+/**
+ * JMX view of PathfinderMetrics. Latencies are in microseconds, parse times in milliseconds.
+ *
+ * @author abankey
+ */
+public interface PathfinderMetricsMBean {
+
+	long getQueries();
+
+	double getQueryLatencyMeanMicros();
+
+	double getQueryLatencyP50Micros();
+
+	double getQueryLatencyP99Micros();
+
+	double getQueryLatencyP999Micros();
+
+	double getQueryLatencyMaxMicros();
+
+	long getSearches();
+
+	long getSettledNodes();
+
+	long getRelaxedEdges();
+
+	long getQueueOperations();
+
+	double getRouteCacheHitRate();
+
+	double getTreeCacheHitRate();
+
+	int getGraphNodeCount();
+
+	int getGraphEdgeCount();
+
+	double getConveyorParseMillis();
+
+	double getDepartureParseMillis();
+
+	double getBagParseMillis();
+
+	String getSnapshot();
+
+	void reset();
+}
@@ -0,0 +1,224 @@
+package com.baggagepathfinder.service;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import com.baggagepathfinder.graph.NodePath;
+
+/**
+ * The class RouteCache keeps the NodePath of recently routed (source node, destination node)
+ * pairs, so bags sharing a check-in counter and a gate reuse one route. Least recently used
+ * route is evicted first, once either the entry limit or the memory limit is exceeded.
+ *
+ * Cached routes belong to one topology version. Validating the cache against another version
+ * drops all routes.
+ *
+ * Routes are split by key hash into up to MAX_STRIPES stripes, each with its own lock and its
+ * share of the limits, so parallel bag routing doesn't serialize on one lock. Eviction is least
+ * recently used within a stripe. A cache of less than MIN_STRIPE_ENTRIES entries per stripe
+ * keeps a single stripe and with it exact limits. Cached routes are handed to many bags, so
+ * their node lists are stored read only.
+ *
+ * @author abankey
+ *
+ */
+class RouteCache {
+
+	/**
+	 * Estimated memory of a cached route without its node list: map entry, key, NodePath and list.
+	 */
+	static final long ENTRY_BYTES = 128;
+
+	/**
+	 * Estimated memory of each node reference in the node list of a cached route.
+	 */
+	static final long NODE_BYTES = 8;
+
+	static final int MAX_STRIPES = 16;
+	static final int MIN_STRIPE_ENTRIES = 256;
+
+	private final Stripe[] stripes;
+
+	RouteCache(int maxEntries, long maxBytes) {
+		int stripeCount = 1;
+		while(stripeCount < MAX_STRIPES && (long)maxEntries >= 2L * stripeCount * MIN_STRIPE_ENTRIES){
+			stripeCount *= 2;
+		}
+		this.stripes = new Stripe[stripeCount];
+		for(int i = 0; i < stripeCount; i++){
+			stripes[i] = new Stripe((maxEntries + stripeCount - 1) / stripeCount, maxBytes / stripeCount);
+		}
+	}
+
+	/**
+	 * Packs source and destination node ids into a cache key.
+	 */
+	static long key(int sourceId, int destinationId){
+		return ((long)sourceId << 32) | (destinationId & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Estimates the memory of a cached route.
+	 */
+	static long estimateMemory(NodePath path){
+		return ENTRY_BYTES + NODE_BYTES * path.getPath().size();
+	}
+
+	private Stripe stripe(long key){
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return stripes[(int)(hash >>> 32) & (stripes.length - 1)];
+	}
+
+	/**
+	 * Drops all routes if they were cached for another topology version.
+	 *
+	 * @param version Current topology version
+	 */
+	void validate(long version){
+		for(Stripe stripe : stripes){
+			stripe.validate(version);
+		}
+	}
+
+	/**
+	 * @return cached route or null if the route is not cached.
+	 */
+	NodePath get(int sourceId, int destinationId){
+		long key = key(sourceId, destinationId);
+		return stripe(key).get(key);
+	}
+
+	/**
+	 * Caches a route.
+	 *
+	 * @return route as cached, with a read only node list.
+	 */
+	NodePath put(int sourceId, int destinationId, NodePath path){
+		NodePath cached = new NodePath(Collections.unmodifiableList(path.getPath()), path.getTravelTime());
+		long key = key(sourceId, destinationId);
+		stripe(key).put(key, cached);
+		return cached;
+	}
+
+	int size(){
+		int size = 0;
+		for(Stripe stripe : stripes){
+			size += stripe.size();
+		}
+		return size;
+	}
+
+	/**
+	 * @return estimated memory of cached routes in bytes.
+	 */
+	long getMemory(){
+		long memory = 0;
+		for(Stripe stripe : stripes){
+			memory += stripe.getMemory();
+		}
+		return memory;
+	}
+
+	long getHits(){
+		long hits = 0;
+		for(Stripe stripe : stripes){
+			hits += stripe.getHits();
+		}
+		return hits;
+	}
+
+	long getMisses(){
+		long misses = 0;
+		for(Stripe stripe : stripes){
+			misses += stripe.getMisses();
+		}
+		return misses;
+	}
+
+	void clear(){
+		for(Stripe stripe : stripes){
+			stripe.clear();
+		}
+	}
+
+	/**
+	 * Least recently used map of one stripe, methods are synchronized.
+	 */
+	private static class Stripe {
+
+		private final int maxEntries;
+		private final long maxBytes;
+		private final LinkedHashMap<Long, NodePath> routes;
+		private long memory;
+		private long topologyVersion;
+		private long hits;
+		private long misses;
+
+		Stripe(int maxEntries, long maxBytes) {
+			this.maxEntries = maxEntries;
+			this.maxBytes = maxBytes;
+			this.routes = new LinkedHashMap<Long, NodePath>(16, 0.75f, true);
+		}
+
+		synchronized void validate(long version){
+			if(version != topologyVersion){
+				routes.clear();
+				memory = 0;
+				topologyVersion = version;
+			}
+		}
+
+		synchronized NodePath get(long key){
+			NodePath path = routes.get(key);
+			if(path == null){
+				misses++;
+			}else{
+				hits++;
+			}
+			return path;
+		}
+
+		synchronized void put(long key, NodePath path){
+			long bytes = estimateMemory(path);
+			if(bytes > maxBytes)
+			//Route alone exceeds the memory limit, don't cache it.
+			{
+				return;
+			}
+			NodePath previous = routes.put(key, path);
+			if(previous != null){
+				memory -= estimateMemory(previous);
+			}
+			memory += bytes;
+
+			//Evict least recently used routes until the stripe fits its limits.
+			for(Iterator<NodePath> it = routes.values().iterator();
+					(routes.size() > maxEntries || memory > maxBytes) && it.hasNext();){
+				memory -= estimateMemory(it.next());
+				it.remove();
+			}
+		}
+
+		synchronized int size(){
+			return routes.size();
+		}
+
+		synchronized long getMemory(){
+			return memory;
+		}
+
+		synchronized long getHits(){
+			return hits;
+		}
+
+		synchronized long getMisses(){
+			return misses;
+		}
+
+		synchronized void clear(){
+			routes.clear();
+			memory = 0;
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.baggagepathfinder.service;
+
+import java.io.IOException;
+
+import com.baggagepathfinder.graph.NodePath;
+import com.baggagepathfinder.model.Bag;
+
+/**
+ * The interface RouteSink receives the route of each bag as soon as it is computed. Bags
+ * are delivered in input order.
+ * 
+ * @author abankey
+ *
+ */
+public interface RouteSink {
+
+	/**
+	 * Receives the route of a bag.
+	 * 
+	 * @param bag Bag
+	 * 
+	 * @param path Quickest path and travel time of the bag.
+	 * 
+	 * @throws IOException if route can not be written.
+	 */
+	void accept(Bag bag, NodePath path) throws IOException;
+
+	/**
+	 * Receives the route of a bag of a bag store. Sinks which only need a few values of the
+	 * bag read them from the store, by default a Bag view is created.
+	 * 
+	 * @param bags Bag store
+	 * 
+	 * @param bag Bag index in bag store
+	 * 
+	 * @param path Quickest path and travel time of the bag.
+	 * 
+	 * @throws IOException if route can not be written.
+	 */
+	default void accept(BagStore bags, int bag, NodePath path) throws IOException{
+		accept(bags.get(bag), path);
+	}
+
+	/**
+	 * Passes routes received so far on, for example to the underlying Writer. Called after each
+	 * batch of a BagStream, by default does nothing.
+	 * 
+	 * @throws IOException if routes can not be written.
+	 */
+	default void flush() throws IOException{
+	}
+}
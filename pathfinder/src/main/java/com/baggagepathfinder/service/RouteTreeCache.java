@@ -0,0 +1,105 @@
+package com.baggagepathfinder.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.baggagepathfinder.graph.ShortestPathTree;
+
+/**
+ * The class RouteTreeCache keeps the shortest path trees of recently used source nodes,
+ * least recently used tree is evicted first. On a topology change only the trees the 
+ * change can affect are dropped, all other trees stay valid.
+ * 
+ * Methods are synchronized, so parallel bag routing can share one cache.
+ * 
+ * @author abankey
+ *
+ */
+class RouteTreeCache {
+
+	private final int maxTrees;
+	private final Map<Integer, ShortestPathTree> trees;
+
+	RouteTreeCache(final int maxTrees) {
+		this.maxTrees = maxTrees;
+		this.trees = new LinkedHashMap<Integer, ShortestPathTree>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, ShortestPathTree> eldest) {
+				return size() > RouteTreeCache.this.maxTrees;
+			}
+		};
+	}
+
+	int getMaxTrees() {
+		return maxTrees;
+	}
+
+	synchronized ShortestPathTree get(int source){
+		return trees.get(source);
+	}
+
+	synchronized void put(ShortestPathTree tree){
+		trees.put(tree.getSource(), tree);
+	}
+
+	synchronized int size(){
+		return trees.size();
+	}
+
+	synchronized boolean isEmpty(){
+		return trees.isEmpty();
+	}
+
+	synchronized void clear(){
+		trees.clear();
+	}
+
+	/**
+	 * Drops the trees which use the segment. To be called after a segment was removed
+	 * or became slower.
+	 * 
+	 * @param nodeA Node id of one end
+	 * 
+	 * @param nodeB Node id of other end
+	 * 
+	 * @param travelTime Travel time of the segment before the change
+	 * 
+	 * @return number of dropped trees
+	 */
+	synchronized int invalidateRemoval(int nodeA, int nodeB, double travelTime){
+		int dropped = 0;
+		for(Iterator<ShortestPathTree> it = trees.values().iterator(); it.hasNext();){
+			if(it.next().isAffectedByRemoval(nodeA, nodeB, travelTime)){
+				it.remove();
+				dropped++;
+			}
+		}
+		return dropped;
+	}
+
+	/**
+	 * Drops the trees in which the segment gives a quicker path. To be called after a
+	 * segment was added or became quicker.
+	 * 
+	 * @param nodeA Node id of one end
+	 * 
+	 * @param nodeB Node id of other end
+	 * 
+	 * @param travelTime Travel time of the segment after the change
+	 * 
+	 * @return number of dropped trees
+	 */
+	synchronized int invalidateAddition(int nodeA, int nodeB, double travelTime){
+		int dropped = 0;
+		for(Iterator<ShortestPathTree> it = trees.values().iterator(); it.hasNext();){
+			if(it.next().isAffectedByAddition(nodeA, nodeB, travelTime)){
+				it.remove();
+				dropped++;
+			}
+		}
+		return dropped;
+	}
+}
@@ -0,0 +1,96 @@
+package com.baggagepathfinder.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import com.baggagepathfinder.graph.Node;
+import com.baggagepathfinder.graph.NodePath;
+import com.baggagepathfinder.model.Bag;
+
+/**
+ * The class RouteWriter writes the route of each bag to a Writer as one line of text.
+ * The line is formatted in a reusable buffer, so writing a route allocates next to nothing.
+ * 
+ * Output format:
+ * 
+ * BagId Path                 : TravelTime
+ * ---------------------------------------
+ * 0001 A1 A4 A5 A6 : 11.0
+ * 
+ * @author abankey
+ *
+ */
+public class RouteWriter implements RouteSink {
+
+	private final Writer writer;
+	private final StringBuilder line = new StringBuilder(128);
+	private char[] buffer = new char[128];
+
+	public RouteWriter(Writer writer) {
+		this.writer = writer;
+	}
+
+	public void accept(Bag bag, NodePath path) throws IOException {
+		line.setLength(0);
+		format(line, bag.getBagId(), path);
+		write();
+	}
+
+	/**
+	 * Writes the route of a bag of a bag store, a numeric bag id is formatted straight from
+	 * the store.
+	 */
+	@Override
+	public void accept(BagStore bags, int bag, NodePath path) throws IOException {
+		line.setLength(0);
+		bags.appendBagId(bag, line);
+		formatPath(line, path);
+		write();
+	}
+
+	/**
+	 * Flushes the Writer.
+	 */
+	@Override
+	public void flush() throws IOException {
+		writer.flush();
+	}
+
+	private void write() throws IOException {
+		int length = line.length();
+		if(buffer.length < length){
+			buffer = new char[Math.max(length, buffer.length * 2)];
+		}
+		line.getChars(0, length, buffer, 0);
+		writer.write(buffer, 0, length);
+	}
+
+	/**
+	 * Appends the output line of a bag, including line separator.
+	 * 
+	 * @param line Output buffer
+	 * 
+	 * @param bagId Bag id
+	 * 
+	 * @param path Quickest path of the bag
+	 */
+	public static void format(StringBuilder line, String bagId, NodePath path){
+		line.append(bagId);
+		formatPath(line, path);
+	}
+
+	private static void formatPath(StringBuilder line, NodePath path){
+		line.append(BaggagePathfinderService.SPACE);
+		List<Node> nodes = path.getPath();
+		for(int i = 0, size = nodes.size(); i < size; i++){
+			line.append(nodes.get(i).getName()).append(BaggagePathfinderService.SPACE);
+		}
+		line.append(":").append(BaggagePathfinderService.SPACE).append(path.getTravelTime())
+			.append(BaggagePathfinderService.NEW_LINE);
+	}
+
+	public Writer getWriter() {
+		return writer;
+	}
+}
@@ -0,0 +1,40 @@
+package com.baggagepathfinder.service;
+
+/**
+ * Search used to route bags which are not answered by route table or route cache.
+ * All strategies find the same travel times.
+ *
+ * @author abankey
+ *
+ */
+public enum SearchStrategy {
+
+	/**
+	 * One full Dijkstra search per distinct source node, all bags of the source are answered
+	 * from its shortest path tree. Best for batches with many bags per check-in counter.
+	 */
+	DIJKSTRA,
+
+	/**
+	 * One Dijkstra search per bag, stops once the destination is settled.
+	 */
+	EARLY_EXIT_DIJKSTRA,
+
+	/**
+	 * One Dijkstra search per bag from both source and destination.
+	 */
+	BIDIRECTIONAL_DIJKSTRA,
+
+	/**
+	 * One A* search per bag with landmark lower bounds. Landmarks are precomputed once per
+	 * conveyor system.
+	 */
+	ALT,
+
+	/**
+	 * One bidirectional search per bag over a contraction hierarchy. The hierarchy is 
+	 * precomputed once per conveyor system, which takes much longer than a single search
+	 * but makes every search explore only a tiny part of large conveyor systems.
+	 */
+	CONTRACTION_HIERARCHY
+}
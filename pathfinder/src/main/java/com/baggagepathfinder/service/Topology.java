@@ -0,0 +1,339 @@
+package com.baggagepathfinder.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.graph.CompactGraph;
+import com.baggagepathfinder.graph.NodePath;
+import com.baggagepathfinder.graph.Pathfinder;
+import com.baggagepathfinder.graph.RouteTable;
+import com.baggagepathfinder.model.Bag;
+import com.baggagepathfinder.model.BaggageClaim;
+import com.baggagepathfinder.model.Departure;
+import com.baggagepathfinder.model.Terminal;
+import com.baggagepathfinder.utils.LineTokenizer;
+
+/**
+ * The class Topology is an immutable view of the conveyor system and departures of one
+ * airport, see BaggagePathfinderService#createTopology. It routes bags without changing any
+ * shared state, so any number of threads may route against one Topology at the same time.
+ *
+ * Compact graph, route table, landmarks and contraction hierarchy are only read. A routing
+ * call borrows a BagRouter, and with it search scratch space, from a pool of idle routers and
+ * returns it when done. A new router is created if all are busy. At most MAX_IDLE_ROUTERS
+ * idle routers are kept, any further router is dropped after its call, so the scratch space
+ * a Topology holds is bounded by that number and not by the threads which ever used it. The
+ * pool goes with the Topology.
+ *
+ * Bag routes equal the routes BaggagePathfinderService computes for the same data with the
+ * same search strategy.
+ *
+ * @author abankey
+ *
+ */
+public final class Topology {
+
+	public static final int MAX_IDLE_ROUTERS = Runtime.getRuntime().availableProcessors();
+
+	private final CompactGraph graph;
+
+	/**
+	 * Departure terminal node id of each flight id.
+	 */
+	private final Map<String, Integer> flightTerminals;
+
+	/**
+	 * Node id of BaggageClaim, -1 if the conveyor system has none.
+	 */
+	private final int baggageClaimId;
+
+	private final RouteTable routeTable;
+	private final Supplier<Pathfinder> pathfinders;
+	private final BlockingQueue<BagRouter> idleRouters = new ArrayBlockingQueue<BagRouter>(MAX_IDLE_ROUTERS);
+
+	/**
+	 * @param graph Compact graph of the conveyor system
+	 *
+	 * @param departures Departures by flight id, copied.
+	 *
+	 * @param routeTable Route table of the graph, may be null.
+	 *
+	 * @param pathfinders Point to point pathfinder supplier, null to search shortest path trees.
+	 */
+	Topology(CompactGraph graph, Map<String, Departure> departures, RouteTable routeTable,
+			Supplier<Pathfinder> pathfinders) {
+		this.graph = graph;
+		Map<String, Integer> terminals = new HashMap<String, Integer>();
+		for(Departure departure : departures.values()){
+			terminals.put(departure.getFlightId(), graph.getId(departure.getTerminal().getName()));
+		}
+		this.flightTerminals = Collections.unmodifiableMap(terminals);
+		int claimId = graph.getId(BaggagePathfinderService.BAGGAGE_CLAIM);
+		this.baggageClaimId = claimId != -1 && graph.getNode(claimId) instanceof BaggageClaim ? claimId : -1;
+		this.routeTable = routeTable;
+		this.pathfinders = pathfinders;
+	}
+
+	/**
+	 * Creates a router of this topology for a single thread.
+	 *
+	 * @param treeCache Shortest path trees of this topology, may be null.
+	 */
+	BagRouter createRouter(RouteTreeCache treeCache){
+		return new BagRouter(graph, routeTable, treeCache, null, pathfinders, 1, null);
+	}
+
+	/**
+	 * @return idle router of the pool, a new router if there is none.
+	 */
+	private BagRouter borrowRouter(){
+		BagRouter router = idleRouters.poll();
+		return router != null ? router : createRouter(null);
+	}
+
+	/**
+	 * Puts a router back into the pool, drops it if the pool is full.
+	 */
+	private void releaseRouter(BagRouter router){
+		idleRouters.offer(router);
+	}
+
+	/**
+	 * Creates the topology of a conveyor system and its departures, with SearchStrategy.DIJKSTRA
+	 * and without route table.
+	 *
+	 * @param conveyorData Conveyor data, see BaggagePathfinderService#handleConveyorData.
+	 *
+	 * @param departureData Departure data, see BaggagePathfinderService#handleDepartureData.
+	 *
+	 * @return Topology
+	 *
+	 * @throws SystemException if data is invalid.
+	 */
+	public static Topology build(String conveyorData, String departureData) throws SystemException{
+		BaggagePathfinderService service = new BaggagePathfinderService();
+		service.handleConveyorData(conveyorData);
+		service.handleDepartureData(departureData);
+		return service.createTopology();
+	}
+
+	/**
+	 * Identifies the quickest path between two nodes.
+	 *
+	 * @param sourceName Name of source node
+	 *
+	 * @param destinationName Name of destination node
+	 *
+	 * @return path and travel time, Double.POSITIVE_INFINITY if destination is not reachable.
+	 *
+	 * @throws SystemException if a node doesn't exist.
+	 */
+	public NodePath findShortestPath(String sourceName, String destinationName) throws SystemException{
+		int[] sourceIds = new int[]{nodeId(sourceName)};
+		int[] destinationIds = new int[]{nodeId(destinationName)};
+		BagRouter router = borrowRouter();
+		try{
+			return router.route(sourceIds, destinationIds, 1)[0];
+		}finally{
+			releaseRouter(router);
+		}
+	}
+
+	/**
+	 * Identifies shortest travel path and travel time of each bag.
+	 *
+	 * @param baggageData Baggage data, see BaggagePathfinderService#handleBaggagedata.
+	 *
+	 * @return travel path and time for each bag, same format as BaggagePathfinderService#findShortestPath.
+	 *
+	 * @throws SystemException if baggage data is invalid.
+	 */
+	public String routeBags(String baggageData) throws SystemException{
+		StringWriter output = new StringWriter();
+		try{
+			routeBags(new StringReader(baggageData), new RouteWriter(output));
+		}catch(IOException e){
+			throw new SystemException(e.getMessage());
+		}
+		return output.toString();
+	}
+
+	/**
+	 * Identifies shortest travel path and travel time of each bag, reading baggage data line
+	 * by line. Bags are routed in chunks of OUTPUT_CHUNK_BAGS, so only one chunk is held in memory.
+	 *
+	 * @param baggageData Baggage data, see BaggagePathfinderService#handleBaggagedata.
+	 *
+	 * @param sink Receives the route of each bag, in input order.
+	 *
+	 * @throws IOException if input can not be read or sink fails.
+	 *
+	 * @throws SystemException if baggage data is invalid.
+	 */
+	public void routeBags(Reader baggageData, RouteSink sink) throws IOException, SystemException{
+		BufferedReader input = baggageData instanceof BufferedReader ? (BufferedReader)baggageData 
+				: new BufferedReader(baggageData);
+		BagRouter router = borrowRouter();
+		try{
+			routeBags(input, router, sink);
+		}finally{
+			releaseRouter(router);
+		}
+	}
+
+	private void routeBags(BufferedReader input, BagRouter router, RouteSink sink) throws IOException, SystemException{
+		LineTokenizer tokenizer = new LineTokenizer();
+		int chunkSize = BaggagePathfinderService.OUTPUT_CHUNK_BAGS;
+		Bag[] bags = new Bag[chunkSize];
+		int[] sourceIds = new int[chunkSize];
+		int[] destinationIds = new int[chunkSize];
+		int count = 0;
+		int blankLines = 0;
+		String line;
+		while((line = input.readLine()) != null){
+			if(line.isEmpty()){
+				blankLines++;
+				continue;
+			}
+			if(blankLines > 0)
+			//Blank line in the middle of baggage data.
+			{
+				throw new SystemException("Invalid input data");
+			}
+
+			bags[count] = createBag(tokenizer, line);
+			sourceIds[count] = nodeId(bags[count].getSourceNode().getName());
+			destinationIds[count] = nodeId(bags[count].getDestinationNode().getName());
+			if(++count == chunkSize){
+				route(router, bags, sourceIds, destinationIds, count, sink);
+				count = 0;
+			}
+		}
+		route(router, bags, sourceIds, destinationIds, count, sink);
+	}
+
+	/**
+	 * Identifies shortest travel path and travel time of a batch of bags, see BagStream. Unlike
+	 * routeBags, an invalid line doesn't fail the batch, it is skipped.
+	 *
+	 * @param router Router of this topology, see createRouter.
+	 *
+	 * @param lines Baggage data lines, blank lines are skipped.
+	 *
+	 * @param count Number of lines
+	 *
+	 * @param sink Receives the route of each valid bag, in input order.
+	 *
+	 * @param errors Receives the error message of each invalid line at the index of the line,
+	 * null for all other lines.
+	 *
+	 * @return number of routed bags.
+	 *
+	 * @throws IOException if sink fails.
+	 */
+	int routeBatch(BagRouter router, String[] lines, int count, RouteSink sink, String[] errors) throws IOException{
+		LineTokenizer tokenizer = new LineTokenizer();
+		Bag[] bags = new Bag[count];
+		int[] sourceIds = new int[count];
+		int[] destinationIds = new int[count];
+		int bagCount = 0;
+		for(int i = 0; i < count; i++){
+			errors[i] = null;
+			if(lines[i].isEmpty()){
+				continue;
+			}
+			try{
+				bags[bagCount] = createBag(tokenizer, lines[i]);
+				sourceIds[bagCount] = nodeId(bags[bagCount].getSourceNode().getName());
+			}catch(SystemException e){
+				errors[i] = e.getMessage();
+				continue;
+			}
+			destinationIds[bagCount] = graph.getId(bags[bagCount].getDestinationNode().getName());
+			bagCount++;
+		}
+		route(router, bags, sourceIds, destinationIds, bagCount, sink);
+		return bagCount;
+	}
+
+	private static void route(BagRouter router, Bag[] bags, int[] sourceIds, int[] destinationIds, int count,
+			RouteSink sink) throws IOException{
+		NodePath[] paths = router.route(sourceIds, destinationIds, count);
+		for(int i = 0; i < count; i++){
+			sink.accept(bags[i], paths[i]);
+		}
+	}
+
+	/**
+	 * Creates the bag of a baggage data line, same validation as BaggagePathfinderService.
+	 */
+	private Bag createBag(LineTokenizer tokenizer, String line) throws SystemException{
+		if(tokenizer.tokenize(line) < 3)
+		//Each line is expected to have three parameters.
+		{
+			throw new SystemException("Invalid input data");
+		}
+
+		int inductionTime = Bag.NO_INDUCTION_TIME;
+		if(tokenizer.getCount() > 3){
+			inductionTime = tokenizer.getTime(3);
+			if(inductionTime == -1){
+				throw new SystemException("Invalid induction time " + tokenizer.get(3));
+			}
+		}
+
+		String flightId = tokenizer.get(2);
+		int destinationId;
+		if(flightId.equals(BaggagePathfinderService.ARRIVAL)){
+			if(baggageClaimId == -1){
+				throw new SystemException("Invalid Data. Inputs contains a bag for ARRIVAL and no " +
+						"BaggageClaim terminal exists in system.");
+			}
+			destinationId = baggageClaimId;
+		}
+		else if(flightTerminals.containsKey(flightId)){
+			destinationId = flightTerminals.get(flightId);
+		}
+		else{
+			throw new SystemException("Departure with flight name " + flightId + " doesn't exist.");
+		}
+		return new Bag(tokenizer.get(0), graph.getNode(nodeId(tokenizer.get(1))), 
+				(Terminal)graph.getNode(destinationId), flightId, inductionTime);
+	}
+
+	private int nodeId(String name) throws SystemException{
+		int id = graph.getId(name);
+		if(id == -1){
+			throw new SystemException("Terminal/Checkin/BaggageClaim of name " + name + " doesn't exist.");
+		}
+		return id;
+	}
+
+	/**
+	 * @return true if the topology has a departure of the flight.
+	 */
+	public boolean hasFlight(String flightId){
+		return flightTerminals.containsKey(flightId);
+	}
+
+	public CompactGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return route table, null if routes were not precomputed.
+	 */
+	public RouteTable getRouteTable() {
+		return routeTable;
+	}
+}
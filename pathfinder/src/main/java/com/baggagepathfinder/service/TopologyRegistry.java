@@ -0,0 +1,85 @@
+package com.baggagepathfinder.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.graph.NodePath;
+
+/**
+ * The class TopologyRegistry keeps the Topology of each airport served by one JVM. Lookups
+ * are lock free reads of a ConcurrentHashMap and topologies are immutable, so threads route
+ * bags of any airport concurrently. Replacing the topology of an airport doesn't disturb
+ * requests still running against the previous one.
+ *
+ * @author abankey
+ *
+ */
+public class TopologyRegistry {
+
+	private final ConcurrentHashMap<String, Topology> topologies = new ConcurrentHashMap<String, Topology>();
+
+	/**
+	 * Adds or replaces the topology of an airport.
+	 *
+	 * @param airport Airport code
+	 *
+	 * @param topology Topology
+	 *
+	 * @return previous topology of the airport, null if there was none.
+	 */
+	public Topology register(String airport, Topology topology){
+		return topologies.put(airport, topology);
+	}
+
+	/**
+	 * @return removed topology of the airport, null if there was none.
+	 */
+	public Topology remove(String airport){
+		return topologies.remove(airport);
+	}
+
+	/**
+	 * Fetches the topology of an airport.
+	 *
+	 * @throws SystemException if no topology is registered for the airport.
+	 */
+	public Topology get(String airport) throws SystemException{
+		Topology topology = topologies.get(airport);
+		if(topology == null){
+			throw new SystemException("Topology of airport " + airport + " doesn't exist.");
+		}
+		return topology;
+	}
+
+	/**
+	 * @return read only view of registered airport codes.
+	 */
+	public Set<String> getAirports() {
+		return Collections.unmodifiableSet(topologies.keySet());
+	}
+
+	/**
+	 * Identifies the quickest path between two nodes of an airport, see Topology#findShortestPath.
+	 */
+	public NodePath findShortestPath(String airport, String sourceName, String destinationName) throws SystemException{
+		return get(airport).findShortestPath(sourceName, destinationName);
+	}
+
+	/**
+	 * Identifies shortest travel path and travel time of each bag of an airport, see Topology#routeBags.
+	 */
+	public String routeBags(String airport, String baggageData) throws SystemException{
+		return get(airport).routeBags(baggageData);
+	}
+
+	/**
+	 * Identifies shortest travel path and travel time of each bag of an airport, see Topology#routeBags.
+	 */
+	public void routeBags(String airport, Reader baggageData, RouteSink sink) throws IOException, SystemException{
+		get(airport).routeBags(baggageData, sink);
+	}
+}
@@ -0,0 +1,329 @@
+package com.baggagepathfinder.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.graph.CompactGraph;
+import com.baggagepathfinder.graph.Node;
+import com.baggagepathfinder.graph.RouteTable;
+import com.baggagepathfinder.model.BaggageClaim;
+import com.baggagepathfinder.model.CheckinCounter;
+import com.baggagepathfinder.model.Departure;
+import com.baggagepathfinder.model.Terminal;
+
+/**
+ * The class TopologySnapshot writes the loaded conveyor system and departures of a service
+ * to a binary file and loads it back from a memory mapped file, so a restart skips parsing
+ * the conveyor and departure sections.
+ *
+ * Snapshot layout, all numbers big endian:
+ *
+ * <pre>
+ * int     MAGIC
+ * int     VERSION
+ * int     flags, FLAG_ROUTE_TABLE if route table follows the departures
+ * long    length of the topology part of the source file
+ * long    CRC32 of the topology part of the source file
+ * int     node count, then per node: byte type, int name length, UTF-8 name
+ * int     edge count, int[node count + 1] edge offsets, int[] edge targets, double[] edge weights,
+ *         double[] edge capacities
+ * int     departure count, then per departure: flight id, int terminal id, destination, int minute of day
+ * ...     route table, see RouteTable#write
+ * long    CRC32 of all preceding bytes
+ * </pre>
+ *
+ * The topology part of the source file is everything before the bag section header, so a
+ * new bag section doesn't make the snapshot stale. Strings are written as int length and
+ * UTF-8 bytes.
+ *
+ * @author abankey
+ *
+ */
+class TopologySnapshot {
+
+	static final int MAGIC = 0x4250534E;
+	static final int VERSION = 3;
+	static final int FLAG_ROUTE_TABLE = 1;
+
+	private static final byte TYPE_CHECKIN_COUNTER = 1;
+	private static final byte TYPE_TERMINAL = 2;
+	private static final byte TYPE_BAGGAGE_CLAIM = 3;
+
+	private static final byte[] HEADER_BAG = BaggagePathfinderService.HEADER_BAG.getBytes(StandardCharsets.UTF_8);
+
+	private TopologySnapshot() {
+	}
+
+	/**
+	 * Writes snapshot of the service. File is written next to the snapshot and moved in place,
+	 * so readers never see a partial snapshot.
+	 *
+	 * @param service Service
+	 *
+	 * @param snapshot Snapshot file
+	 *
+	 * @param source Input data file the service was loaded from
+	 *
+	 * @param routeTable Route table to include, may be null.
+	 *
+	 * @throws IOException if a file can not be read or written.
+	 */
+	static void write(BaggagePathfinderService service, Path snapshot, Path source, RouteTable routeTable) throws IOException{
+		ByteBuffer sourceBuffer = map(source);
+		long topologyLength = topologyLength(sourceBuffer);
+		long topologyChecksum = checksum(sourceBuffer, topologyLength);
+		CompactGraph graph = service.getCompactGraph();
+
+		Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+		CRC32 crc = new CRC32();
+		OutputStream file = Files.newOutputStream(temporary);
+		boolean moved = false;
+		try{
+			try{
+				DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc)));
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+				output.writeInt(routeTable != null ? FLAG_ROUTE_TABLE : 0);
+				output.writeLong(topologyLength);
+				output.writeLong(topologyChecksum);
+
+				output.writeInt(graph.getNodeCount());
+				for(int id = 0; id < graph.getNodeCount(); id++){
+					output.writeByte(type(graph.getNode(id)));
+					writeString(output, graph.getNode(id).getName());
+				}
+				output.writeInt(graph.getEdgeCount());
+				for(int id = 0; id <= graph.getNodeCount(); id++){
+					output.writeInt(id < graph.getNodeCount() ? graph.firstEdge(id) : graph.getEdgeCount());
+				}
+				for(int edge = 0; edge < graph.getEdgeCount(); edge++){
+					output.writeInt(graph.getTarget(edge));
+				}
+				for(int edge = 0; edge < graph.getEdgeCount(); edge++){
+					output.writeLong(Double.doubleToRawLongBits(graph.getWeight(edge)));
+				}
+				for(int edge = 0; edge < graph.getEdgeCount(); edge++){
+					output.writeLong(Double.doubleToRawLongBits(graph.getCapacity(edge)));
+				}
+
+				output.writeInt(service.getDepartureMap().size());
+				for(Departure departure : service.getDepartureMap().values()){
+					writeString(output, departure.getFlightId());
+					output.writeInt(graph.getId(departure.getTerminal().getName()));
+					writeString(output, departure.getDestination());
+					output.writeInt(departure.getDepartureTime());
+				}
+
+				if(routeTable != null){
+					routeTable.write(output);
+				}
+				output.flush();
+				output.writeLong(crc.getValue());
+				output.flush();
+			}finally{
+				file.close();
+			}
+			Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			moved = true;
+		}finally{
+			if(!moved)
+			//Write or move failed, don't leave a partial snapshot behind.
+			{
+				try{
+					Files.deleteIfExists(temporary);
+				}catch(IOException e){
+					//Keep the original failure.
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads snapshot into service if it is valid for the source file. Existing object
+	 * repositories of the service are discarded.
+	 *
+	 * @param service Service
+	 *
+	 * @param snapshot Snapshot file
+	 *
+	 * @param source Input data file the snapshot was written for
+	 *
+	 * @return length of the topology part of the source file, -1 if snapshot doesn't exist, has
+	 * another version, is damaged or the topology part of the source file changed.
+	 *
+	 * @throws IOException if a file can not be read.
+	 *
+	 * @throws SystemException if snapshot data is invalid.
+	 */
+	static long load(BaggagePathfinderService service, Path snapshot, Path source) throws IOException, SystemException{
+		if(!Files.isRegularFile(snapshot)){
+			return -1;
+		}
+		ByteBuffer buffer = map(snapshot);
+		if(buffer.limit() < 36 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+				|| checksum(buffer, buffer.limit() - 8) != buffer.getLong(buffer.limit() - 8))
+		//Not a snapshot of this version or damaged.
+		{
+			return -1;
+		}
+
+		buffer.position(8);
+		int flags = buffer.getInt();
+		long topologyLength = buffer.getLong();
+		long topologyChecksum = buffer.getLong();
+		ByteBuffer sourceBuffer = map(source);
+		if(topologyLength(sourceBuffer) != topologyLength || checksum(sourceBuffer, topologyLength) != topologyChecksum)
+		//Conveyor system or departures changed since the snapshot was written.
+		{
+			return -1;
+		}
+
+		int nodeCount = buffer.getInt();
+		Node[] nodes = new Node[nodeCount];
+		for(int id = 0; id < nodeCount; id++){
+			nodes[id] = createNode(buffer.get(), readString(buffer));
+		}
+		int edgeCount = buffer.getInt();
+		int[] offsets = new int[nodeCount + 1];
+		int[] targets = new int[edgeCount];
+		double[] weights = new double[edgeCount];
+		double[] capacities = new double[edgeCount];
+		buffer.asIntBuffer().get(offsets);
+		buffer.position(buffer.position() + offsets.length * 4);
+		buffer.asIntBuffer().get(targets);
+		buffer.position(buffer.position() + edgeCount * 4);
+		buffer.asDoubleBuffer().get(weights);
+		buffer.position(buffer.position() + edgeCount * 8);
+		buffer.asDoubleBuffer().get(capacities);
+		buffer.position(buffer.position() + edgeCount * 8);
+
+		//Node objects carry the adjacency too, service updates work on them.
+		for(int id = 0; id < nodeCount; id++){
+			for(int edge = offsets[id]; edge < offsets[id + 1]; edge++){
+				nodes[id].addEdge(nodes[targets[edge]], weights[edge], capacities[edge]);
+			}
+		}
+		CompactGraph graph = CompactGraph.of(nodes, offsets, targets, weights, capacities);
+		service.restore(graph);
+
+		int departureCount = buffer.getInt();
+		for(int i = 0; i < departureCount; i++){
+			String flightId = readString(buffer);
+			int terminalId = buffer.getInt();
+			String destination = readString(buffer);
+			service.addDeparture(flightId, nodes[terminalId].getName(), destination, buffer.getInt());
+		}
+
+		if((flags & FLAG_ROUTE_TABLE) != 0){
+			service.restore(RouteTable.read(graph, buffer));
+		}
+		return topologyLength;
+	}
+
+	/**
+	 * @return length of the part of input data before the bag section header, or the whole
+	 * length if there is no bag section.
+	 */
+	static long topologyLength(ByteBuffer buffer){
+		int limit = buffer.limit();
+		int lineStart = 0;
+		while(lineStart < limit){
+			if(startsWith(buffer, lineStart, HEADER_BAG)){
+				return lineStart;
+			}
+			while(lineStart < limit && buffer.get(lineStart) != '\n'){
+				lineStart++;
+			}
+			lineStart++;
+		}
+		return limit;
+	}
+
+	private static boolean startsWith(ByteBuffer buffer, int start, byte[] prefix){
+		if(buffer.limit() - start < prefix.length){
+			return false;
+		}
+		for(int i = 0; i < prefix.length; i++){
+			if(buffer.get(start + i) != prefix[i]){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return CRC32 of the first length bytes of buffer.
+	 */
+	private static long checksum(ByteBuffer buffer, long length){
+		ByteBuffer range = buffer.duplicate();
+		range.position(0);
+		range.limit((int)length);
+		CRC32 crc = new CRC32();
+		crc.update(range);
+		return crc.getValue();
+	}
+
+	private static MappedByteBuffer map(Path path) throws IOException{
+		RandomAccessFile file = new RandomAccessFile(path.toFile(), "r");
+		try{
+			FileChannel channel = file.getChannel();
+			if(channel.size() > Integer.MAX_VALUE){
+				throw new IOException("File " + path + " is too large to map.");
+			}
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}finally{
+			file.close();
+		}
+	}
+
+	private static byte type(Node node) throws IOException{
+		if(node instanceof CheckinCounter){
+			return TYPE_CHECKIN_COUNTER;
+		}
+		if(node instanceof BaggageClaim){
+			return TYPE_BAGGAGE_CLAIM;
+		}
+		if(node instanceof Terminal){
+			return TYPE_TERMINAL;
+		}
+		throw new IOException("Node type " + node.getClass().getName() + " can not be written to snapshot.");
+	}
+
+	private static Node createNode(byte type, String name) throws SystemException{
+		switch(type){
+		case TYPE_CHECKIN_COUNTER:
+			return new CheckinCounter(name);
+		case TYPE_TERMINAL:
+			return new Terminal(name);
+		case TYPE_BAGGAGE_CLAIM:
+			return new BaggageClaim(name);
+		default:
+			throw new SystemException("Invalid node type " + type + " in snapshot.");
+		}
+	}
+
+	private static void writeString(DataOutputStream output, String value) throws IOException{
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer){
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
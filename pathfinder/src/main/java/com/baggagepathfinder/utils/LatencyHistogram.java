@@ -0,0 +1,143 @@
+package com.baggagepathfinder.utils;
+
+import java.util.Arrays;
+
+/**
+ * The class LatencyHistogram counts recorded values in log-linear buckets, like an HDR
+ * histogram: values below 64 get a bucket each, above that every power of two is split into
+ * 32 buckets. Percentiles are exact to within 1/32 (about 3%) of the value, over the whole
+ * range of long, in a fixed 15 KB of counts.
+ *
+ * A histogram is not thread safe. Threads routing in parallel each record into their own
+ * histogram and add it to a shared one once per chunk of bags, see PathfinderMetrics.
+ *
+ * @author abankey
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_LIMIT = 2 * SUB_BUCKET_COUNT;
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	private final long[] counts = new long[BUCKET_COUNT];
+	private long count;
+	private long sum;
+	private long max;
+
+	public LatencyHistogram() {
+	}
+
+	/**
+	 * Creates a copy of a histogram.
+	 */
+	public LatencyHistogram(LatencyHistogram histogram) {
+		add(histogram);
+	}
+
+	/**
+	 * Records a value.
+	 *
+	 * @param value Value, negative values are recorded as 0.
+	 */
+	public void record(long value){
+		if(value < 0){
+			value = 0;
+		}
+		counts[index(value)]++;
+		count++;
+		sum += value;
+		if(value > max){
+			max = value;
+		}
+	}
+
+	/**
+	 * Adds all values recorded by another histogram.
+	 */
+	public void add(LatencyHistogram histogram){
+		if(histogram.count == 0){
+			return;
+		}
+		for(int bucket = 0; bucket < BUCKET_COUNT; bucket++){
+			counts[bucket] += histogram.counts[bucket];
+		}
+		count += histogram.count;
+		sum += histogram.sum;
+		max = Math.max(max, histogram.max);
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * @return mean of recorded values, 0 if none was recorded.
+	 */
+	public double getMean() {
+		return count == 0 ? 0d : (double)sum / count;
+	}
+
+	/**
+	 * Fetches the value below or at which a percentage of the recorded values lie.
+	 *
+	 * @param percentile Percentage from 0 to 100
+	 *
+	 * @return highest value of the bucket holding the percentile, never above the recorded
+	 * maximum, 0 if no value was recorded.
+	 */
+	public long getValueAtPercentile(double percentile){
+		if(count == 0){
+			return 0;
+		}
+		long rank = Math.max(1, (long)Math.ceil(count * Math.min(percentile, 100d) / 100d));
+		long seen = 0;
+		for(int bucket = 0; bucket < BUCKET_COUNT; bucket++){
+			seen += counts[bucket];
+			if(seen >= rank){
+				return Math.min(highestValue(bucket), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Drops all recorded values.
+	 */
+	public void reset(){
+		if(count == 0){
+			return;
+		}
+		Arrays.fill(counts, 0);
+		count = 0;
+		sum = 0;
+		max = 0;
+	}
+
+	/**
+	 * @return bucket of a non negative value.
+	 */
+	static int index(long value){
+		if(value < LINEAR_LIMIT){
+			return (int)value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT + (int)(value >>> shift) - SUB_BUCKET_COUNT;
+	}
+
+	/**
+	 * @return highest value of a bucket.
+	 */
+	static long highestValue(int bucket){
+		if(bucket < LINEAR_LIMIT){
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKET_COUNT - 1;
+		long subBucket = bucket % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,106 @@
+package com.baggagepathfinder.utils;
+
+import java.util.Arrays;
+
+/**
+ * The class LineTokenizer splits a line into words separated by single space characters.
+ * Word boundaries are kept in reusable int arrays and a word String is only created when
+ * it is requested, so tokenizing does not allocate arrays per line.
+ *
+ * Word count follows String.split(" "): an empty line has one empty word and trailing
+ * empty words are dropped.
+ *
+ * A LineTokenizer instance must not be shared between threads.
+ *
+ * @author abankey
+ */
+public final class LineTokenizer {
+
+	private static final char SEPARATOR = ' ';
+
+	private String line;
+	private int[] starts = new int[8];
+	private int[] ends = new int[8];
+	private int count;
+
+	/**
+	 * Splits the line into words.
+	 *
+	 * @param line Line
+	 *
+	 * @return number of words
+	 */
+	public int tokenize(String line){
+		this.line = line;
+		this.count = 0;
+		if(line.isEmpty()){
+			add(0, 0);
+			return count;
+		}
+
+		int start = 0;
+		for(int i = 0, length = line.length(); i <= length; i++){
+			if(i == length || line.charAt(i) == SEPARATOR){
+				add(start, i);
+				start = i + 1;
+			}
+		}
+
+		//Drop trailing empty words.
+		while(count > 0 && starts[count - 1] == ends[count - 1]){
+			count--;
+		}
+		return count;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return word at given index
+	 */
+	public String get(int index){
+		return line.substring(starts[index], ends[index]);
+	}
+
+	/**
+	 * @return line of last tokenize call.
+	 */
+	public String getLine() {
+		return line;
+	}
+
+	/**
+	 * @return index of first character of word at given index in the line.
+	 */
+	public int getStart(int index){
+		return starts[index];
+	}
+
+	/**
+	 * @return index after last character of word at given index in the line.
+	 */
+	public int getEnd(int index){
+		return ends[index];
+	}
+
+	/**
+	 * Parses word at given index as time of day without creating the word String.
+	 *
+	 * @return minutes since midnight, -1 if word is not a valid time, see TimeOfDay.
+	 */
+	public int getTime(int index){
+		return TimeOfDay.parse(line, starts[index], ends[index]);
+	}
+
+	private void add(int start, int end){
+		if(count == starts.length){
+			starts = Arrays.copyOf(starts, count * 2);
+			ends = Arrays.copyOf(ends, count * 2);
+		}
+		starts[count] = start;
+		ends[count] = end;
+		count++;
+	}
+}
@@ -0,0 +1,60 @@
+package com.baggagepathfinder.utils;
+
+/**
+ * The class TimeOfDay converts times of day of format H:mm or HH:mm (24 hour clock) from and
+ * to minutes since midnight. Parsing works on any CharSequence range and does not allocate.
+ *
+ * @author abankey
+ */
+public final class TimeOfDay {
+
+	public static final int MINUTES_PER_DAY = 24 * 60;
+
+	private TimeOfDay() {
+	}
+
+	/**
+	 * Parses time of format H:mm or HH:mm.
+	 *
+	 * @param text Text
+	 *
+	 * @param start Index of first character
+	 *
+	 * @param end Index after last character
+	 *
+	 * @return minutes since midnight, -1 if range is not a valid time.
+	 */
+	public static int parse(CharSequence text, int start, int end){
+		int hour = 0;
+		int minute = 0;
+		int i = start;
+		while(i < end && i - start < 2 && isDigit(text.charAt(i))){
+			hour = hour * 10 + (text.charAt(i++) - '0');
+		}
+		if(i == start || i == end || text.charAt(i++) != ':'){
+			return -1;
+		}
+		int minuteStart = i;
+		while(i < end && i - minuteStart < 2 && isDigit(text.charAt(i))){
+			minute = minute * 10 + (text.charAt(i++) - '0');
+		}
+		if(i != end || i - minuteStart != 2 || hour > 23 || minute > 59){
+			return -1;
+		}
+		return hour * 60 + minute;
+	}
+
+	/**
+	 * @return time of day of format HH:mm
+	 */
+	public static String format(int minuteOfDay){
+		int hour = minuteOfDay / 60;
+		int minute = minuteOfDay % 60;
+		return new StringBuilder(5).append((char)('0' + hour / 10)).append((char)('0' + hour % 10)).append(':')
+				.append((char)('0' + minute / 10)).append((char)('0' + minute % 10)).toString();
+	}
+
+	private static boolean isDigit(char c){
+		return c >= '0' && c <= '9';
+	}
+}
@@ -0,0 +1,331 @@
+package com.baggagepathfinder.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baggagepathfinder.model.NodeFactory;
+import com.baggagepathfinder.service.BaggagePathfinderService;
+
+/**
+ * The class ShortestPathfinderTest compares the travel times found by the pathfinders
+ * on a random conveyor system graph.
+ *
+ * @author abankey
+ *
+ */
+public class ShortestPathfinderTest {
+	private static final int NODE_COUNT = 300;
+	private static final int SEGMENT_COUNT = 900;
+
+	private BaggagePathfinderService service;
+	private CompactGraph graph;
+
+	/**
+	 * Creates random graph with integer travel times, so every path has an exact travel time.
+	 */
+	@Before
+	public void setup(){
+		Random random = new Random(42);
+		service = new BaggagePathfinderService();
+		for(int i = 0; i < SEGMENT_COUNT; i++){
+			int source = i < NODE_COUNT - 1 ? i : random.nextInt(NODE_COUNT);
+			int destination = i < NODE_COUNT - 1 ? i + 1 : random.nextInt(NODE_COUNT);
+			if(source == destination){
+				continue;
+			}
+			service.addNode(NodeFactory.createNode("N" + source), NodeFactory.createNode("N" + destination),
+					1 + random.nextInt(20));
+		}
+		graph = service.getCompactGraph();
+	}
+
+	/**
+	 * ShortestPathfinder and CompactShortestPathfinder should find the same travel times.
+	 */
+	@Test
+	public void testCompactShortestPathfinder(){
+		ShortestPathfinder pathfinder = new ShortestPathfinder();
+		CompactShortestPathfinder compactPathfinder = new CompactShortestPathfinder(graph);
+		for(int source = 0; source < graph.getNodeCount(); source += 7){
+			for(int destination = 0; destination < graph.getNodeCount(); destination += 13){
+				for(int id = 0; id < graph.getNodeCount(); id++){
+					graph.getNode(id).reset();
+				}
+				NodePath expected = pathfinder.getShortestPath(graph.getNode(source), graph.getNode(destination));
+				NodePath actual = compactPathfinder.getShortestPath(source, destination);
+				assertEquals(expected.getTravelTime(), actual.getTravelTime(), 0d);
+				assertEquals(graph.getNode(source), actual.getPath().get(0));
+				assertEquals(graph.getNode(destination), actual.getPath().get(actual.getPath().size() - 1));
+			}
+		}
+	}
+
+	/**
+	 * Point to point pathfinders should find the same travel times as a full Dijkstra search,
+	 * and a path which adds up to that travel time.
+	 */
+	@Test
+	public void testPointToPointPathfinders(){
+		CompactShortestPathfinder compactPathfinder = new CompactShortestPathfinder(graph);
+		Pathfinder[] pathfinders = {new EarlyExitPathfinder(graph), new BidirectionalPathfinder(graph), 
+				new AltPathfinder(Landmarks.build(graph, 4)), 
+				new ContractionHierarchyPathfinder(ContractionHierarchy.build(graph))};
+		for(int source = 0; source < graph.getNodeCount(); source += 7){
+			compactPathfinder.computeQuickestPath(source);
+			for(int destination = 0; destination < graph.getNodeCount(); destination += 11){
+				for(Pathfinder pathfinder : pathfinders){
+					NodePath actual = pathfinder.getShortestPath(source, destination);
+					assertEquals(compactPathfinder.getTravelTime(destination), actual.getTravelTime(), 0d);
+
+					double travelTime = 0d;
+					for(int i = 1; i < actual.getPath().size(); i++){
+						travelTime += graph.getWeight(graph.getId(actual.getPath().get(i - 1).getName()), 
+								graph.getId(actual.getPath().get(i).getName()));
+					}
+					assertEquals(actual.getTravelTime(), travelTime, 0d);
+					assertEquals(graph.getNode(source), actual.getPath().get(0));
+					assertEquals(graph.getNode(destination), actual.getPath().get(actual.getPath().size() - 1));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Point to point pathfinders should report an unreachable destination like a full Dijkstra search.
+	 */
+	@Test
+	public void testPointToPointPathfindersUnreachable(){
+		service.addNode(NodeFactory.createNode("X1"), NodeFactory.createNode("X2"), 3);
+		CompactGraph graph = service.getCompactGraph();
+		int source = graph.getId("N0");
+		int destination = graph.getId("X2");
+		Pathfinder[] pathfinders = {new CompactShortestPathfinder(graph), new EarlyExitPathfinder(graph), 
+				new BidirectionalPathfinder(graph), new AltPathfinder(Landmarks.build(graph, 4)),
+				new ContractionHierarchyPathfinder(ContractionHierarchy.build(graph))};
+		for(Pathfinder pathfinder : pathfinders){
+			NodePath actual = pathfinder.getShortestPath(source, destination);
+			assertEquals(Double.POSITIVE_INFINITY, actual.getTravelTime(), 0d);
+			assertEquals(1, actual.getPath().size());
+			assertEquals(3d, pathfinder.getShortestPath(graph.getId("X1"), destination).getTravelTime(), 0d);
+		}
+	}
+
+	/**
+	 * Time dependent search should match Dijkstra's travel times without profiles and follow
+	 * the interpolated profile travel times otherwise.
+	 */
+	@Test
+	public void testTimeDependentPathfinder(){
+		CompactShortestPathfinder compactPathfinder = new CompactShortestPathfinder(graph);
+		TimeDependentPathfinder pathfinder = new TimeDependentPathfinder(new TravelTimeProfiles.Builder(graph).build());
+		for(int source = 0; source < graph.getNodeCount(); source += 29){
+			compactPathfinder.computeQuickestPath(source);
+			for(int destination = 0; destination < graph.getNodeCount(); destination += 17){
+				assertEquals(compactPathfinder.getTravelTime(destination), 
+						pathfinder.getShortestPath(source, destination, 600).getTravelTime(), 0d);
+			}
+		}
+
+		//Segment N0 N1 takes 10 minutes at 06:00, 20 minutes at 12:00 and back to 10 overnight.
+		int from = graph.getId("N0");
+		int to = graph.getId("N1");
+		TravelTimeProfiles.Builder builder = new TravelTimeProfiles.Builder(graph);
+		builder.setProfile(from, to, builder.addProfile(new int[]{360, 720}, new double[]{10, 20}));
+		TravelTimeProfiles profiles = builder.build();
+		int edge = graph.findEdge(from, to);
+		assertEquals(15d, profiles.getTravelTime(edge, 540), 1e-9);
+		assertEquals(15d, profiles.getTravelTime(edge, 540 + 24 * 60), 1e-9);
+		assertEquals(20d - 10d * 720 / 1080, profiles.getTravelTime(edge, 0), 1e-9);
+		assertEquals(graph.getWeight(graph.findEdge(to, from)), profiles.getTravelTime(graph.findEdge(to, from), 540), 0d);
+		assertEquals(1, profiles.getProfileCount());
+		assertEquals(540 + 15d, profiles.getArrivalTime(edge, 540), 1e-9);
+		assertEquals(540 + 24 * 60 + 15d, profiles.getArrivalTime(edge, 540 + 24 * 60), 1e-9);
+
+		//Leaving N0 at 09:00 the segment takes 15 minutes, like a static graph with that weight.
+		double[] weights = new double[graph.getEdgeCount()];
+		for(int i = 0; i < weights.length; i++){
+			weights[i] = i == edge ? 15d : graph.getWeight(i);
+		}
+		compactPathfinder = new CompactShortestPathfinder(graph.withWeights(weights));
+		compactPathfinder.computeQuickestPath(from);
+		pathfinder = new TimeDependentPathfinder(profiles);
+		assertEquals(compactPathfinder.getTravelTime(to), pathfinder.getShortestPath(from, to, 540).getTravelTime(), 1e-9);
+
+		assertEquals(null, TravelTimeProfiles.validate(new int[]{600, 600, 660, 660}, 
+				new double[]{1, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, 1}));
+		assertEquals(true, TravelTimeProfiles.validate(new int[]{600, 600}, new double[]{5, 1}) != null);
+		assertEquals(true, TravelTimeProfiles.validate(new int[]{600, 610}, new double[]{30, 1}) != null);
+		assertEquals(true, TravelTimeProfiles.validate(new int[]{610, 600}, new double[]{1, 1}) != null);
+	}
+
+	/**
+	 * K shortest paths should match all loopless paths of a small graph enumerated by depth first
+	 * search, and paths with an overlap limit should share at most that part of their travel time.
+	 */
+	@Test
+	public void testKShortestPathfinder(){
+		Random random = new Random(7);
+		for(int graphIndex = 0; graphIndex < 5; graphIndex++){
+			BaggagePathfinderService small = new BaggagePathfinderService();
+			for(int i = 0; i < 20; i++){
+				int source = i < 9 ? i : random.nextInt(10);
+				int destination = i < 9 ? i + 1 : random.nextInt(10);
+				if(source != destination){
+					small.addNode(NodeFactory.createNode("S" + source), NodeFactory.createNode("S" + destination),
+							1 + random.nextInt(20));
+				}
+			}
+			CompactGraph smallGraph = small.getCompactGraph();
+			KShortestPathfinder pathfinder = new KShortestPathfinder(smallGraph);
+			for(int source = 0; source < smallGraph.getNodeCount(); source++){
+				for(int destination = 0; destination < smallGraph.getNodeCount(); destination++){
+					List<Double> travelTimes = new ArrayList<Double>();
+					enumeratePaths(smallGraph, source, destination, new boolean[smallGraph.getNodeCount()], 0d, travelTimes);
+					Collections.sort(travelTimes);
+					List<NodePath> paths = pathfinder.getShortestPaths(source, destination, 8, 1d);
+					assertEquals(Math.min(8, travelTimes.size()), paths.size());
+					for(int i = 0; i < paths.size(); i++){
+						assertEquals(travelTimes.get(i), paths.get(i).getTravelTime(), 0d);
+						assertEquals(paths.get(i).getTravelTime(), travelTime(smallGraph, paths.get(i)), 0d);
+					}
+				}
+			}
+		}
+
+		KShortestPathfinder pathfinder = new KShortestPathfinder(graph);
+		CompactShortestPathfinder compactPathfinder = new CompactShortestPathfinder(graph);
+		for(int source = 0; source < graph.getNodeCount(); source += 37){
+			compactPathfinder.computeQuickestPath(source);
+			for(int destination = 1; destination < graph.getNodeCount(); destination += 41){
+				List<NodePath> paths = pathfinder.getShortestPaths(source, destination, 5, 0.5);
+				assertEquals(compactPathfinder.getTravelTime(destination), paths.get(0).getTravelTime(), 0d);
+				for(int i = 1; i < paths.size(); i++){
+					assertEquals(true, paths.get(i).getTravelTime() >= paths.get(i - 1).getTravelTime());
+					assertEquals(paths.get(i).getTravelTime(), travelTime(graph, paths.get(i)), 1e-9);
+					assertEquals(paths.get(i).getPath().size(), new HashSet<Node>(paths.get(i).getPath()).size());
+					for(int j = 0; j < i; j++){
+						assertEquals(true, sharedTravelTime(graph, paths.get(i), paths.get(j)) 
+								<= 0.5 * paths.get(i).getTravelTime() + 1e-9);
+					}
+				}
+			}
+		}
+	}
+
+	private static void enumeratePaths(CompactGraph graph, int node, int destination, boolean[] visited, 
+			double travelTime, List<Double> travelTimes){
+		if(node == destination){
+			travelTimes.add(travelTime);
+			return;
+		}
+		visited[node] = true;
+		for(int next = 0; next < graph.getNodeCount(); next++){
+			double weight = graph.getWeight(node, next);
+			if(!visited[next] && weight != Double.POSITIVE_INFINITY){
+				enumeratePaths(graph, next, destination, visited, travelTime + weight, travelTimes);
+			}
+		}
+		visited[node] = false;
+	}
+
+	private static double travelTime(CompactGraph graph, NodePath path){
+		double travelTime = 0d;
+		for(int i = 1; i < path.getPath().size(); i++){
+			travelTime += graph.getWeight(graph.getId(path.getPath().get(i - 1).getName()), 
+					graph.getId(path.getPath().get(i).getName()));
+		}
+		return travelTime;
+	}
+
+	private static double sharedTravelTime(CompactGraph graph, NodePath path, NodePath other){
+		double shared = 0d;
+		for(int i = 1; i < path.getPath().size(); i++){
+			for(int j = 1; j < other.getPath().size(); j++){
+				if(path.getPath().get(i - 1) == other.getPath().get(j - 1) && path.getPath().get(i) == other.getPath().get(j)){
+					shared += graph.getWeight(graph.getId(path.getPath().get(i - 1).getName()), 
+							graph.getId(path.getPath().get(i).getName()));
+				}
+			}
+		}
+		return shared;
+	}
+
+	/**
+	 * Contraction hierarchy should rank every node once and only keep edges to higher ranked nodes.
+	 */
+	@Test
+	public void testContractionHierarchy(){
+		ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+		boolean[] ranked = new boolean[graph.getNodeCount()];
+		for(int id = 0; id < graph.getNodeCount(); id++){
+			assertEquals(false, ranked[hierarchy.getRank(id)]);
+			ranked[hierarchy.getRank(id)] = true;
+			for(int edge = hierarchy.firstEdge(id); edge < hierarchy.lastEdge(id); edge++){
+				assertEquals(true, hierarchy.getRank(hierarchy.getTarget(edge)) > hierarchy.getRank(id));
+			}
+		}
+		assertEquals(true, hierarchy.getEdgeCount() >= hierarchy.getShortcutCount());
+		assertEquals(true, hierarchy.getMemory() > 0);
+	}
+
+	/**
+	 * IndexedMinHeap should return ids in key order after key updates.
+	 */
+	@Test
+	public void testIndexedMinHeap(){
+		IndexedMinHeap heap = new IndexedMinHeap(2);
+		heap.insertOrDecrease(5, 10d);
+		heap.insertOrDecrease(1, 4d);
+		heap.insertOrDecrease(9, 7d);
+		heap.insertOrDecrease(5, 2d);
+		heap.insertOrDecrease(9, 8d);
+
+		assertEquals(5, heap.poll());
+		assertEquals(1, heap.poll());
+		assertEquals(9, heap.poll());
+		assertEquals(true, heap.isEmpty());
+	}
+
+	/**
+	 * NodeTable should hand out ids in order of addition and find names in a range of text.
+	 * Node edges should keep their order and drop duplicates like a set.
+	 */
+	@Test
+	public void testNodeTable(){
+		NodeTable table = new NodeTable();
+		for(int i = 0; i < 1000; i++){
+			assertEquals(i, table.add(NodeFactory.createNode("A" + i)));
+		}
+		assertEquals(17, table.add(NodeFactory.createNode("A17")));
+		assertEquals(1000, table.size());
+		assertEquals(17, table.getId("A17"));
+		assertEquals(999, table.getId("x A999 y", 2, 6));
+		assertEquals(-1, table.getId("A1000"));
+		assertEquals(null, table.get("B1"));
+		assertEquals("A0", table.asMap().keySet().iterator().next());
+		assertEquals(table.get(5), table.asMap().get("A5"));
+
+		Node node = table.get(0);
+		node.addEdge(table.get(1), 2d, Edge.UNLIMITED_CAPACITY);
+		node.addEdge(new Edge(table.get(2), 3d, 4d));
+		node.addEdge(table.get(1), 2d, Edge.UNLIMITED_CAPACITY);
+		node.addEdge(table.get(1), 5d, Edge.UNLIMITED_CAPACITY);
+		assertEquals(3, node.getEdgeCount());
+		assertEquals(Edge.UNLIMITED_CAPACITY, node.getCapacity(0), 0d);
+		assertEquals(4d, node.getCapacity(1), 0d);
+		assertEquals(true, node.getEdges().contains(new Edge(table.get(2), 3d, 4d)));
+
+		node.getEdges().remove(new Edge(table.get(1), 2d, Edge.UNLIMITED_CAPACITY));
+		assertEquals(2, node.getEdgeCount());
+		assertEquals(table.get(2), node.getTarget(0));
+		assertEquals(5d, node.getTravelTime(1), 0d);
+	}
+}
@@ -0,0 +1,1091 @@
+package com.baggagepathfinder.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.baggagepathfinder.exception.SystemException;
+import com.baggagepathfinder.graph.CompactGraph;
+import com.baggagepathfinder.graph.Node;
+import com.baggagepathfinder.graph.NodePath;
+import com.baggagepathfinder.model.Bag;
+import com.baggagepathfinder.model.DeadlineStatus;
+import com.baggagepathfinder.model.Departure;
+import com.baggagepathfinder.utils.FileUtils;
+import com.baggagepathfinder.utils.LatencyHistogram;
+
+/**
+ * The class BaggagePathfinderServiceTest tests BaggagePathfinderService with 
+ * valid and invalid input set of data.
+ * 
+ * @author abankey
+ *
+ */
+public class BaggagePathfinderServiceTest {
+	private String[] testInputData = new String[3];
+	private String[] testOutputData = new String[2];
+
+	/**
+	 * Load test data 
+	 * 
+	 * @throws IOException
+	 */
+	@Before
+	public void setup() throws IOException{
+		testInputData[0] = FileUtils.readFileData("/TestInputData_1.txt");
+		testInputData[1] = FileUtils.readFileData("/TestInputData_2.txt");
+		testInputData[2] = FileUtils.readFileData("/TestInputDataInvalid_3.txt");
+
+		testOutputData[0] = FileUtils.readFileData("/TestOutputData_1.txt");
+		testOutputData[1] = FileUtils.readFileData("/TestOutputData_2.txt");
+	}
+
+	/**
+	 * It tests BaggagePathfinderService.findShortestPath method with 
+	 * two set of input data.
+	 */
+	@Test
+	public void testFindPath(){
+		try{
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			String output = service.findShortestPath(testInputData[0]);
+			assertEquals(output, testOutputData[0]);
+
+			output = service.findShortestPath(testInputData[1]);
+			assertEquals(output, testOutputData[1]);
+		}catch(SystemException e){
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * It tests BaggagePathfinderService.findShortestPath method with 
+	 * several bags starting at the same node.
+	 */
+	@Test
+	public void testFindPathSameSource(){
+		try{
+			String nl = BaggagePathfinderService.NEW_LINE;
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			String output = service.findShortestPath(testInputData[0] 
+					+ "0006 Concourse_A_Ticketing UA17" + nl + "0007 A7 UA12" + nl + "0008 Concourse_A_Ticketing ARRIVAL" + nl);
+			assertEquals(output, testOutputData[0] 
+					+ "0006 Concourse_A_Ticketing A5 A1 A2 A3 A4 : 14.0" + nl
+					+ "0007 A7 A8 A9 A10 A5 A1 : 13.0" + nl
+					+ "0008 Concourse_A_Ticketing A5 BaggageClaim : 10.0" + nl);
+		}catch(SystemException e){
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * It tests BaggagePathfinderService.findShortestPath method with 
+	 * precomputed route table.
+	 */
+	@Test
+	public void testFindPathRouteTable(){
+		try{
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.setPrecomputeRoutes(true);
+			String output = service.findShortestPath(testInputData[0]);
+			assertEquals(output, testOutputData[0]);
+			assertEquals(service.estimateRouteTableMemory(), service.getRouteTable().getMemory());
+
+			output = service.findShortestPath(testInputData[1]);
+			assertEquals(output, testOutputData[1]);
+		}catch(SystemException e){
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * Route table should not be built above the configured memory limit.
+	 * 
+	 * @throws SystemException
+	 */
+	@Test(expected=SystemException.class)
+	public void testRouteTableLimit() throws SystemException{
+		BaggagePathfinderService service = new BaggagePathfinderService();
+		service.setPrecomputeRoutes(true);
+		service.setMaxRouteTableBytes(100);
+		service.findShortestPath(testInputData[0]);
+	}
+
+	/**
+	 * It tests BaggagePathfinderService.findShortestPath method with 
+	 * a large batch of bags routed on several threads.
+	 */
+	@Test
+	public void testFindPathParallel(){
+		try{
+			String nl = BaggagePathfinderService.NEW_LINE;
+			String bagData = testInputData[1].substring(testInputData[1].indexOf(BaggagePathfinderService.HEADER_BAG) 
+					+ BaggagePathfinderService.HEADER_BAG.length() + nl.length());
+			StringBuilder input = new StringBuilder(testInputData[1]);
+			StringBuilder expected = new StringBuilder(testOutputData[1]);
+			for(int i = 0; i < 1000; i++){
+				input.append(bagData);
+				expected.append(testOutputData[1]);
+			}
+
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.setParallelism(4);
+			String output = service.findShortestPath(input.toString());
+			assertEquals(output, expected.toString());
+		}catch(SystemException e){
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * It tests BaggagePathfinderService.findShortestPath method with 
+	 * input data read line by line.
+	 */
+	@Test
+	public void testFindPathReader(){
+		try{
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			String output = service.findShortestPath(new StringReader(testInputData[0]));
+			assertEquals(output, testOutputData[0]);
+
+			output = service.findShortestPath(new InputStreamReader(getClass().getResourceAsStream("/TestInputData_2.txt")));
+			assertEquals(output, testOutputData[1]);
+		}catch(IOException e){
+			fail(e.getMessage());
+		}catch(SystemException e){
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * It tests BaggagePathfinderService.findShortestPath method with 
+	 * routes written to output as they are computed.
+	 */
+	@Test
+	public void testFindPathWriter(){
+		try{
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			StringWriter output = new StringWriter();
+			service.findShortestPath(new StringReader(testInputData[0]), output);
+			assertEquals(output.toString(), testOutputData[0]);
+
+			final List<String> bagIds = new ArrayList<String>();
+			service.findShortestPath(new StringReader(testInputData[1]), new RouteSink() {
+				public void accept(Bag bag, NodePath path) {
+					bagIds.add(bag.getBagId());
+				}
+			});
+			assertEquals(Arrays.asList("0001", "0002", "0003", "0004", "0005"), bagIds);
+		}catch(IOException e){
+			fail(e.getMessage());
+		}catch(SystemException e){
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * It tests BaggagePathfinderService.loadMappedData method with 
+	 * valid and invalid input files.
+	 */
+	@Test
+	public void testLoadMappedData(){
+		try{
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			StringWriter output = new StringWriter();
+			service.loadMappedData(Paths.get(getClass().getResource("/TestInputData_2.txt").toURI()));
+			service.routeBags(new RouteWriter(output));
+			assertEquals(output.toString(), testOutputData[1]);
+		}catch(Exception e){
+			fail(e.getMessage());
+		}
+
+		try{
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.loadMappedData(Paths.get(getClass().getResource("/TestInputDataInvalid_3.txt").toURI()));
+			fail("SystemException expected");
+		}catch(SystemException e){
+			assertEquals("Invalid input data", e.getMessage());
+		}catch(Exception e){
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * It execute BaggagePathfinderService.findShortestPath method with 
+	 * invalid input data read line by line. SystemException is expected.
+	 * 
+	 * @throws SystemException
+	 * 
+	 * @throws IOException
+	 */
+	@Test(expected=SystemException.class)
+	public void testFindPathReaderException() throws IOException, SystemException{
+		BaggagePathfinderService service = new BaggagePathfinderService();
+		service.findShortestPath(new StringReader(testInputData[2]));
+	}
+
+	/**
+	 * It tests topology updates of a long lived BaggagePathfinderService. Routes after 
+	 * each update should match a full reload of the updated input.
+	 */
+	@Test
+	public void testTopologyUpdates(){
+		try{
+			String nl = BaggagePathfinderService.NEW_LINE;
+			String bagData = testInputData[0].substring(testInputData[0].indexOf(BaggagePathfinderService.HEADER_BAG) 
+					+ BaggagePathfinderService.HEADER_BAG.length() + nl.length());
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.setCachedRouteTrees(16);
+			String output = service.findShortestPath(testInputData[0]);
+			assertEquals(output, testOutputData[0]);
+			assertEquals(5, service.getCachedRouteTreeCount());
+
+			//Slow segment gives no quicker path, all cached trees stay valid.
+			service.addSegment("A4", "A6", 100);
+			assertEquals(5, service.getCachedRouteTreeCount());
+			assertEquals(service.routeNewBags(bagData), testOutputData[0]);
+
+			//Quick segment changes some routes.
+			service.updateSegmentTravelTime("A4", "A6", 2);
+			String updatedInput = testInputData[0].replace(BaggagePathfinderService.HEADER_DEPARTURE, 
+					"A4 A6 2" + nl + BaggagePathfinderService.HEADER_DEPARTURE);
+			assertEquals(service.routeNewBags(bagData), new BaggagePathfinderService().findShortestPath(updatedInput));
+
+			//Segment down, A4 A6 is the only way left to A6.
+			service.removeSegment("A7", "A6");
+			updatedInput = updatedInput.replace("A7 A6 1" + nl, "");
+			assertEquals(service.routeNewBags(bagData), new BaggagePathfinderService().findShortestPath(updatedInput));
+
+			//Gate change.
+			service.addDeparture("UA12", "A6", "JFK", 9, 45);
+			updatedInput = updatedInput.replace("UA12 A1 JFK 09:45", "UA12 A6 JFK 09:45");
+			assertEquals(service.routeNewBags(bagData), new BaggagePathfinderService().findShortestPath(updatedInput));
+		}catch(SystemException e){
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * It executes BaggagePathfinderService.findShortestPath method with each search strategy.
+	 */
+	@Test
+	public void testFindPathSearchStrategies(){
+		for(SearchStrategy strategy : SearchStrategy.values()){
+			try{
+				BaggagePathfinderService service = new BaggagePathfinderService();
+				service.setSearchStrategy(strategy);
+				assertEquals(service.findShortestPath(testInputData[0]), testOutputData[0]);
+				assertEquals(service.findShortestPath(testInputData[1]), testOutputData[1]);
+			}catch(SystemException e){
+				fail(strategy + ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * It tests route cache. Repeated batches should be routed from cache, a conveyor change 
+	 * should drop all cached routes.
+	 */
+	@Test
+	public void testRouteCache(){
+		try{
+			String nl = BaggagePathfinderService.NEW_LINE;
+			String bagData = testInputData[0].substring(testInputData[0].indexOf(BaggagePathfinderService.HEADER_BAG) 
+					+ BaggagePathfinderService.HEADER_BAG.length() + nl.length());
+			int bagCount = bagData.split(nl).length;
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.setCachedRoutes(64);
+			assertEquals(service.findShortestPath(testInputData[0]), testOutputData[0]);
+			long misses = service.getRouteCacheMisses();
+			assertEquals(0, service.getRouteCacheHits() + misses - bagCount);
+			assertEquals(misses, service.getCachedRouteCount());
+			assertTrue(service.getCachedRouteMemory() > 0);
+
+			//Warm cache, every bag is a hit.
+			assertEquals(service.routeNewBags(bagData), testOutputData[0]);
+			assertEquals(misses, service.getRouteCacheMisses());
+
+			//Same conveyor and departure sections, topology and cached routes are kept.
+			long loadedVersion = service.getTopologyVersion();
+			CompactGraph graph = service.getCompactGraph();
+			assertEquals(service.findShortestPath(testInputData[0]), testOutputData[0]);
+			assertEquals(loadedVersion, service.getTopologyVersion());
+			assertSame(graph, service.getCompactGraph());
+			assertEquals(misses, service.getRouteCacheMisses());
+			assertEquals(bagCount, service.getBags().size());
+
+			//Conveyor change, cached routes are stale.
+			long version = service.getTopologyVersion();
+			service.addSegment("A4", "A6", 2);
+			assertTrue(service.getTopologyVersion() > version);
+			String updatedInput = testInputData[0].replace(BaggagePathfinderService.HEADER_DEPARTURE, 
+					"A4 A6 2" + nl + BaggagePathfinderService.HEADER_DEPARTURE);
+			assertEquals(service.routeNewBags(bagData), new BaggagePathfinderService().findShortestPath(updatedInput));
+			assertEquals(2 * misses, service.getRouteCacheMisses());
+
+			//Size bound.
+			service.setCachedRoutes(2);
+			assertEquals(service.routeNewBags(bagData), new BaggagePathfinderService().findShortestPath(updatedInput));
+			assertEquals(2, service.getCachedRouteCount());
+
+			//Memory bound, a route needs more than ENTRY_BYTES.
+			service.setCachedRoutes(64, RouteCache.ENTRY_BYTES);
+			service.routeNewBags(bagData);
+			assertEquals(0, service.getCachedRouteCount());
+		}catch(SystemException e){
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * It tests departure times on a 24 hour clock and upcoming departures by terminal.
+	 */
+	@Test
+	public void testDepartureSchedule(){
+		try{
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.findShortestPath(testInputData[0]);
+			service.handleDepartureData("UA20 A1 BOS 14:30" + BaggagePathfinderService.NEW_LINE + "UA21 A1 SFO 9:00");
+			assertEquals(14 * 60 + 30, service.getDepartureMap().get("UA20").getDepartureTime());
+			assertEquals(9 * 60, service.getDepartureMap().get("UA21").getDepartureTime());
+
+			assertEquals(Arrays.asList("UA11", "UA21", "UA12"), flightIds(service.getUpcomingDepartures("A1", 8 * 60 + 1, 3)));
+			assertEquals(Arrays.asList("UA20", "UA10"), flightIds(service.getUpcomingDepartures("A1", 10 * 60, 2)));
+			assertEquals(0, service.getUpcomingDepartures("A9", 0, 3).size());
+
+			//Gate change moves the departure to the timetable of the new terminal.
+			service.addDeparture("UA20", "A9", "BOS", 14, 30);
+			assertEquals(Arrays.asList("UA10"), flightIds(service.getUpcomingDepartures("A1", 10 * 60, 1)));
+			assertEquals(Arrays.asList("UA20"), flightIds(service.getUpcomingDepartures("A9", 0, 3)));
+		}catch(SystemException e){
+			fail(e.getMessage());
+		}
+
+		for(String time : new String[]{"24:00", "8:5", "08:60", "0800", ":30"}){
+			try{
+				new BaggagePathfinderService().findShortestPath(testInputData[0].replace("UA10 A1 MIA 08:00", "UA10 A1 MIA " + time));
+				fail("SystemException expected for " + time);
+			}catch(SystemException e){
+				assertEquals("Invalid departure time " + time, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * It tests deadline aware routing: bags are routed earliest deadline first and compared
+	 * with the cut-off time of their flight.
+	 */
+	@Test
+	public void testRouteBagsByDeadline(){
+		try{
+			String nl = BaggagePathfinderService.NEW_LINE;
+			String input = testInputData[0]
+					.replace("UA18 A5 LAX 10:15", "UA18 A5 LAX 10:15" + nl + "UA30 A2 JFK 0:10")
+					.replace("0001 Concourse_A_Ticketing UA12", "0001 Concourse_A_Ticketing UA12 09:30")
+					.replace("0002 A5 UA17", "0002 A5 UA17 09:10")
+					.replace("0003 A2 UA10", "0003 A2 UA10 07:00")
+					.replace("0005 A7 ARRIVAL", "0005 A7 ARRIVAL 09:00" + nl + "0006 A1 UA30 23:50");
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.loadData(new StringReader(input));
+
+			final List<String> order = new ArrayList<String>();
+			DeadlineReport report = service.routeBagsByDeadline(new RouteSink() {
+				@Override
+				public void accept(Bag bag, NodePath path) {
+					order.add(bag.getBagId() + " " + bag.getDeadlineStatus());
+				}
+			});
+			assertEquals(Arrays.asList("0003 ON_TIME", "0002 MISSED", "0001 AT_RISK", "0006 ON_TIME", 
+					"0004 NO_DEADLINE", "0005 NO_DEADLINE"), order);
+			assertEquals(2, report.getCount(DeadlineStatus.ON_TIME));
+			assertEquals(1, report.getCount(DeadlineStatus.AT_RISK));
+			assertEquals(1, report.getCount(DeadlineStatus.MISSED));
+			assertEquals(2, report.getCount(DeadlineStatus.NO_DEADLINE));
+			assertEquals("0002", report.getMissedBags().get(0).getBagId());
+
+			//Bags must reach the gate 10 minutes before departure.
+			service.setDepartureCutoff(10);
+			report = service.routeBagsByDeadline(new RouteWriter(new StringWriter()));
+			assertEquals(2, report.getMissedBags().size());
+			assertEquals("0001", report.getMissedBags().get(1).getBagId());
+
+			//Induction time is optional, routes are unchanged.
+			assertEquals(new BaggagePathfinderService().findShortestPath(input.replace("0006 A1 UA30 23:50", "0006 A1 UA30")),
+					new BaggagePathfinderService().findShortestPath(input));
+		}catch(Exception e){
+			fail(e.getMessage());
+		}
+
+		try{
+			new BaggagePathfinderService().findShortestPath(testInputData[0].replace("0002 A5 UA17", "0002 A5 UA17 9.10"));
+			fail("SystemException expected");
+		}catch(SystemException e){
+			assertEquals("Invalid induction time 9.10", e.getMessage());
+		}
+	}
+
+	/**
+	 * It tests congestion aware routing: once a segment of limited capacity carries enough
+	 * bags, later rounds take the slower parallel route.
+	 */
+	@Test
+	public void testRouteBagsByCongestion(){
+		try{
+			String nl = BaggagePathfinderService.NEW_LINE;
+			StringBuilder input = new StringBuilder();
+			input.append(BaggagePathfinderService.HEADER_CONVEYOR).append(nl)
+				.append("Main_Ticketing X 1 1").append(nl)
+				.append("X G1 1").append(nl)
+				.append("Main_Ticketing Y 1.5").append(nl)
+				.append("Y G1 1").append(nl)
+				.append(BaggagePathfinderService.HEADER_DEPARTURE).append(nl)
+				.append("UA10 G1 MIA 08:00").append(nl)
+				.append(BaggagePathfinderService.HEADER_BAG);
+			for(int i = 0; i < 10; i++){
+				input.append(nl).append("000").append(i).append(" Main_Ticketing UA10");
+			}
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.loadData(new StringReader(input.toString()));
+			service.setCongestionWindow(1);
+			CompactGraph graph = service.getCompactGraph();
+			int edge = graph.findEdge(graph.getId("Main_Ticketing"), graph.getId("X"));
+			assertEquals(1d, graph.getCapacity(edge), 0d);
+
+			//Single round, every bag takes the quickest route.
+			final List<String> routes = new ArrayList<String>();
+			RouteSink sink = new RouteSink() {
+				@Override
+				public void accept(Bag bag, NodePath path) {
+					routes.add(path.getPath().get(1).getName() + " " + path.getTravelTime());
+				}
+			};
+			int[] loads = service.routeBagsByCongestion(sink, 1);
+			assertEquals(Collections.nCopies(10, "X 2.0"), routes);
+			assertEquals(10, loads[edge]);
+
+			//Bag by bag, X saturates after two bags: 1 * (1 + 0.15 * 2^4) > 2.5
+			routes.clear();
+			loads = service.routeBagsByCongestion(sink, 10);
+			assertEquals(Arrays.asList("X 2.0", "X 2.0"), routes.subList(0, 2));
+			assertEquals(Collections.nCopies(8, "Y 2.5"), routes.subList(2, 10));
+			assertEquals(2, loads[edge]);
+			assertEquals(8, loads[graph.findEdge(graph.getId("Main_Ticketing"), graph.getId("Y"))]);
+
+			//Capacity survives a travel time update.
+			service.updateSegmentTravelTime("Main_Ticketing", "X", 1);
+			graph = service.getCompactGraph();
+			assertEquals(1d, graph.getCapacity(graph.findEdge(graph.getId("Main_Ticketing"), graph.getId("X"))), 0d);
+		}catch(Exception e){
+			fail(e.getMessage());
+		}
+
+		try{
+			new BaggagePathfinderService().handleConveyorData("A1 A2 1 0");
+			fail("SystemException expected");
+		}catch(SystemException e){
+			assertEquals("Invalid input data", e.getMessage());
+		}
+	}
+
+	/**
+	 * It tests rerouting of in flight bags when segments and nodes go out of service.
+	 */
+	@Test
+	public void testInFlightRoutes(){
+		try{
+			String nl = BaggagePathfinderService.NEW_LINE;
+			String input = BaggagePathfinderService.HEADER_CONVEYOR + nl
+				+ "Main_Ticketing X 1" + nl
+				+ "X G1 1" + nl
+				+ "Main_Ticketing Y 1.5" + nl
+				+ "Y G1 1" + nl
+				+ "C1 G2 2" + nl
+				+ "G1 G2 5" + nl
+				+ BaggagePathfinderService.HEADER_DEPARTURE + nl
+				+ "UA10 G1 MIA 08:00" + nl
+				+ "UA20 G2 JFK 09:00" + nl
+				+ BaggagePathfinderService.HEADER_BAG + nl
+				+ "0001 Main_Ticketing UA10" + nl
+				+ "0002 C1 UA20" + nl
+				+ "0003 Main_Ticketing UA10";
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.loadData(new StringReader(input));
+
+			final List<String> routes = new ArrayList<String>();
+			RouteSink sink = new RouteSink() {
+				@Override
+				public void accept(Bag bag, NodePath path) {
+					StringBuilder route = new StringBuilder(bag.getBagId());
+					for(Node node : path.getPath()){
+						route.append(' ').append(node.getName());
+					}
+					routes.add(route.append(' ').append(path.getTravelTime()).toString());
+				}
+			};
+			InFlightRoutes inFlight = service.routeInFlightBags(sink);
+			assertEquals(Arrays.asList("0001 Main_Ticketing X G1 2.0", "0002 C1 G2 2.0",
+					"0003 Main_Ticketing X G1 2.0"), routes);
+			assertEquals(2, inFlight.getRouteCount());
+			NodePath unaffected = inFlight.getPath(1);
+
+			//Only bags over the failed segment are rerouted.
+			routes.clear();
+			assertEquals(2, inFlight.markSegmentDown("G1", "X", sink));
+			assertEquals(Arrays.asList("0001 Main_Ticketing Y G1 2.5", "0003 Main_Ticketing Y G1 2.5"), routes);
+			assertSame(unaffected, inFlight.getPath(1));
+			assertEquals(0, inFlight.markSegmentDown("X", "G1", sink));
+
+			//No route left to G1.
+			routes.clear();
+			assertEquals(2, inFlight.markNodeDown("Y", sink));
+			assertEquals(Double.POSITIVE_INFINITY, inFlight.getPath(0).getTravelTime(), 0d);
+			assertSame(unaffected, inFlight.getPath(1));
+
+			//Segment back in service, unreachable bags are routed again.
+			routes.clear();
+			assertEquals(2, inFlight.markSegmentUp("X", "G1", sink));
+			assertEquals(Arrays.asList("0001 Main_Ticketing X G1 2.0", "0003 Main_Ticketing X G1 2.0"), routes);
+			assertEquals(0, inFlight.markNodeUp("Y", sink));
+
+			routes.clear();
+			assertEquals(1, inFlight.markNodeDown("G2", sink));
+			assertEquals(Arrays.asList("0002 G2 Infinity"), routes);
+			assertEquals(Double.POSITIVE_INFINITY, inFlight.getPath(1).getTravelTime(), 0d);
+			assertEquals(2d, inFlight.getPath(2).getTravelTime(), 0d);
+		}catch(Exception e){
+			fail(e.getMessage());
+		}
+
+		try{
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.handleConveyorData("A1 A2 1");
+			service.routeInFlightBags(null).markSegmentDown("A1", "A3", null);
+			fail("SystemException expected");
+		}catch(Exception e){
+			assertEquals("Conveyor segment A1 A3 doesn't exist.", e.getMessage());
+		}
+	}
+
+	/**
+	 * It tests that route lists of edges don't grow when the same routes are rerouted again
+	 * and again.
+	 */
+	@Test
+	public void testInFlightRoutesRepeatedFailures(){
+		try{
+			String nl = BaggagePathfinderService.NEW_LINE;
+			String input = BaggagePathfinderService.HEADER_CONVEYOR + nl
+				+ "Main_Ticketing X 1" + nl
+				+ "X G1 1" + nl
+				+ "Main_Ticketing Y 1.5" + nl
+				+ "Y G1 1" + nl
+				+ BaggagePathfinderService.HEADER_DEPARTURE + nl
+				+ "UA10 G1 MIA 08:00" + nl
+				+ BaggagePathfinderService.HEADER_BAG + nl
+				+ "0001 Main_Ticketing UA10" + nl
+				+ "0002 Main_Ticketing UA10";
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.loadData(new StringReader(input));
+			RouteSink sink = new RouteSink() {
+				@Override
+				public void accept(Bag bag, NodePath path) {
+				}
+			};
+			InFlightRoutes inFlight = service.routeInFlightBags(sink);
+			assertEquals(2, inFlight.getEdgeRouteCount());
+
+			//The route moves between both paths, the edges it leaves are never looked up.
+			for(int failure = 0; failure < 20; failure++){
+				String via = failure % 2 == 0 ? "X" : "Y";
+				assertEquals(2, inFlight.markSegmentDown(via, "G1", sink));
+				assertEquals(0, inFlight.markSegmentUp(via, "G1", sink));
+			}
+			assertEquals(2d, inFlight.getPath(0).getTravelTime(), 0d);
+			//At most two entries for each of the four edges, one route crosses them.
+			assertTrue(inFlight.getEdgeRouteCount() <= 8);
+		}catch(Exception e){
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * It tests bag ids, views and gate changes of bag repository.
+	 */
+	@Test
+	public void testBagStore(){
+		try{
+			String nl = BaggagePathfinderService.NEW_LINE;
+			String input = BaggagePathfinderService.HEADER_CONVEYOR + nl
+				+ "Main_Ticketing G1 1" + nl
+				+ "Main_Ticketing G2 2" + nl
+				+ BaggagePathfinderService.HEADER_DEPARTURE + nl
+				+ "UA10 G1 MIA 08:00" + nl
+				+ BaggagePathfinderService.HEADER_BAG + nl
+				+ "0001 Main_Ticketing UA10 07:30" + nl
+				+ "AB-7 Main_Ticketing UA10" + nl
+				+ "1234567890123456789 G1 UA10" + nl
+				+ "000000000000000042 Main_Ticketing UA10";
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.loadData(new StringReader(input));
+
+			BagStore bags = service.getBags();
+			assertEquals(4, bags.size());
+			assertEquals("0001", bags.getBagId(0));
+			assertEquals("AB-7", bags.getBagId(1));
+			assertEquals("1234567890123456789", bags.getBagId(2));
+			assertEquals("000000000000000042", bags.getBagId(3));
+			StringBuilder buffer = new StringBuilder("x");
+			bags.appendBagId(0, buffer);
+			bags.appendBagId(1, buffer);
+			assertEquals("x0001AB-7", buffer.toString());
+
+			Bag bag = bags.get(0);
+			assertEquals("0001", bag.getBagId());
+			assertEquals("Main_Ticketing", bag.getSourceNode().getName());
+			assertEquals("G1", bag.getDestinationNode().getName());
+			assertEquals("UA10", bag.getFlightId());
+			assertEquals(450, bag.getInductionTime());
+			assertEquals(Bag.NO_INDUCTION_TIME, bags.getInductionTime(1));
+			assertEquals(service.getCompactGraph().getId("G1"), bags.getDestinationId(0));
+
+			//Gate change moves all bags of the flight.
+			service.addDeparture("UA10", "G2", "MIA", 8, 0);
+			assertEquals("G2", bags.get(3).getDestinationNode().getName());
+			StringWriter output = new StringWriter();
+			service.routeBags(new RouteWriter(output));
+			assertEquals("0001 Main_Ticketing G2 : 2.0" + nl + "AB-7 Main_Ticketing G2 : 2.0" + nl
+					+ "1234567890123456789 G1 Main_Ticketing G2 : 3.0" + nl 
+					+ "000000000000000042 Main_Ticketing G2 : 2.0" + nl, output.toString());
+
+			assertEquals(null, bags.getDeadlineStatus(0));
+			service.routeBagsByDeadline(new RouteWriter(new StringWriter()));
+			assertEquals(DeadlineStatus.ON_TIME, bags.get(0).getDeadlineStatus());
+			assertEquals(DeadlineStatus.NO_DEADLINE, bags.getDeadlineStatus(1));
+		}catch(Exception e){
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * It tests routing bags of a live stream in micro-batches.
+	 */
+	@Test
+	public void testBagStream() throws Exception{
+		String nl = BaggagePathfinderService.NEW_LINE;
+		Topology topology = Topology.build("Main_Ticketing G1 1" + nl + "Main_Ticketing G2 2", "UA10 G1 MIA 08:00");
+		StringWriter output = new StringWriter();
+		BagStream stream = new BagStream(topology, new RouteWriter(output), 4, 2, 1);
+		assertEquals(2, stream.run(new StringReader("0001 Main_Ticketing UA10" + nl + nl + "0002 X UA10" + nl
+				+ "0003 G2 UA99" + nl + "0004 G2 UA10" + nl)));
+		assertEquals("0001 Main_Ticketing G1 : 1.0" + nl + "0004 G2 Main_Ticketing G1 : 3.0" + nl, output.toString());
+		assertEquals(2, stream.getRejectedCount());
+		assertEquals("Departure with flight name UA99 doesn't exist.", stream.getLastError());
+		try{
+			stream.run(new StringReader("0005 Main_Ticketing UA10"));
+			fail("IllegalStateException expected");
+		}catch(IllegalStateException e){
+			assertEquals("BagStream can only be run once.", e.getMessage());
+		}
+		assertEquals(2, stream.getBagCount());
+
+		//Bags are emitted while the stream is still open.
+		final PipedWriter input = new PipedWriter();
+		final PipedReader pipe = new PipedReader(input);
+		final StringWriter liveOutput = new StringWriter();
+		final BagStream liveStream = new BagStream(topology, new RouteWriter(liveOutput));
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try{
+			Future<Long> routed = executor.submit(new Callable<Long>() {
+				@Override
+				public Long call() throws Exception {
+					return liveStream.run(pipe);
+				}
+			});
+			input.write("0001 Main_Ticketing UA10" + nl);
+			input.flush();
+			long deadline = System.currentTimeMillis() + 10000;
+			while(liveStream.getBagCount() == 0 && System.currentTimeMillis() < deadline){
+				Thread.sleep(1);
+			}
+			assertEquals("0001 Main_Ticketing G1 : 1.0" + nl, liveOutput.toString());
+			input.close();
+			assertEquals(Long.valueOf(1), routed.get());
+		}finally{
+			executor.shutdown();
+		}
+
+		//Failing sink stops the reader thread, even while it waits for a full queue.
+		StringBuilder burst = new StringBuilder();
+		for(int i = 0; i < 100; i++){
+			burst.append(i).append(" Main_Ticketing UA10").append(nl);
+		}
+		BagStream failing = new BagStream(topology, new RouteSink() {
+			@Override
+			public void accept(Bag bag, NodePath path) throws IOException {
+				throw new IOException("Sink closed");
+			}
+		}, 1, 1, 0);
+		try{
+			failing.run(new StringReader(burst.toString()));
+			fail("IOException expected");
+		}catch(IOException e){
+			assertEquals("Sink closed", e.getMessage());
+		}
+		long deadline = System.currentTimeMillis() + 10000;
+		while(isThreadAlive("bag-stream-reader") && System.currentTimeMillis() < deadline){
+			Thread.sleep(1);
+		}
+		assertFalse(isThreadAlive("bag-stream-reader"));
+
+		//Topology only input, bag section header is optional and the section isn't read.
+		BaggagePathfinderService service = new BaggagePathfinderService();
+		service.loadTopology(new StringReader(BaggagePathfinderService.HEADER_CONVEYOR + nl + "Main_Ticketing G1 1" + nl
+				+ BaggagePathfinderService.HEADER_DEPARTURE + nl + "UA10 G1 MIA 08:00"));
+		assertTrue(service.getDepartureMap().containsKey("UA10"));
+		service.loadTopology(new StringReader(BaggagePathfinderService.HEADER_CONVEYOR + nl + "Main_Ticketing G1 1" + nl
+				+ BaggagePathfinderService.HEADER_DEPARTURE + nl + "UA10 G1 MIA 08:00" + nl 
+				+ BaggagePathfinderService.HEADER_BAG + nl + "0001 X UA10"));
+		assertEquals(0, service.getBags().size());
+	}
+
+	private static boolean isThreadAlive(String name){
+		for(Thread thread : Thread.getAllStackTraces().keySet()){
+			if(thread.getName().equals(name) && thread.isAlive()){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * It tests time dependent routing around a maintenance window.
+	 */
+	@Test
+	public void testTimeDependentRouting(){
+		try{
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.addSegment("Main_Ticketing", "X", 1);
+			service.addSegment("X", "G1", 1);
+			service.addSegment("Main_Ticketing", "Y", 1.5);
+			service.addSegment("Y", "G1", 1);
+
+			//X G1 is offline from 10:00 to 11:00.
+			double offline = Double.POSITIVE_INFINITY;
+			service.setTravelTimeProfile("X", "G1", new int[]{600, 600, 660, 660}, new double[]{1, offline, offline, 1});
+			service.setTravelTimeProfile("Main_Ticketing", "X", new int[]{0}, new double[]{1});
+			assertEquals(2, service.getTravelTimeProfiles().getProfileCount());
+			assertEquals("X", service.findTimeDependentPath("Main_Ticketing", "G1", 9 * 60).getPath().get(1).getName());
+			NodePath path = service.findTimeDependentPath("Main_Ticketing", "G1", 10 * 60);
+			assertEquals("Y", path.getPath().get(1).getName());
+			assertEquals(2.5, path.getTravelTime(), 0d);
+			assertEquals("Y", service.findTimeDependentPath("G1", "Main_Ticketing", 10 * 60).getPath().get(1).getName());
+			assertEquals("X", service.findTimeDependentPath("G1", "Main_Ticketing", 9 * 60 + 58).getPath().get(1).getName());
+			assertEquals(2d, service.findTimeDependentPath("Main_Ticketing", "G1", 11 * 60).getTravelTime(), 0d);
+
+			//Same profile is stored once, a travel time update keeps it.
+			service.setTravelTimeProfile("Y", "G1", new int[]{600, 600, 660, 660}, new double[]{1, offline, offline, 1});
+			assertEquals(2, service.getTravelTimeProfiles().getProfileCount());
+			service.updateSegmentTravelTime("X", "G1", 1);
+			assertEquals(61d, service.findTimeDependentPath("Main_Ticketing", "G1", 10 * 60).getTravelTime(), 0d);
+			service.clearTravelTimeProfile("Y", "G1");
+			assertEquals(2.5, service.findTimeDependentPath("Main_Ticketing", "G1", 10 * 60).getTravelTime(), 0d);
+		}catch(SystemException e){
+			fail(e.getMessage());
+		}
+
+		//B C is offline until 10:00, a bag reaching B at 09:56 waits there rather than taking A D B.
+		try{
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.addSegment("A", "B", 1);
+			service.addSegment("B", "C", 1);
+			service.addSegment("A", "D", 5);
+			service.addSegment("D", "B", 5);
+			double offline = Double.POSITIVE_INFINITY;
+			service.setTravelTimeProfile("B", "C", new int[]{0, 600, 600, 1439}, new double[]{offline, offline, 1, 1});
+			NodePath path = service.findTimeDependentPath("A", "C", 9 * 60 + 55);
+			assertEquals(6d, path.getTravelTime(), 0d);
+			assertEquals("B", path.getPath().get(1).getName());
+			assertEquals(1d, service.findTimeDependentPath("B", "C", 10 * 60).getTravelTime(), 0d);
+			//Reaching B at midnight the bag waits until 10:00 of the next day.
+			assertEquals(602d, service.findTimeDependentPath("A", "C", 23 * 60 + 59).getTravelTime(), 0d);
+		}catch(SystemException e){
+			fail(e.getMessage());
+		}
+
+		try{
+			new BaggagePathfinderService().setTravelTimeProfile("A1", "A2", new int[]{0}, new double[]{1});
+			fail("SystemException expected");
+		}catch(SystemException e){
+			assertEquals("Conveyor segment A1 A2 doesn't exist.", e.getMessage());
+		}
+	}
+
+	/**
+	 * It tests metrics of parsing, routing and searches, and their export as text and through JMX.
+	 */
+	@Test
+	public void testMetrics() throws Exception{
+		BaggagePathfinderService service = new BaggagePathfinderService();
+		assertEquals(null, service.getMetrics());
+		service.setMetricsEnabled(true);
+		service.setCachedRoutes(16);
+		assertEquals(service.findShortestPath(testInputData[0]), testOutputData[0]);
+
+		PathfinderMetrics metrics = service.getMetrics();
+		assertEquals(11, metrics.getParseLines(BaggagePathfinderService.SECTION_CONVEYOR));
+		assertEquals(9, metrics.getParseLines(BaggagePathfinderService.SECTION_DEPARTURE));
+		assertEquals(5, metrics.getParseLines(BaggagePathfinderService.SECTION_BAG));
+		assertEquals(service.getCompactGraph().getNodeCount(), metrics.getGraphNodeCount());
+		assertEquals(service.getCompactGraph().getEdgeCount(), metrics.getGraphEdgeCount());
+
+		//Five bags from five sources, one search each.
+		assertEquals(5, metrics.getQueries());
+		assertEquals(5, metrics.getSearches());
+		assertTrue(metrics.getSettledNodes() > 0);
+		assertTrue(metrics.getRelaxedEdges() >= metrics.getSettledNodes());
+		assertTrue(metrics.getQueueOperations() >= 2 * metrics.getSettledNodes());
+		assertTrue(metrics.getQueryLatencyMaxMicros() >= metrics.getQueryLatencyP50Micros());
+		assertEquals(0d, metrics.getRouteCacheHitRate(), 0d);
+
+		//Second run is answered by route cache.
+		service.routeBags(new RouteWriter(new StringWriter()));
+		assertEquals(10, metrics.getQueries());
+		assertEquals(5, metrics.getSearches());
+		assertEquals(0.5, metrics.getRouteCacheHitRate(), 0d);
+		assertTrue(metrics.getSnapshot().contains("query.count 10" + BaggagePathfinderService.NEW_LINE));
+		assertTrue(metrics.getSnapshot().contains("cache.route.hit.rate 0.500" + BaggagePathfinderService.NEW_LINE));
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = metrics.register("test");
+		try{
+			assertEquals(10L, server.getAttribute(name, "Queries"));
+			server.invoke(name, "reset", new Object[0], new String[0]);
+			assertEquals(0L, server.getAttribute(name, "Queries"));
+		}finally{
+			PathfinderMetrics.unregister("test");
+		}
+		assertFalse(server.isRegistered(name));
+
+		service.setMetricsEnabled(false);
+		assertEquals(null, service.getMetrics());
+	}
+
+	/**
+	 * It tests percentiles of LatencyHistogram, exact to within 1/32 of the value.
+	 */
+	@Test
+	public void testLatencyHistogram(){
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getValueAtPercentile(50));
+		for(long value = 1; value <= 100000; value++){
+			histogram.record(value);
+		}
+		assertEquals(100000, histogram.getCount());
+		assertEquals(100000, histogram.getMax());
+		assertEquals(50000.5, histogram.getMean(), 0d);
+		assertEquals(50000, histogram.getValueAtPercentile(50), 50000 / 32);
+		assertEquals(99000, histogram.getValueAtPercentile(99), 99000 / 32);
+		assertEquals(100000, histogram.getValueAtPercentile(100));
+		assertEquals(1, histogram.getValueAtPercentile(0));
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+	}
+
+	/**
+	 * It tests routing of two airports from many threads against one TopologyRegistry. Routes 
+	 * should equal the routes of the service, later changes of the service shouldn't leak in.
+	 */
+	@Test
+	public void testTopologyRegistry() throws Exception{
+		final TopologyRegistry registry = new TopologyRegistry();
+		final String[] bagData = new String[2];
+		for(int i = 0; i < 2; i++){
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.setSearchStrategy(i == 0 ? SearchStrategy.DIJKSTRA : SearchStrategy.BIDIRECTIONAL_DIJKSTRA);
+			service.setPrecomputeRoutes(i == 1);
+			assertEquals(service.findShortestPath(testInputData[i]), testOutputData[i]);
+			assertEquals(null, registry.register("AP" + i, service.createTopology()));
+			bagData[i] = testInputData[i].substring(testInputData[i].indexOf(BaggagePathfinderService.HEADER_BAG) 
+					+ BaggagePathfinderService.HEADER_BAG.length() + BaggagePathfinderService.NEW_LINE.length());
+
+			//Topology keeps the conveyor system it was created with.
+			service.removeSegment("A5", "A1");
+			assertEquals(registry.routeBags("AP" + i, bagData[i]), testOutputData[i]);
+		}
+		assertEquals(new HashSet<String>(Arrays.asList("AP0", "AP1")), registry.getAirports());
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try{
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for(int task = 0; task < 16; task++){
+				final int airport = task % 2;
+				results.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws SystemException {
+						for(int i = 0; i < 100; i++){
+							if(!registry.routeBags("AP" + airport, bagData[airport]).equals(testOutputData[airport])){
+								return false;
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			for(Future<Boolean> result : results){
+				assertTrue(result.get());
+			}
+		}finally{
+			executor.shutdown();
+		}
+
+		NodePath path = registry.findShortestPath("AP0", "A1", "A4");
+		assertEquals(3d, path.getTravelTime(), 0d);
+		assertTrue(registry.get("AP0").hasFlight("UA10"));
+		try{
+			registry.routeBags("AP0", "0001 A1 UA99");
+			fail("SystemException expected");
+		}catch(SystemException e){
+			assertEquals("Departure with flight name UA99 doesn't exist.", e.getMessage());
+		}
+		registry.remove("AP1");
+		try{
+			registry.get("AP1");
+			fail("SystemException expected");
+		}catch(SystemException e){
+			assertEquals("Topology of airport AP1 doesn't exist.", e.getMessage());
+		}
+	}
+
+	private static List<String> flightIds(List<Departure> departures){
+		List<String> flightIds = new ArrayList<String>();
+		for(Departure departure : departures){
+			flightIds.add(departure.getFlightId());
+		}
+		return flightIds;
+	}
+
+	/**
+	 * It tests BaggagePathfinderService.loadData with a topology snapshot. A warm start 
+	 * should route like a cold start, a conveyor change should make the snapshot stale.
+	 */
+	@Test
+	public void testSnapshot() throws IOException{
+		Path directory = Files.createTempDirectory("snapshot");
+		Path input = directory.resolve("input.txt");
+		Path snapshot = directory.resolve("input.snapshot");
+		try{
+			Files.write(input, testInputData[0].getBytes(StandardCharsets.UTF_8));
+
+			//Cold start writes the snapshot.
+			BaggagePathfinderService service = new BaggagePathfinderService();
+			service.setPrecomputeRoutes(true);
+			assertFalse(service.loadData(input, snapshot));
+			StringWriter output = new StringWriter();
+			service.routeBags(new RouteWriter(output));
+			assertEquals(output.toString(), testOutputData[0]);
+
+			//Warm start only parses the bags.
+			service = new BaggagePathfinderService();
+			service.setPrecomputeRoutes(true);
+			assertTrue(service.loadData(input, snapshot));
+			BaggagePathfinderService parsed = new BaggagePathfinderService();
+			parsed.findShortestPath(testInputData[0]);
+			assertEquals(parsed.getNodeMap().keySet(), service.getNodeMap().keySet());
+			assertEquals(parsed.getDepartureMap().keySet(), service.getDepartureMap().keySet());
+			assertNotNull(service.getRouteTable());
+			output = new StringWriter();
+			service.routeBags(new RouteWriter(output));
+			assertEquals(output.toString(), testOutputData[0]);
+
+			//New bag section keeps the snapshot valid.
+			String nl = BaggagePathfinderService.NEW_LINE;
+			Files.write(input, (testInputData[0] + nl + "0099 A1 UA10").getBytes(StandardCharsets.UTF_8));
+			assertTrue(new BaggagePathfinderService().loadSnapshot(snapshot, input));
+
+			//Conveyor change makes it stale.
+			Files.write(input, testInputData[0].replace(BaggagePathfinderService.HEADER_DEPARTURE, 
+					"A4 A6 2" + nl + BaggagePathfinderService.HEADER_DEPARTURE).getBytes(StandardCharsets.UTF_8));
+			assertFalse(new BaggagePathfinderService().loadSnapshot(snapshot, input));
+
+			//Damaged snapshot is ignored.
+			Files.write(input, testInputData[0].getBytes(StandardCharsets.UTF_8));
+			byte[] bytes = Files.readAllBytes(snapshot);
+			bytes[bytes.length / 2] ^= 1;
+			Files.write(snapshot, bytes);
+			assertFalse(new BaggagePathfinderService().loadSnapshot(snapshot, input));
+
+			//Failed write leaves no temporary file behind.
+			Files.delete(snapshot);
+			Files.createDirectory(snapshot);
+			Files.createFile(snapshot.resolve("blocker"));
+			try{
+				service.writeSnapshot(snapshot, input);
+				fail("IOException expected");
+			}catch(IOException e){
+				assertFalse(Files.exists(directory.resolve("input.snapshot.tmp")));
+			}
+			Files.delete(snapshot.resolve("blocker"));
+		}catch(SystemException e){
+			fail(e.getMessage());
+		}finally{
+			Files.deleteIfExists(input);
+			Files.deleteIfExists(snapshot);
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	/**
+	 * It execute BaggagePathfinderService.findShortestPath method with 
+	 * invalid input data. SystemException is expected.
+	 * 
+	 * @throws SystemException
+	 */
+	@Test(expected=SystemException.class)
+	public void testFindPathException() throws SystemException{
+		BaggagePathfinderService service = new BaggagePathfinderService();
+		service.findShortestPath(testInputData[2]);
+	}
+
+	/**
+	 * Clean up instance variables.
+	 */
+	@After
+	public void tearDown(){
+		testInputData = null;
+		testOutputData = null;
+	}
+}